@@ -0,0 +1,143 @@
+package com.aszender.contracts.grpc;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.Status;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-method gRPC call metrics recorded by {@link GrpcMetricsServerInterceptor} or
+ * {@link GrpcMetricsClientInterceptor}: calls, status codes, in-flight calls, message counts and
+ * sizes, and a latency histogram (p50/p99/p999). On a client, latency is what the caller sees,
+ * including retries and hedged attempts.
+ */
+public class GrpcMetrics {
+
+    private final ConcurrentMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    MethodMetrics method(String fullMethodName) {
+        return methods.computeIfAbsent(fullMethodName, name -> new MethodMetrics());
+    }
+
+    public List<MethodSnapshot> snapshot() {
+        return methods.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> e.getValue().snapshot(e.getKey()))
+                .toList();
+    }
+
+    static final class MethodMetrics {
+
+        private static final Status.Code[] CODES = Status.Code.values();
+
+        private final LongAdder calls = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLongArray statusCounts = new AtomicLongArray(CODES.length);
+        private final LongAdder messagesReceived = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final LongAdder messagesSent = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LatencyHistogram latencyMicros = new LatencyHistogram();
+
+        Call start() {
+            calls.increment();
+            inFlight.incrementAndGet();
+            return new Call(this, System.nanoTime());
+        }
+
+        void received(Object message) {
+            messagesReceived.increment();
+            bytesReceived.add(sizeOf(message));
+        }
+
+        void sent(Object message) {
+            messagesSent.increment();
+            bytesSent.add(sizeOf(message));
+        }
+
+        // Protobuf memoizes the size, and the marshaller needs it anyway.
+        private static int sizeOf(Object message) {
+            return message instanceof MessageLite m ? m.getSerializedSize() : 0;
+        }
+
+        private void finish(Status.Code code, long nanos) {
+            inFlight.decrementAndGet();
+            statusCounts.incrementAndGet(code.ordinal());
+            latencyMicros.record(nanos / 1_000);
+        }
+
+        MethodSnapshot snapshot(String method) {
+            Map<String, Long> statuses = new LinkedHashMap<>();
+            for (Status.Code code : CODES) {
+                long count = statusCounts.get(code.ordinal());
+                if (count > 0) {
+                    statuses.put(code.name(), count);
+                }
+            }
+            return new MethodSnapshot(
+                    method,
+                    calls.sum(),
+                    inFlight.get(),
+                    statuses,
+                    messagesReceived.sum(),
+                    bytesReceived.sum(),
+                    messagesSent.sum(),
+                    bytesSent.sum(),
+                    new Latency(
+                            latencyMicros.count(),
+                            millis(latencyMicros.valueAt(0.5)),
+                            millis(latencyMicros.valueAt(0.99)),
+                            millis(latencyMicros.valueAt(0.999)),
+                            millis(latencyMicros.max())));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1_000.0;
+        }
+    }
+
+    /**
+     * One call in flight; only its first {@link #finish} counts (close and cancel can race).
+     */
+    static final class Call {
+
+        private final MethodMetrics method;
+        private final long startNanos;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Call(MethodMetrics method, long startNanos) {
+            this.method = method;
+            this.startNanos = startNanos;
+        }
+
+        void finish(Status.Code code) {
+            if (finished.compareAndSet(false, true)) {
+                method.finish(code, System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    public record Latency(long count, double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+    }
+
+    public record MethodSnapshot(
+            String method,
+            long calls,
+            int inFlight,
+            Map<String, Long> statusCodes,
+            long messagesReceived,
+            long bytesReceived,
+            long messagesSent,
+            long bytesSent,
+            Latency latency
+    ) {
+    }
+}
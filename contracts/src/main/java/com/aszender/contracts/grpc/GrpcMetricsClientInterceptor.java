@@ -0,0 +1,65 @@
+package com.aszender.contracts.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * Records every call made on a channel into {@link GrpcMetrics}, from {@code start} to
+ * {@code onClose}. Installed on the channel, it sees one logical call per stub call, however many
+ * attempts the retry/hedging policy makes underneath.
+ */
+public class GrpcMetricsClientInterceptor implements ClientInterceptor {
+
+    private final GrpcMetrics metrics;
+
+    public GrpcMetricsClientInterceptor(GrpcMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> methodDescriptor,
+            CallOptions callOptions,
+            Channel next
+    ) {
+        GrpcMetrics.MethodMetrics method = metrics.method(methodDescriptor.getFullMethodName());
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(methodDescriptor, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                GrpcMetrics.Call recorded = method.start();
+                Listener<RespT> measured = new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onMessage(RespT message) {
+                        method.received(message);
+                        super.onMessage(message);
+                    }
+
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        recorded.finish(status.getCode());
+                        super.onClose(status, trailers);
+                    }
+                };
+                try {
+                    super.start(measured, headers);
+                } catch (RuntimeException e) {
+                    recorded.finish(Status.fromThrowable(e).getCode());
+                    throw e;
+                }
+            }
+
+            @Override
+            public void sendMessage(ReqT message) {
+                method.sent(message);
+                super.sendMessage(message);
+            }
+        };
+    }
+}
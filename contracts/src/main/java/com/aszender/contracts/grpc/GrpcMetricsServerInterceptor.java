@@ -0,0 +1,67 @@
+package com.aszender.contracts.grpc;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * Records every server call into {@link GrpcMetrics}. Latency runs from the call arriving to its
+ * close (or cancellation), so for streaming methods it is the lifetime of the stream.
+ */
+public class GrpcMetricsServerInterceptor implements ServerInterceptor {
+
+    private final GrpcMetrics metrics;
+
+    public GrpcMetricsServerInterceptor(GrpcMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next
+    ) {
+        GrpcMetrics.MethodMetrics method = metrics.method(call.getMethodDescriptor().getFullMethodName());
+        GrpcMetrics.Call recorded = method.start();
+
+        ServerCall<ReqT, RespT> measuredCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void sendMessage(RespT message) {
+                method.sent(message);
+                super.sendMessage(message);
+            }
+
+            @Override
+            public void close(Status status, Metadata trailers) {
+                recorded.finish(status.getCode());
+                super.close(status, trailers);
+            }
+        };
+
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(measuredCall, headers);
+        } catch (RuntimeException e) {
+            recorded.finish(Status.fromThrowable(e).getCode());
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onMessage(ReqT message) {
+                method.received(message);
+                super.onMessage(message);
+            }
+
+            @Override
+            public void onCancel() {
+                recorded.finish(Status.Code.CANCELLED);
+                super.onCancel();
+            }
+        };
+    }
+}
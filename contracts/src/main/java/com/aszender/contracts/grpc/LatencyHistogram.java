@@ -0,0 +1,79 @@
+package com.aszender.contracts.grpc;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram in the spirit of HdrHistogram: values below 64 are counted
+ * exactly, larger ones in 32 linear sub-buckets per power of two, so every percentile is reported
+ * within ~3% of the recorded value at a fixed 9 KB per histogram.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT = SUB_BUCKETS * 2;
+    private static final int MAX_BITS = 40; // 2^40 µs is about 12 days; larger values are clamped
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(EXACT + (MAX_BITS - SUB_BUCKET_BITS - 1) * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(clamped));
+        count.increment();
+        max.accumulate(clamped);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.999
+     * @return the highest value equivalent to the recorded value at that rank, 0 when empty
+     */
+    public long valueAt(double quantile) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalent(i), max());
+            }
+        }
+        return max();
+    }
+
+    static int indexOf(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestEquivalent(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long subBucket = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,52 @@
+package com.aszender.contracts.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+
+/**
+ * Reads both encodings of the same topics: records marked {@link EventContentType#PROTOBUF} with
+ * the protobuf deserializer registered for their topic, all others with the JSON one. Consumers
+ * deployed with it keep working while the producers of a topic switch format, in either order.
+ */
+public class ContentTypeDelegatingDeserializer implements Deserializer<Object> {
+
+    private final Map<String, ? extends Deserializer<?>> protobufByTopic;
+    private final Deserializer<?> json;
+
+    public ContentTypeDelegatingDeserializer(Map<String, ? extends Deserializer<?>> protobufByTopic, Deserializer<?> json) {
+        this.protobufByTopic = Map.copyOf(protobufByTopic);
+        this.json = json;
+    }
+
+    // Only the JSON deserializer takes configuration (e.g. the per-listener default type).
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (!EventContentType.isProtobuf(headers)) {
+            return json.deserialize(topic, headers, data);
+        }
+        Deserializer<?> protobuf = protobufByTopic.get(topic);
+        if (protobuf == null) {
+            throw new SerializationException("No protobuf event type is registered for topic " + topic);
+        }
+        return protobuf.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+        protobufByTopic.values().forEach(Deserializer::close);
+    }
+}
@@ -0,0 +1,26 @@
+package com.aszender.contracts.kafka;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The record header telling consumers how an event value is encoded. Protobuf values carry it;
+ * values without it are JSON, as every event was before the protobuf messages existed.
+ */
+public final class EventContentType {
+
+    public static final String HEADER = "contentType";
+    public static final String PROTOBUF = "application/x-protobuf";
+
+    static final byte[] PROTOBUF_BYTES = PROTOBUF.getBytes(StandardCharsets.UTF_8);
+
+    private EventContentType() {
+    }
+
+    public static boolean isProtobuf(Headers headers) {
+        Header header = headers == null ? null : headers.lastHeader(HEADER);
+        return header != null && PROTOBUF.equals(new String(header.value(), StandardCharsets.UTF_8));
+    }
+}
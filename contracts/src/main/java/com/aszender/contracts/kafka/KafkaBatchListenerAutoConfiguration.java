@@ -0,0 +1,37 @@
+package com.aszender.contracts.kafka;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.kafka.autoconfigure.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+/**
+ * Batch consumption mode (app.kafka.batch-listeners.enabled=true): the *BatchListener beans replace
+ * the record listeners, receive everything one poll returned, and the offsets are committed once
+ * per poll. Batch listeners name {@link #CONTAINER_FACTORY} as their container factory.
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.kafka.autoconfigure.KafkaAutoConfiguration")
+@ConditionalOnClass(ConcurrentKafkaListenerContainerFactory.class)
+@Profile("kafka")
+@ConditionalOnProperty(name = "app.kafka.batch-listeners.enabled", havingValue = "true")
+public class KafkaBatchListenerAutoConfiguration {
+
+    public static final String CONTAINER_FACTORY = "batchKafkaListenerContainerFactory";
+
+    @Bean(CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+}
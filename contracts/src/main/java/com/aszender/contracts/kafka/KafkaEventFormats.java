@@ -0,0 +1,77 @@
+package com.aszender.contracts.kafka;
+
+import com.google.protobuf.MessageLite;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.kafka.autoconfigure.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.kafka.autoconfigure.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.kafka.autoconfigure.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.support.serializer.DelegatingByTopicSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Event encodings, wired by each service with its own topics and messages: the topics listed in
+ * app.kafka.protobuf-topics are published as protobuf (contracts events.proto), all others as JSON.
+ * Listeners read both, picking by the record's content type header, so a topic is switched by
+ * upgrading its consumers first, then its producers.
+ */
+public final class KafkaEventFormats {
+
+    private KafkaEventFormats() {
+    }
+
+    /**
+     * @param toMessage maps the service's event records to their protobuf messages
+     */
+    public static DefaultKafkaProducerFactoryCustomizer protobufSerializer(
+            KafkaProperties kafkaProperties,
+            Set<String> protobufTopics,
+            Function<Object, ? extends MessageLite> toMessage
+    ) {
+        return producerFactory -> {
+            if (protobufTopics.isEmpty()) {
+                return;
+            }
+            Map<Pattern, Serializer<?>> protobufByTopic = new LinkedHashMap<>();
+            protobufTopics.forEach(topic -> protobufByTopic.put(Pattern.compile(Pattern.quote(topic)),
+                    new ProtobufSerializer<>(toMessage)));
+            // The delegating serializer only configures the per-topic delegates.
+            Serializer<?> json = BeanUtils.instantiateClass(kafkaProperties.getProducer().getValueSerializer(), Serializer.class);
+            json.configure(producerFactory.getConfigurationProperties(), false);
+            valueSerializer(producerFactory, new DelegatingByTopicSerializer(protobufByTopic, json));
+        };
+    }
+
+    /**
+     * @param protobufByTopic the protobuf deserializer of each consumed topic; called once per
+     *                        consumer, as each listener configures its own JSON default type
+     */
+    public static DefaultKafkaConsumerFactoryCustomizer contentTypeDeserializer(
+            KafkaProperties kafkaProperties,
+            Supplier<Map<String, ? extends Deserializer<?>>> protobufByTopic
+    ) {
+        Class<?> jsonDeserializer = kafkaProperties.getConsumer().getValueDeserializer();
+        return consumerFactory -> valueDeserializer(consumerFactory, () -> new ContentTypeDelegatingDeserializer(
+                protobufByTopic.get(), BeanUtils.instantiateClass(jsonDeserializer, Deserializer.class)));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void valueSerializer(DefaultKafkaProducerFactory<?, ?> producerFactory, Serializer<?> serializer) {
+        ((DefaultKafkaProducerFactory) producerFactory).setValueSerializer(serializer);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void valueDeserializer(DefaultKafkaConsumerFactory<?, ?> consumerFactory,
+                                          Supplier<Deserializer<?>> deserializer) {
+        ((DefaultKafkaConsumerFactory) consumerFactory).setValueDeserializerSupplier(deserializer);
+    }
+}
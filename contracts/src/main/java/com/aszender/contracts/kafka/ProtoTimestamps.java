@@ -0,0 +1,33 @@
+package com.aszender.contracts.kafka;
+
+import com.google.protobuf.Timestamp;
+
+import java.time.Instant;
+
+/**
+ * Instant / ISO-8601 string &lt;-&gt; google.protobuf.Timestamp for the event mappers. An unset
+ * timestamp stands for a null one.
+ */
+public final class ProtoTimestamps {
+
+    private ProtoTimestamps() {
+    }
+
+    public static Timestamp of(Instant instant) {
+        return Timestamp.newBuilder()
+                .setSeconds(instant.getEpochSecond())
+                .setNanos(instant.getNano())
+                .build();
+    }
+
+    /**
+     * @param iso e.g. the {@code Instant.toString()} the JSON events carry
+     */
+    public static Timestamp parse(String iso) {
+        return of(Instant.parse(iso));
+    }
+
+    public static Instant toInstant(Timestamp timestamp) {
+        return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+    }
+}
@@ -0,0 +1,39 @@
+package com.aszender.contracts.kafka;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.function.Function;
+
+/**
+ * Reads values of one protobuf message type, optionally mapped to the type the listeners take.
+ */
+public class ProtobufDeserializer<M extends MessageLite, T> implements Deserializer<T> {
+
+    private final Parser<M> parser;
+    private final Function<? super M, ? extends T> fromMessage;
+
+    public ProtobufDeserializer(Parser<M> parser, Function<? super M, ? extends T> fromMessage) {
+        this.parser = parser;
+        this.fromMessage = fromMessage;
+    }
+
+    public static <M extends MessageLite> ProtobufDeserializer<M, M> forMessages(Parser<M> parser) {
+        return new ProtobufDeserializer<>(parser, Function.identity());
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return fromMessage.apply(parser.parseFrom(data));
+        } catch (InvalidProtocolBufferException e) {
+            throw new SerializationException("Cannot parse the protobuf value of a " + topic + " record", e);
+        }
+    }
+}
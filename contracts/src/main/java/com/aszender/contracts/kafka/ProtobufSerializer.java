@@ -0,0 +1,36 @@
+package com.aszender.contracts.kafka;
+
+import com.google.protobuf.MessageLite;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.function.Function;
+
+/**
+ * Writes values as protobuf messages and marks the records with {@link EventContentType#PROTOBUF}.
+ * Values that are not messages themselves (a service's event records) are mapped first.
+ */
+public class ProtobufSerializer<T> implements Serializer<T> {
+
+    private final Function<? super T, ? extends MessageLite> toMessage;
+
+    public ProtobufSerializer(Function<? super T, ? extends MessageLite> toMessage) {
+        this.toMessage = toMessage;
+    }
+
+    public static ProtobufSerializer<MessageLite> forMessages() {
+        return new ProtobufSerializer<>(Function.identity());
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        return data == null ? null : toMessage.apply(data).toByteArray();
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, T data) {
+        headers.remove(EventContentType.HEADER);
+        headers.add(EventContentType.HEADER, EventContentType.PROTOBUF_BYTES);
+        return serialize(topic, data);
+    }
+}
@@ -0,0 +1,22 @@
+package com.aszender.contracts.kafka.inbox;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Adds the inbox to a service: {@link KafkaInboxService}, its rebalance listener, and this package
+ * to the packages scanned for entities and repositories (next to the application's own, hence
+ * before the JPA auto-configurations read them).
+ */
+@AutoConfiguration(beforeName = {
+        "org.springframework.boot.hibernate.autoconfigure.HibernateJpaAutoConfiguration",
+        "org.springframework.boot.data.jpa.autoconfigure.DataJpaRepositoriesAutoConfiguration"
+})
+@ConditionalOnClass(JpaRepository.class)
+@AutoConfigurationPackage(basePackageClasses = KafkaInboxPartition.class)
+@Import({KafkaInboxService.class, KafkaInboxRebalanceListener.class})
+public class KafkaInboxAutoConfiguration {
+}
@@ -0,0 +1,81 @@
+package com.aszender.contracts.kafka.inbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.Instant;
+
+/**
+ * Consumed-offset state of one topic partition: every offset below the watermark was consumed,
+ * and pending_offsets is a bitset of the consumed offsets above it (bit i = watermark + i).
+ */
+@Entity
+@Table(
+        name = "kafka_inbox_partitions",
+        uniqueConstraints = {
+                @UniqueConstraint(
+                        name = "uk_kafka_inbox_partitions_topic_partition",
+                        columnNames = {"topic", "partition_id"}
+                )
+        }
+)
+public class KafkaInboxPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    @Column(name = "partition_id", nullable = false)
+    private int partitionId;
+
+    @Column(nullable = false)
+    private long watermark;
+
+    @Column(name = "pending_offsets", nullable = false, length = OffsetWindow.MAX_WIDTH / 8)
+    private byte[] pendingOffsets;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    protected KafkaInboxPartition() {
+    }
+
+    public KafkaInboxPartition(String topic, int partitionId, long watermark, byte[] pendingOffsets) {
+        this.topic = topic;
+        this.partitionId = partitionId;
+        this.watermark = watermark;
+        this.pendingOffsets = pendingOffsets;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public int getPartitionId() {
+        return partitionId;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public byte[] getPendingOffsets() {
+        return pendingOffsets;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
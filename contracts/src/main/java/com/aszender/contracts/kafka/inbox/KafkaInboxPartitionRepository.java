@@ -0,0 +1,28 @@
+package com.aszender.contracts.kafka.inbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface KafkaInboxPartitionRepository extends JpaRepository<KafkaInboxPartition, Long> {
+
+    Optional<KafkaInboxPartition> findByTopicAndPartitionId(String topic, int partitionId);
+
+    @Modifying
+    @Query("""
+            update KafkaInboxPartition p
+               set p.watermark = :watermark, p.pendingOffsets = :pendingOffsets, p.updatedAt = :updatedAt
+             where p.topic = :topic and p.partitionId = :partitionId
+            """)
+    int updateWindow(
+            @Param("topic") String topic,
+            @Param("partitionId") int partitionId,
+            @Param("watermark") long watermark,
+            @Param("pendingOffsets") byte[] pendingOffsets,
+            @Param("updatedAt") Instant updatedAt
+    );
+}
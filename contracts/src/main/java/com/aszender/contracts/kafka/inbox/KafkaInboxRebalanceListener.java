@@ -0,0 +1,31 @@
+package com.aszender.contracts.kafka.inbox;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Collection;
+
+/**
+ * Picked up by the listener container factory; keeps the inbox windows limited to owned partitions.
+ */
+@Profile("kafka")
+public class KafkaInboxRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final KafkaInboxService inboxService;
+
+    public KafkaInboxRebalanceListener(KafkaInboxService inboxService) {
+        this.inboxService = inboxService;
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        inboxService.forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        inboxService.forget(partitions);
+    }
+}
@@ -0,0 +1,135 @@
+package com.aszender.contracts.kafka.inbox;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deduplicates redelivered records by topic-partition offset.
+ *
+ * Each partition keeps an {@link OffsetWindow} in memory, so the duplicate check needs no query;
+ * recording a record (or a whole polled batch) is one update of the partition's single row.
+ * Windows are loaded on first use and dropped when the partition is revoked, so a reassigned
+ * partition starts from what its previous owner stored.
+ *
+ * Registered in every service by {@link KafkaInboxAutoConfiguration}.
+ */
+public class KafkaInboxService {
+
+    private final KafkaInboxPartitionRepository repository;
+
+    private final ConcurrentHashMap<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+
+    public KafkaInboxService(KafkaInboxPartitionRepository repository) {
+        this.repository = repository;
+    }
+
+    @Transactional
+    public boolean tryConsume(ConsumerRecord<?, ?> record) {
+        return record == null || !tryConsumeAll(List.of(record)).isEmpty();
+    }
+
+    /**
+     * Batch form of {@link #tryConsume}: one row update per partition for the whole batch.
+     *
+     * @return the records not consumed before, in their original order
+     */
+    @Transactional
+    public <R extends ConsumerRecord<?, ?>> List<R> tryConsumeAll(List<R> records) {
+        List<R> fresh = new ArrayList<>(records.size());
+        Map<TopicPartition, PartitionState> marked = new LinkedHashMap<>();
+        for (R record : records) {
+            TopicPartition topicPartition = new TopicPartition(record.topic(), record.partition());
+            PartitionState state = partitions.computeIfAbsent(topicPartition, this::load);
+            synchronized (state) {
+                if (state.window.mark(record.offset())) {
+                    fresh.add(record);
+                    marked.put(topicPartition, state);
+                }
+            }
+        }
+
+        // The windows are ahead of the database until the transaction (possibly the caller's) commits:
+        // if it does not, reload them on the next record.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    marked.forEach(partitions::remove);
+                }
+            }
+        });
+        marked.forEach((topicPartition, state) -> {
+            synchronized (state) {
+                store(topicPartition, state);
+            }
+        });
+        return fresh;
+    }
+
+    /**
+     * The records not consumed yet, without recording them: for handlers whose work commits on its
+     * own, which then record them with {@link #tryConsumeAll} once that work is done. A failure in
+     * between redelivers them, so the work must be idempotent.
+     *
+     * @return the records not consumed before, in their original order
+     */
+    public <R extends ConsumerRecord<?, ?>> List<R> unconsumed(List<R> records) {
+        List<R> fresh = new ArrayList<>(records.size());
+        for (R record : records) {
+            PartitionState state = partitions.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), this::load);
+            synchronized (state) {
+                if (!state.window.contains(record.offset())) {
+                    fresh.add(record);
+                }
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Drops the cached windows of partitions this consumer no longer owns.
+     */
+    public void forget(Collection<TopicPartition> topicPartitions) {
+        topicPartitions.forEach(partitions::remove);
+    }
+
+    private PartitionState load(TopicPartition topicPartition) {
+        return repository.findByTopicAndPartitionId(topicPartition.topic(), topicPartition.partition())
+                .map(partition -> new PartitionState(OffsetWindow.of(partition), true))
+                .orElseGet(() -> new PartitionState(OffsetWindow.empty(), false));
+    }
+
+    private void store(TopicPartition topicPartition, PartitionState state) {
+        OffsetWindow window = state.window;
+        if (state.stored) {
+            repository.updateWindow(topicPartition.topic(), topicPartition.partition(),
+                    window.watermark(), window.pendingBytes(), Instant.now());
+        } else {
+            repository.save(new KafkaInboxPartition(topicPartition.topic(), topicPartition.partition(),
+                    window.watermark(), window.pendingBytes()));
+            state.stored = true;
+        }
+    }
+
+    // Guarded by its own monitor.
+    private static final class PartitionState {
+        final OffsetWindow window;
+        boolean stored;
+
+        PartitionState(OffsetWindow window, boolean stored) {
+            this.window = window;
+            this.stored = stored;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.aszender.contracts.kafka.inbox;
+
+import java.util.BitSet;
+
+/**
+ * Consumed offsets of one partition: a watermark (every lower offset was consumed) plus a bitset
+ * of the consumed offsets above it. Not thread-safe; {@link KafkaInboxService} guards it.
+ *
+ * Offsets that never arrive (compacted records, transaction markers) would hold the watermark back,
+ * so the window is capped at {@link #MAX_WIDTH} offsets: an offset beyond it slides the watermark up,
+ * treating the oldest gaps as consumed.
+ */
+class OffsetWindow {
+
+    static final int MAX_WIDTH = 8192;
+
+    static final long UNSEEDED = -1;
+
+    private long watermark;
+    private BitSet pending;
+
+    OffsetWindow(long watermark, BitSet pending) {
+        this.watermark = watermark;
+        this.pending = pending;
+    }
+
+    static OffsetWindow empty() {
+        return new OffsetWindow(UNSEEDED, new BitSet());
+    }
+
+    static OffsetWindow of(KafkaInboxPartition partition) {
+        return new OffsetWindow(partition.getWatermark(), BitSet.valueOf(partition.getPendingOffsets()));
+    }
+
+    /**
+     * Records the offset as consumed.
+     *
+     * @return false if it was consumed before
+     */
+    boolean mark(long offset) {
+        if (watermark == UNSEEDED) {
+            // A partition's first record seeds the window; earlier offsets predate this inbox.
+            watermark = offset;
+        }
+        if (offset < watermark) {
+            return false;
+        }
+
+        long index = offset - watermark;
+        if (index >= MAX_WIDTH) {
+            shift((int) Math.min(index - MAX_WIDTH + 1, Integer.MAX_VALUE));
+            index = offset - watermark;
+            if (index >= MAX_WIDTH) {
+                // Far beyond every pending offset: restart the window here.
+                watermark = offset;
+                pending = new BitSet();
+                index = 0;
+            }
+        }
+        if (pending.get((int) index)) {
+            return false;
+        }
+        pending.set((int) index);
+        shift(pending.nextClearBit(0));
+        return true;
+    }
+
+    /**
+     * @return true if the offset was consumed (without recording anything)
+     */
+    boolean contains(long offset) {
+        if (watermark == UNSEEDED) {
+            return false;
+        }
+        if (offset < watermark) {
+            return true;
+        }
+        long index = offset - watermark;
+        return index < MAX_WIDTH && pending.get((int) index);
+    }
+
+    long watermark() {
+        return watermark;
+    }
+
+    byte[] pendingBytes() {
+        return pending.toByteArray();
+    }
+
+    private void shift(int count) {
+        if (count <= 0) {
+            return;
+        }
+        watermark += count;
+        pending = pending.get(count, Math.max(count, pending.length()));
+    }
+}
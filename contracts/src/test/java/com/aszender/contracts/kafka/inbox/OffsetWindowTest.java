@@ -0,0 +1,78 @@
+package com.aszender.contracts.kafka.inbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetWindowTest {
+
+    @Test
+    void inOrderOffsetsAdvanceTheWatermark() {
+        OffsetWindow window = OffsetWindow.empty();
+
+        for (long offset = 100; offset < 110; offset++) {
+            assertThat(window.mark(offset)).isTrue();
+        }
+
+        assertThat(window.watermark()).isEqualTo(110);
+        assertThat(window.pendingBytes()).isEmpty();
+        assertThat(window.mark(105)).isFalse();
+    }
+
+    @Test
+    void outOfOrderOffsetsAreKeptAboveTheWatermarkUntilTheGapCloses() {
+        OffsetWindow window = new OffsetWindow(10, new BitSet());
+
+        assertThat(window.mark(12)).isTrue();
+        assertThat(window.mark(13)).isTrue();
+        assertThat(window.mark(12)).isFalse();
+        assertThat(window.watermark()).isEqualTo(10);
+
+        assertThat(window.mark(11)).isTrue();
+        assertThat(window.watermark()).isEqualTo(10);
+        assertThat(window.mark(10)).isTrue();
+        assertThat(window.watermark()).isEqualTo(14);
+    }
+
+    @Test
+    void containsReportsConsumedOffsetsWithoutMarking() {
+        OffsetWindow window = new OffsetWindow(10, new BitSet());
+        assertThat(window.mark(12)).isTrue();
+
+        assertThat(window.contains(9)).isTrue();
+        assertThat(window.contains(11)).isFalse();
+        assertThat(window.contains(12)).isTrue();
+        assertThat(window.contains(10 + OffsetWindow.MAX_WIDTH)).isFalse();
+        assertThat(OffsetWindow.empty().contains(0)).isFalse();
+        assertThat(window.mark(11)).isTrue();
+    }
+
+    @Test
+    void survivesARoundTripThroughItsStoredForm() {
+        OffsetWindow window = new OffsetWindow(0, new BitSet());
+        window.mark(0);
+        window.mark(5);
+        window.mark(7);
+
+        OffsetWindow reloaded = OffsetWindow.of(new KafkaInboxPartition("topic", 0, window.watermark(), window.pendingBytes()));
+
+        assertThat(reloaded.watermark()).isEqualTo(1);
+        assertThat(reloaded.mark(5)).isFalse();
+        assertThat(reloaded.mark(7)).isFalse();
+        assertThat(reloaded.mark(6)).isTrue();
+    }
+
+    @Test
+    void aGapWiderThanTheWindowIsTreatedAsConsumed() {
+        OffsetWindow window = new OffsetWindow(0, new BitSet());
+        window.mark(1);
+
+        assertThat(window.mark(OffsetWindow.MAX_WIDTH + 10)).isTrue();
+
+        assertThat(window.watermark()).isEqualTo(11);
+        assertThat(window.mark(5)).isFalse();
+        assertThat(window.pendingBytes().length).isLessThanOrEqualTo(OffsetWindow.MAX_WIDTH / 8);
+    }
+}
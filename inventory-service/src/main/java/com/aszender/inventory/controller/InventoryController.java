@@ -1,60 +1,99 @@
 package com.aszender.inventory.controller;
 
-import com.aszender.inventory.kafka.events.StockReleasedEvent;
-import com.aszender.inventory.kafka.publish.StockEventsPublisher;
+import com.aszender.contracts.grpc.GrpcMetrics;
 import com.aszender.inventory.model.StockItem;
 import com.aszender.inventory.model.StockReservation;
-import com.aszender.inventory.repository.StockItemRepository;
 import com.aszender.inventory.repository.StockReservationRepository;
+import com.aszender.inventory.service.InventoryContentionMetrics;
 import com.aszender.inventory.service.InventoryReservationOrchestrator;
 import com.aszender.inventory.service.InventoryService;
+import com.aszender.inventory.service.ReservationBatchMetrics;
+import com.aszender.inventory.service.StockBucketService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.Instant;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/inventory")
 public class InventoryController {
 
-    private final StockItemRepository stockItemRepository;
+    private final StockBucketService stockBucketService;
     private final StockReservationRepository stockReservationRepository;
     private final InventoryService inventoryService;
     private final InventoryReservationOrchestrator reservationOrchestrator;
-    private final StockEventsPublisher stockEventsPublisher;
+    private final InventoryContentionMetrics contentionMetrics;
+    private final ReservationBatchMetrics batchMetrics;
+    private final GrpcMetrics grpcMetrics;
+    private final boolean ledgerEnabled;
 
     public InventoryController(
-            StockItemRepository stockItemRepository,
+            StockBucketService stockBucketService,
             StockReservationRepository stockReservationRepository,
             InventoryService inventoryService,
             InventoryReservationOrchestrator reservationOrchestrator,
-            StockEventsPublisher stockEventsPublisher
+            InventoryContentionMetrics contentionMetrics,
+            ReservationBatchMetrics batchMetrics,
+            GrpcMetrics grpcMetrics,
+            @Value("${app.inventory.ledger.enabled:false}") boolean ledgerEnabled
     ) {
-        this.stockItemRepository = stockItemRepository;
+        this.stockBucketService = stockBucketService;
         this.stockReservationRepository = stockReservationRepository;
         this.inventoryService = inventoryService;
         this.reservationOrchestrator = reservationOrchestrator;
-        this.stockEventsPublisher = stockEventsPublisher;
+        this.contentionMetrics = contentionMetrics;
+        this.batchMetrics = batchMetrics;
+        this.grpcMetrics = grpcMetrics;
+        this.ledgerEnabled = ledgerEnabled;
     }
 
+    // Stock levels are aggregated over hot-SKU buckets, so these return StockLevel rather than the entity.
     @GetMapping("/stock")
-    public ResponseEntity<List<StockItem>> listStock() {
-        return ResponseEntity.ok(stockItemRepository.findAll());
+    public ResponseEntity<List<StockBucketService.StockLevel>> listStock() {
+        return ResponseEntity.ok(stockBucketService.listStockLevels());
     }
 
     @GetMapping("/stock/{productId}")
-    public ResponseEntity<StockItem> getStock(@PathVariable Long productId) {
-        return stockItemRepository.findByProductId(productId)
+    public ResponseEntity<StockBucketService.StockLevel> getStock(@PathVariable Long productId) {
+        return stockBucketService.findStockLevel(productId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Hot-SKU switch: count > 1 splits available stock across that many buckets, count = 1 merges them back.
+    // Not available while the in-memory stock ledger owns the stock rows.
+    @PutMapping("/stock/{productId}/buckets")
+    public ResponseEntity<StockBucketService.StockLevel> changeBuckets(
+            @PathVariable Long productId,
+            @RequestParam @Min(1) @Max(StockBucketService.MAX_BUCKETS) int count
+    ) {
+        if (ledgerEnabled) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return stockBucketService.changeBucketCount(productId, count)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Per-product low-stock threshold; omit the parameter to fall back to the global default.
+    @PutMapping("/stock/{productId}/low-stock-threshold")
+    public ResponseEntity<Void> changeLowStockThreshold(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @Min(0) Integer threshold
+    ) {
+        return reservationOrchestrator.changeLowStockThreshold(productId, threshold)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
     // Dev-friendly helper: create default stock for a product if missing.
     // This keeps the UI demo simple even when Kafka profile is disabled.
     @PostMapping("/stock/{productId}")
@@ -106,10 +145,33 @@ public class InventoryController {
 
     @DeleteMapping("/reservations/{orderId}")
     public ResponseEntity<ReleaseResponse> release(@PathVariable Long orderId) {
-        boolean released = inventoryService.releaseReservation(orderId);
-        if (released) {
-            stockEventsPublisher.publishStockReleased(new StockReleasedEvent(orderId, Instant.now().toString()));
-        }
+        boolean released = reservationOrchestrator.release(orderId);
         return ResponseEntity.ok(new ReleaseResponse(released));
     }
+
+    // Confirmed holds no longer expire (app.inventory.reservation-ttl).
+    @PostMapping("/reservations/{orderId}/confirm")
+    public ResponseEntity<Void> confirm(@PathVariable Long orderId) {
+        return reservationOrchestrator.confirm(orderId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    // Optimistic-locking conflicts, retries and give-ups per productId (most contended first).
+    @GetMapping("/metrics/contention")
+    public ResponseEntity<InventoryContentionMetrics.Snapshot> contention() {
+        return ResponseEntity.ok(contentionMetrics.snapshot());
+    }
+
+    // Group-commit batch sizes and queueing latency (app.inventory.batching.enabled).
+    @GetMapping("/metrics/batching")
+    public ResponseEntity<ReservationBatchMetrics.Snapshot> batching() {
+        return ResponseEntity.ok(batchMetrics.snapshot());
+    }
+
+    // Per-method gRPC server calls, status codes, in-flight calls, message sizes and latency percentiles.
+    @GetMapping("/metrics/grpc")
+    public ResponseEntity<List<GrpcMetrics.MethodSnapshot>> grpc() {
+        return ResponseEntity.ok(grpcMetrics.snapshot());
+    }
 }
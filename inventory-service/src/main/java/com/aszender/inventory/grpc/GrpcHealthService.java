@@ -0,0 +1,59 @@
+package com.aszender.inventory.grpc;
+
+import com.aszender.contracts.health.v1.HealthCheckRequest;
+import com.aszender.contracts.health.v1.HealthCheckResponse;
+import com.aszender.contracts.health.v1.HealthGrpc;
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * grpc.health.v1 Check for the whole server ("") and the inventory service. A replica is SERVING
+ * while it accepts calls and reaches its database; clients stop sending it reservations otherwise.
+ * Watch is not implemented (clients poll Check).
+ */
+@Component
+public class GrpcHealthService extends HealthGrpc.HealthImplBase {
+
+    private final DataSource dataSource;
+
+    private volatile boolean serving = true;
+
+    public GrpcHealthService(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Set to false while the server drains, so clients move their calls elsewhere first.
+     */
+    public void setServing(boolean serving) {
+        this.serving = serving;
+    }
+
+    @Override
+    public void check(HealthCheckRequest request, StreamObserver<HealthCheckResponse> responseObserver) {
+        String service = request.getService();
+        if (!service.isEmpty() && !service.equals(InventoryServiceGrpc.SERVICE_NAME)) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("unknown service " + service).asRuntimeException());
+            return;
+        }
+        HealthCheckResponse.ServingStatus status = serving && databaseReachable()
+                ? HealthCheckResponse.ServingStatus.SERVING
+                : HealthCheckResponse.ServingStatus.NOT_SERVING;
+        responseObserver.onNext(HealthCheckResponse.newBuilder().setStatus(status).build());
+        responseObserver.onCompleted();
+    }
+
+    private boolean databaseReachable() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}
@@ -1,19 +1,54 @@
 package com.aszender.inventory.grpc;
 
+import com.aszender.contracts.grpc.GrpcMetrics;
+import com.aszender.contracts.grpc.GrpcMetricsServerInterceptor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 public class GrpcServerConfig {
 
+    @Bean
+    public GrpcMetrics grpcMetrics() {
+        return new GrpcMetrics();
+    }
+
+    @Bean
+    public GrpcServerSettings grpcServerSettings(
+            @Value("${app.grpc.server.port:9090}") int port,
+            @Value("${app.grpc.server.transport:AUTO}") GrpcServerSettings.Transport transport,
+            @Value("${app.grpc.server.worker-threads:0}") int workerThreads,
+            @Value("${app.grpc.server.executor:CACHED}") GrpcServerSettings.ExecutorType executor,
+            @Value("${app.grpc.server.executor-threads:32}") int executorThreads,
+            @Value("${app.grpc.server.max-concurrent-calls-per-connection:256}") int maxConcurrentCallsPerConnection,
+            @Value("${app.grpc.server.max-inbound-message-size:4194304}") int maxInboundMessageSize,
+            @Value("${app.grpc.server.flow-control-window:1048576}") int flowControlWindow,
+            @Value("${app.grpc.server.keep-alive-time:PT1M}") Duration keepAliveTime,
+            @Value("${app.grpc.server.keep-alive-timeout:PT20S}") Duration keepAliveTimeout,
+            @Value("${app.grpc.server.permit-keep-alive-time:PT30S}") Duration permitKeepAliveTime,
+            @Value("${app.grpc.server.max-connection-idle:PT0S}") Duration maxConnectionIdle,
+            @Value("${app.grpc.server.max-connection-age:PT0S}") Duration maxConnectionAge,
+            @Value("${app.grpc.server.max-connection-age-grace:PT30S}") Duration maxConnectionAgeGrace
+    ) {
+        return new GrpcServerSettings(port, transport, workerThreads, executor, executorThreads, maxConcurrentCallsPerConnection,
+                maxInboundMessageSize, flowControlWindow, keepAliveTime, keepAliveTimeout, permitKeepAliveTime,
+                maxConnectionIdle, maxConnectionAge, maxConnectionAgeGrace);
+    }
+
     @Bean
     @ConditionalOnProperty(name = "app.grpc.server.enabled", havingValue = "true", matchIfMissing = true)
     public GrpcServerLifecycle grpcServerLifecycle(
-            @Value("${app.grpc.server.port:9090}") int port,
-            InventoryGrpcService inventoryGrpcService
+            GrpcServerSettings grpcServerSettings,
+            InventoryGrpcService inventoryGrpcService,
+            GrpcHealthService grpcHealthService,
+            GrpcMetrics grpcMetrics
     ) {
-        return new GrpcServerLifecycle(port, inventoryGrpcService);
+        return new GrpcServerLifecycle(grpcServerSettings, List.of(new GrpcMetricsServerInterceptor(grpcMetrics)),
+                inventoryGrpcService, grpcHealthService);
     }
 }
@@ -2,47 +2,200 @@ package com.aszender.inventory.grpc;
 
 import io.grpc.BindableService;
 import io.grpc.Server;
-import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptor;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.SmartLifecycle;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GrpcServerLifecycle implements SmartLifecycle {
 
-    private final int port;
-    private final BindableService service;
+    private static final Logger log = LoggerFactory.getLogger(GrpcServerLifecycle.class);
+
+    private final GrpcServerSettings settings;
+    private final List<ServerInterceptor> interceptors;
+    private final List<BindableService> services;
 
     private volatile Server server;
+    private volatile ExecutorService executor;
+    private volatile EventLoopGroup bossGroup;
+    private volatile EventLoopGroup workerGroup;
     private volatile boolean running;
 
-    public GrpcServerLifecycle(int port, BindableService service) {
-        this.port = port;
-        this.service = service;
+    public GrpcServerLifecycle(GrpcServerSettings settings, BindableService... services) {
+        this(settings, List.of(), services);
+    }
+
+    /**
+     * @param interceptors applied to every call of every service
+     */
+    public GrpcServerLifecycle(GrpcServerSettings settings, List<ServerInterceptor> interceptors, BindableService... services) {
+        this.settings = settings;
+        this.interceptors = List.copyOf(interceptors);
+        this.services = List.of(services);
     }
 
     @Override
     public void start() {
         if (running) return;
         try {
-            this.server = ServerBuilder.forPort(port)
-                    .addService(service)
-                    .build()
-                    .start();
+            NettyServerBuilder builder = NettyServerBuilder.forAddress(new InetSocketAddress(settings.port()));
+            services.forEach(builder::addService);
+            interceptors.forEach(builder::intercept);
+            builder.maxConcurrentCallsPerConnection(settings.maxConcurrentCallsPerConnection())
+                    .maxInboundMessageSize(settings.maxInboundMessageSize())
+                    .flowControlWindow(settings.flowControlWindow())
+                    .keepAliveTime(settings.keepAliveTime().toMillis(), TimeUnit.MILLISECONDS)
+                    .keepAliveTimeout(settings.keepAliveTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .permitKeepAliveTime(settings.permitKeepAliveTime().toMillis(), TimeUnit.MILLISECONDS);
+            if (isSet(settings.maxConnectionIdle())) {
+                builder.maxConnectionIdle(settings.maxConnectionIdle().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (isSet(settings.maxConnectionAge())) {
+                builder.maxConnectionAge(settings.maxConnectionAge().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionAgeGrace(settings.maxConnectionAgeGrace().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            configureTransport(builder);
+            configureExecutor(builder);
+
+            this.server = builder.build().start();
             this.running = true;
+            log.info("gRPC server started on port {} (transport={}, executor={})",
+                    server.getPort(), describeTransport(), settings.executor());
         } catch (IOException e) {
-            throw new IllegalStateException("Failed to start gRPC server on port " + port, e);
+            releaseResources();
+            throw new IllegalStateException("Failed to start gRPC server on port " + settings.port(), e);
+        }
+    }
+
+    private void configureTransport(NettyServerBuilder builder) {
+        boolean epoll = switch (settings.transport()) {
+            case EPOLL -> {
+                if (!Epoll.isAvailable()) {
+                    throw new IllegalStateException("Native epoll transport is not available", Epoll.unavailabilityCause());
+                }
+                yield true;
+            }
+            case AUTO -> Epoll.isAvailable();
+            case NIO -> false;
+        };
+        if (epoll) {
+            bossGroup = new EpollEventLoopGroup(1);
+            workerGroup = new EpollEventLoopGroup(settings.workerThreads());
+            builder.channelType(EpollServerSocketChannel.class);
+        } else if (settings.workerThreads() > 0) {
+            bossGroup = new NioEventLoopGroup(1);
+            workerGroup = new NioEventLoopGroup(settings.workerThreads());
+            builder.channelType(NioServerSocketChannel.class);
+        } else {
+            return; // Netty's shared NIO event loops
         }
+        builder.bossEventLoopGroup(bossGroup).workerEventLoopGroup(workerGroup);
+    }
+
+    private void configureExecutor(NettyServerBuilder builder) {
+        switch (settings.executor()) {
+            case CACHED -> {
+                // gRPC's own shared cached pool.
+            }
+            case DIRECT -> builder.directExecutor();
+            case VIRTUAL -> {
+                ExecutorService virtual = newVirtualThreadExecutor();
+                executor = virtual != null ? virtual : newBoundedExecutor();
+                builder.executor(executor);
+            }
+            case BOUNDED -> {
+                executor = newBoundedExecutor();
+                builder.executor(executor);
+            }
+        }
+    }
+
+    private ExecutorService newBoundedExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(settings.executorThreads(), r -> {
+            Thread t = new Thread(r, "grpc-server-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() exists from Java 21 on; the service is built for 17.
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads need Java 21+ (running {}): using the BOUNDED executor", Runtime.version());
+            return null;
+        }
+    }
+
+    private String describeTransport() {
+        return workerGroup instanceof EpollEventLoopGroup ? "epoll" : "nio";
+    }
+
+    private static boolean isSet(Duration duration) {
+        return duration != null && !duration.isZero() && !duration.isNegative();
+    }
+
+    /**
+     * @return the bound port (useful with port 0)
+     */
+    public int getPort() {
+        return server.getPort();
     }
 
     @Override
     public void stop() {
         if (!running) return;
+        services.stream()
+                .filter(GrpcHealthService.class::isInstance)
+                .forEach(service -> ((GrpcHealthService) service).setServing(false));
         if (server != null) {
             server.shutdown();
+            try {
+                if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+                    server.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                server.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
         }
+        releaseResources();
         running = false;
     }
 
+    private void releaseResources() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+            bossGroup = null;
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+            workerGroup = null;
+        }
+    }
+
     @Override
     public boolean isRunning() {
         return running;
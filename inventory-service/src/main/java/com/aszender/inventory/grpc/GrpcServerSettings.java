@@ -0,0 +1,53 @@
+package com.aszender.inventory.grpc;
+
+import java.time.Duration;
+
+/**
+ * Transport, executor and connection settings of the gRPC server (app.grpc.server.*).
+ *
+ * @param workerThreads                   Netty event loop threads; 0 keeps Netty's default (2 x cores)
+ * @param executorThreads                 threads of the BOUNDED executor
+ * @param maxConcurrentCallsPerConnection HTTP/2 MAX_CONCURRENT_STREAMS announced to each client
+ * @param maxConnectionAge                0 disables; otherwise connections are recycled so clients rebalance
+ */
+public record GrpcServerSettings(
+        int port,
+        Transport transport,
+        int workerThreads,
+        ExecutorType executor,
+        int executorThreads,
+        int maxConcurrentCallsPerConnection,
+        int maxInboundMessageSize,
+        int flowControlWindow,
+        Duration keepAliveTime,
+        Duration keepAliveTimeout,
+        Duration permitKeepAliveTime,
+        Duration maxConnectionIdle,
+        Duration maxConnectionAge,
+        Duration maxConnectionAgeGrace
+) {
+
+    public GrpcServerSettings withExecutor(ExecutorType executor) {
+        return new GrpcServerSettings(port, transport, workerThreads, executor, executorThreads, maxConcurrentCallsPerConnection,
+                maxInboundMessageSize, flowControlWindow, keepAliveTime, keepAliveTimeout, permitKeepAliveTime,
+                maxConnectionIdle, maxConnectionAge, maxConnectionAgeGrace);
+    }
+
+    public enum Transport {
+        /** Native epoll when it is available (Linux), NIO otherwise. */
+        AUTO,
+        NIO,
+        EPOLL
+    }
+
+    public enum ExecutorType {
+        /** gRPC's default: an unbounded cached thread pool. */
+        CACHED,
+        /** Fixed number of threads; excess calls queue instead of spawning threads. */
+        BOUNDED,
+        /** One virtual thread per call (Java 21+; falls back to BOUNDED on older runtimes). */
+        VIRTUAL,
+        /** Handlers run on the Netty event loop: only for handlers that never block. */
+        DIRECT
+    }
+}
@@ -1,49 +1,92 @@
 package com.aszender.inventory.grpc;
 
+import com.aszender.contracts.inventory.v1.BatchReserveStockRequest;
+import com.aszender.contracts.inventory.v1.BatchReserveStockResponse;
+import com.aszender.contracts.inventory.v1.GetStockBatchRequest;
+import com.aszender.contracts.inventory.v1.GetStockBatchResponse;
+import com.aszender.contracts.inventory.v1.GetStockRequest;
 import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReleaseStockRequest;
+import com.aszender.contracts.inventory.v1.ReleaseStockResponse;
 import com.aszender.contracts.inventory.v1.ReserveStockRequest;
 import com.aszender.contracts.inventory.v1.ReserveStockResponse;
+import com.aszender.contracts.inventory.v1.ReserveStockStreamResponse;
+import com.aszender.contracts.inventory.v1.StockLevel;
+import com.aszender.contracts.inventory.v1.StockUpdate;
+import com.aszender.contracts.inventory.v1.WatchStockRequest;
 import com.aszender.inventory.service.InventoryReservationOrchestrator;
+import com.aszender.inventory.service.StockAvailabilityService;
+import com.aszender.inventory.service.StockWatchService;
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Component
 public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceImplBase {
 
     private static final Logger log = LoggerFactory.getLogger(InventoryGrpcService.class);
 
     private final InventoryReservationOrchestrator orchestrator;
+    private final StockAvailabilityService availabilityService;
+    private final StockWatchService watchService;
+    private final int streamWindow;
+    private final int batchMaxOrders;
+    private final int readMaxProducts;
+    private final ExecutorService streamExecutor;
+    private final LogSampler logSampler;
 
-    public InventoryGrpcService(InventoryReservationOrchestrator orchestrator) {
+    public InventoryGrpcService(
+            InventoryReservationOrchestrator orchestrator,
+            StockAvailabilityService availabilityService,
+            StockWatchService watchService,
+            @Value("${app.grpc.server.stream.workers:16}") int streamWorkers,
+            @Value("${app.grpc.server.stream.window:64}") int streamWindow,
+            @Value("${app.grpc.server.batch.max-orders:1000}") int batchMaxOrders,
+            @Value("${app.grpc.server.read.max-products:1000}") int readMaxProducts,
+            @Value("${app.grpc.server.log-sample-rate:1000}") int logSampleRate
+    ) {
         this.orchestrator = orchestrator;
+        this.availabilityService = availabilityService;
+        this.watchService = watchService;
+        this.streamWindow = streamWindow;
+        this.batchMaxOrders = batchMaxOrders;
+        this.readMaxProducts = readMaxProducts;
+        this.logSampler = new LogSampler(logSampleRate);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.streamExecutor = Executors.newFixedThreadPool(streamWorkers, r -> {
+            Thread t = new Thread(r, "grpc-reserve-stream-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamExecutor.shutdown();
     }
 
     @Override
     public void reserveStock(ReserveStockRequest request, StreamObserver<ReserveStockResponse> responseObserver) {
-        log.info("gRPC reserveStock called: orderId={}, itemsCount={}", request.getOrderId(), request.getItemsCount());
         try {
-            if (request.getOrderId() <= 0) {
-                log.warn("Invalid orderId: {}", request.getOrderId());
-                responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("order_id must be > 0").asRuntimeException());
-                return;
-            }
-            if (request.getItemsCount() <= 0) {
-                log.warn("Empty items list");
-                responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("items must not be empty").asRuntimeException());
-                return;
-            }
-
-            log.debug("Calling orchestrator.reserve for orderId={}", request.getOrderId());
-            InventoryReservationOrchestrator.ReserveResult result = orchestrator.reserve(
-                    request.getOrderId(),
-                    request.getItemsList().stream()
-                            .map(i -> new InventoryReservationOrchestrator.ReserveLine(i.getProductId(), i.getQuantity()))
-                            .toList()
-            );
-            log.info("Reserve result for orderId={}: reserved={}, reason={}", request.getOrderId(), result.reserved(), result.reason());
+            InventoryReservationOrchestrator.ReserveResult result = reserve(request);
 
             ReserveStockResponse response = ReserveStockResponse.newBuilder()
                     .setReserved(result.reserved())
@@ -52,13 +95,332 @@ public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceI
 
             responseObserver.onNext(response);
             responseObserver.onCompleted();
-            log.debug("gRPC reserveStock completed successfully for orderId={}", request.getOrderId());
-        } catch (IllegalArgumentException ex) {
-            log.warn("IllegalArgumentException in reserveStock: {}", ex.getMessage());
-            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(ex.getMessage()).asRuntimeException());
         } catch (Exception ex) {
-            log.error("Exception in reserveStock for orderId={}", request.getOrderId(), ex);
-            responseObserver.onError(Status.INTERNAL.withDescription("reserveStock failed").withCause(ex).asRuntimeException());
+            responseObserver.onError(toStatus(request.getOrderId(), ex).asRuntimeException());
+        }
+    }
+
+    @Override
+    public StreamObserver<ReserveStockRequest> reserveStockStream(StreamObserver<ReserveStockStreamResponse> responseObserver) {
+        return new ReservationStream((ServerCallStreamObserver<ReserveStockStreamResponse>) responseObserver);
+    }
+
+    @Override
+    public void batchReserveStock(BatchReserveStockRequest request, StreamObserver<BatchReserveStockResponse> responseObserver) {
+        if (logSampler.sample(log)) {
+            log.info("gRPC batchReserveStock called: orders={}", request.getOrdersCount());
+        }
+        if (request.getOrdersCount() > batchMaxOrders) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("at most " + batchMaxOrders + " orders per batch")
+                    .asRuntimeException());
+            return;
+        }
+
+        // Invalid orders get their own error result; the valid ones are reserved together.
+        ReserveStockStreamResponse[] results = new ReserveStockStreamResponse[request.getOrdersCount()];
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < request.getOrdersCount(); i++) {
+            ReserveStockRequest order = request.getOrders(i);
+            try {
+                validate(order);
+                valid.add(i);
+            } catch (StatusRuntimeException ex) {
+                results[i] = failed(order.getOrderId(), ex.getStatus());
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            try {
+                List<InventoryReservationOrchestrator.ReserveResult> reserved = orchestrator.reserveBatch(valid.stream()
+                        .map(request::getOrders)
+                        .map(order -> new InventoryReservationOrchestrator.BatchOrder(order.getOrderId(), toLines(order)))
+                        .toList());
+                for (int j = 0; j < valid.size(); j++) {
+                    results[valid.get(j)] = toStreamResponse(request.getOrders(valid.get(j)).getOrderId(), reserved.get(j));
+                }
+            } catch (Exception ex) {
+                Status status = toStatus(0, ex);
+                valid.forEach(i -> results[i] = failed(request.getOrders(i).getOrderId(), status));
+            }
+        }
+
+        responseObserver.onNext(BatchReserveStockResponse.newBuilder().addAllResults(List.of(results)).build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void releaseStock(ReleaseStockRequest request, StreamObserver<ReleaseStockResponse> responseObserver) {
+        if (logSampler.sample(log)) {
+            log.info("gRPC releaseStock called: orders={}", request.getOrderIdsCount());
+        }
+        try {
+            List<Long> released = orchestrator.releaseAll(request.getOrderIdsList());
+            responseObserver.onNext(ReleaseStockResponse.newBuilder().addAllReleasedOrderIds(released).build());
+            responseObserver.onCompleted();
+        } catch (Exception ex) {
+            responseObserver.onError(toStatus(0, ex).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void getStock(GetStockRequest request, StreamObserver<StockLevel> responseObserver) {
+        Map<Long, StockAvailabilityService.Availability> found;
+        try {
+            found = availabilityService.find(List.of(request.getProductId()));
+        } catch (Exception ex) {
+            responseObserver.onError(readFailed(ex).asRuntimeException());
+            return;
+        }
+        StockAvailabilityService.Availability level = found.get(request.getProductId());
+        if (level == null) {
+            responseObserver.onError(Status.NOT_FOUND
+                    .withDescription("no stock for productId " + request.getProductId())
+                    .asRuntimeException());
+            return;
+        }
+        responseObserver.onNext(toStockLevel(level.productId(), level.available(), level.reserved()));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void getStockBatch(GetStockBatchRequest request, StreamObserver<GetStockBatchResponse> responseObserver) {
+        Set<Long> productIds = new LinkedHashSet<>(request.getProductIdsList());
+        if (!withinReadLimit(productIds, responseObserver)) {
+            return;
+        }
+        Map<Long, StockAvailabilityService.Availability> found;
+        try {
+            found = availabilityService.find(productIds);
+        } catch (Exception ex) {
+            responseObserver.onError(readFailed(ex).asRuntimeException());
+            return;
+        }
+        GetStockBatchResponse.Builder response = GetStockBatchResponse.newBuilder();
+        for (Long productId : productIds) {
+            StockAvailabilityService.Availability level = found.get(productId);
+            if (level == null) {
+                response.addUnknownProductIds(productId);
+            } else {
+                response.addLevels(toStockLevel(productId, level.available(), level.reserved()));
+            }
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void watchStock(WatchStockRequest request, StreamObserver<StockUpdate> responseObserver) {
+        Set<Long> productIds = new LinkedHashSet<>(request.getProductIdsList());
+        if (productIds.isEmpty()) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("product_ids must not be empty").asRuntimeException());
+            return;
+        }
+        if (!withinReadLimit(productIds, responseObserver)) {
+            return;
+        }
+        ServerCallStreamObserver<StockUpdate> updates = (ServerCallStreamObserver<StockUpdate>) responseObserver;
+        StockWatchService.Subscription subscription;
+        try {
+            subscription = watchService.watch(productIds, new StockWatchService.Watcher() {
+                @Override
+                public boolean isReady() {
+                    return updates.isReady();
+                }
+
+                @Override
+                public void send(List<StockWatchService.Change> changes) {
+                    changes.forEach(change -> updates.onNext(StockUpdate.newBuilder()
+                            .setLevel(toStockLevel(change.productId(), change.available(), change.reserved()))
+                            .setAvailableDelta(change.availableDelta())
+                            .setSnapshot(change.snapshot())
+                            .build()));
+                }
+
+                @Override
+                public void close() {
+                    updates.onCompleted();
+                }
+            });
+        } catch (Exception ex) {
+            responseObserver.onError(readFailed(ex).asRuntimeException());
+            return;
+        }
+        updates.setOnCancelHandler(subscription::cancel);
+        if (updates.isCancelled()) {
+            subscription.cancel();
+        }
+    }
+
+    private boolean withinReadLimit(Collection<Long> productIds, StreamObserver<?> responseObserver) {
+        if (productIds.size() <= readMaxProducts) {
+            return true;
+        }
+        responseObserver.onError(Status.INVALID_ARGUMENT
+                .withDescription("at most " + readMaxProducts + " products per call")
+                .asRuntimeException());
+        return false;
+    }
+
+    private static StockLevel toStockLevel(long productId, int available, int reserved) {
+        return StockLevel.newBuilder()
+                .setProductId(productId)
+                .setAvailable(available)
+                .setReserved(reserved)
+                .build();
+    }
+
+    private static Status readFailed(Exception ex) {
+        log.error("Reading stock failed", ex);
+        return Status.INTERNAL.withDescription("reading stock failed").withCause(ex);
+    }
+
+    private InventoryReservationOrchestrator.ReserveResult reserve(ReserveStockRequest request) {
+        validate(request);
+
+        InventoryReservationOrchestrator.ReserveResult result = orchestrator.reserve(request.getOrderId(), toLines(request));
+        // Sampled: at high RPS a line per reservation costs more CPU than the reservation itself.
+        if (logSampler.sample(log)) {
+            log.info("Reserve result for orderId={} (items={}): reserved={}, reason={}",
+                    request.getOrderId(), request.getItemsCount(), result.reserved(), result.reason());
+        }
+        return result;
+    }
+
+    private static void validate(ReserveStockRequest request) {
+        if (request.getOrderId() <= 0) {
+            log.warn("Invalid orderId: {}", request.getOrderId());
+            throw Status.INVALID_ARGUMENT.withDescription("order_id must be > 0").asRuntimeException();
+        }
+        if (request.getItemsCount() <= 0) {
+            log.warn("Empty items list");
+            throw Status.INVALID_ARGUMENT.withDescription("items must not be empty").asRuntimeException();
+        }
+        if (request.getItemsList().stream().anyMatch(i -> i.getQuantity() <= 0)) {
+            throw Status.INVALID_ARGUMENT.withDescription("quantity must be > 0").asRuntimeException();
+        }
+    }
+
+    private static List<InventoryReservationOrchestrator.ReserveLine> toLines(ReserveStockRequest request) {
+        return request.getItemsList().stream()
+                .map(i -> new InventoryReservationOrchestrator.ReserveLine(i.getProductId(), i.getQuantity()))
+                .toList();
+    }
+
+    private static ReserveStockStreamResponse toStreamResponse(long orderId, InventoryReservationOrchestrator.ReserveResult result) {
+        return ReserveStockStreamResponse.newBuilder()
+                .setOrderId(orderId)
+                .setReserved(result.reserved())
+                .setReason(result.reason() == null ? "" : result.reason())
+                .build();
+    }
+
+    private static Status toStatus(long orderId, Exception ex) {
+        if (ex instanceof StatusRuntimeException statusException) {
+            return statusException.getStatus();
+        }
+        if (ex instanceof IllegalArgumentException) {
+            log.warn("IllegalArgumentException in reserveStock: {}", ex.getMessage());
+            return Status.INVALID_ARGUMENT.withDescription(ex.getMessage());
+        }
+        if (ex instanceof ConcurrencyFailureException) {
+            // Retries were exhausted on a contended row: the caller may safely retry later.
+            log.warn("Concurrent update conflict in reserveStock for orderId={}: {}", orderId, ex.getMessage());
+            return Status.ABORTED.withDescription("stock is contended, retry later");
+        }
+        log.error("Exception in reserveStock for orderId={}", orderId, ex);
+        return Status.INTERNAL.withDescription("reserveStock failed").withCause(ex);
+    }
+
+    private static ReserveStockStreamResponse failed(long orderId, Status status) {
+        return ReserveStockStreamResponse.newBuilder()
+                .setOrderId(orderId)
+                .setErrorCode(status.getCode().value())
+                .setErrorMessage(status.getDescription() == null ? "" : status.getDescription())
+                .build();
+    }
+
+    /**
+     * One client stream. At most {@code streamWindow} requests are in flight: the next message is only
+     * requested from the transport once a response went out and the client can take more, so a busy
+     * inventory or a slow reader backs up into HTTP/2 flow control instead of into memory.
+     */
+    private final class ReservationStream implements StreamObserver<ReserveStockRequest> {
+
+        private final ServerCallStreamObserver<ReserveStockStreamResponse> responses;
+
+        // Guarded by this.
+        private int inFlight;
+        private int owedRequests;
+        private boolean halfClosed;
+        private boolean closed;
+
+        ReservationStream(ServerCallStreamObserver<ReserveStockStreamResponse> responses) {
+            this.responses = responses;
+            responses.disableAutoRequest();
+            responses.setOnReadyHandler(this::onReady);
+            responses.request(streamWindow);
+        }
+
+        @Override
+        public void onNext(ReserveStockRequest request) {
+            synchronized (this) {
+                inFlight++;
+            }
+            try {
+                streamExecutor.execute(() -> complete(process(request)));
+            } catch (RejectedExecutionException ex) {
+                complete(failed(request.getOrderId(), Status.UNAVAILABLE.withDescription("inventory is shutting down")));
+            }
+        }
+
+        @Override
+        public synchronized void onError(Throwable t) {
+            // Cancelled by the client: in-flight reservations still finish, their responses are dropped.
+            log.debug("Reservation stream closed by the client: {}", t.getMessage());
+            closed = true;
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            halfClosed = true;
+            closeIfDrained();
+        }
+
+        private ReserveStockStreamResponse process(ReserveStockRequest request) {
+            try {
+                return toStreamResponse(request.getOrderId(), reserve(request));
+            } catch (Exception ex) {
+                return failed(request.getOrderId(), toStatus(request.getOrderId(), ex));
+            }
+        }
+
+        private synchronized void complete(ReserveStockStreamResponse response) {
+            inFlight--;
+            if (closed || responses.isCancelled()) {
+                return;
+            }
+            responses.onNext(response);
+            if (responses.isReady()) {
+                responses.request(1);
+            } else {
+                owedRequests++;
+            }
+            closeIfDrained();
+        }
+
+        private synchronized void onReady() {
+            if (owedRequests > 0 && !closed) {
+                responses.request(owedRequests);
+                owedRequests = 0;
+            }
+        }
+
+        private void closeIfDrained() {
+            if (halfClosed && inFlight == 0 && !closed) {
+                closed = true;
+                responses.onCompleted();
+            }
         }
     }
 }
@@ -0,0 +1,29 @@
+package com.aszender.inventory.grpc;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets one in every {@code rate} hot-path log lines through at INFO; with DEBUG enabled every line
+ * is logged. Per-call volume belongs in {@link com.aszender.contracts.grpc.GrpcMetrics}, the sampled lines only show examples.
+ */
+final class LogSampler {
+
+    private final int rate;
+    private final AtomicLong calls = new AtomicLong();
+
+    /**
+     * @param rate 1 logs every call, 0 or less none (unless DEBUG is enabled)
+     */
+    LogSampler(int rate) {
+        this.rate = rate;
+    }
+
+    boolean sample(Logger log) {
+        if (log.isDebugEnabled()) {
+            return true;
+        }
+        return rate > 0 && log.isInfoEnabled() && calls.getAndIncrement() % rate == 0;
+    }
+}
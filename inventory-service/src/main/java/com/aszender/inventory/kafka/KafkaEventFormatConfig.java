@@ -0,0 +1,48 @@
+package com.aszender.inventory.kafka;
+
+import com.aszender.contracts.events.v1.OrderCancelled;
+import com.aszender.contracts.events.v1.OrderCreated;
+import com.aszender.contracts.events.v1.ProductCreated;
+import com.aszender.contracts.kafka.KafkaEventFormats;
+import com.aszender.contracts.kafka.ProtobufDeserializer;
+import com.aszender.inventory.kafka.serde.StockEventMessages;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.kafka.autoconfigure.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.kafka.autoconfigure.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.kafka.autoconfigure.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This service's events and consumed topics for the shared {@link KafkaEventFormats}.
+ */
+@Configuration
+@Profile("kafka")
+public class KafkaEventFormatConfig {
+
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer protobufEventSerializer(
+            KafkaProperties kafkaProperties,
+            @Value("${app.kafka.protobuf-topics:}") Set<String> protobufTopics
+    ) {
+        return KafkaEventFormats.protobufSerializer(kafkaProperties, protobufTopics, StockEventMessages::toMessage);
+    }
+
+    @Bean
+    public DefaultKafkaConsumerFactoryCustomizer protobufEventDeserializer(
+            KafkaProperties kafkaProperties,
+            @Value("${app.kafka.topics.order-created}") String orderCreatedTopic,
+            @Value("${app.kafka.topics.order-cancelled}") String orderCancelledTopic,
+            @Value("${app.kafka.topics.product-created}") String productCreatedTopic
+    ) {
+        return KafkaEventFormats.contentTypeDeserializer(kafkaProperties, () -> Map.of(
+                orderCreatedTopic, new ProtobufDeserializer<>(OrderCreated.parser(), StockEventMessages::fromMessage),
+                orderCancelledTopic, new ProtobufDeserializer<>(OrderCancelled.parser(), StockEventMessages::fromMessage),
+                productCreatedTopic, new ProtobufDeserializer<>(ProductCreated.parser(), StockEventMessages::fromMessage)
+        ));
+    }
+}
@@ -0,0 +1,62 @@
+package com.aszender.inventory.kafka.consume;
+
+import com.aszender.contracts.kafka.KafkaBatchListenerAutoConfiguration;
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
+import com.aszender.inventory.kafka.events.OrderCancelledEvent;
+import com.aszender.inventory.service.InventoryReservationOrchestrator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+@Component
+@Profile("kafka")
+@ConditionalOnProperty(name = "app.kafka.batch-listeners.enabled", havingValue = "true")
+public class OrderCancelledBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderCancelledBatchListener.class);
+
+    private final InventoryReservationOrchestrator reservationOrchestrator;
+    private final KafkaInboxService inboxService;
+
+    public OrderCancelledBatchListener(
+            InventoryReservationOrchestrator reservationOrchestrator,
+            KafkaInboxService inboxService
+    ) {
+        this.reservationOrchestrator = reservationOrchestrator;
+        this.inboxService = inboxService;
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topics.order-cancelled}",
+            groupId = "inventory-service",
+            containerFactory = KafkaBatchListenerAutoConfiguration.CONTAINER_FACTORY,
+            properties = {
+                    "spring.json.value.default.type=com.aszender.inventory.kafka.events.OrderCancelledEvent",
+                    "max.poll.records=${app.kafka.batch-listeners.max-poll-records:500}"
+            }
+    )
+    public void onOrderCancelled(List<ConsumerRecord<String, OrderCancelledEvent>> records) {
+        List<ConsumerRecord<String, OrderCancelledEvent>> fresh = inboxService.unconsumed(records);
+        List<Long> orderIds = fresh.stream()
+                .map(ConsumerRecord::value)
+                .filter(Objects::nonNull)
+                .map(OrderCancelledEvent::orderId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        List<Long> released = reservationOrchestrator.releaseAll(orderIds);
+        // Recorded only once the releases are committed: if that fails the poll is redelivered, and
+        // releasing an order again is a no-op.
+        inboxService.tryConsumeAll(fresh);
+        log.info("Received {} OrderCancelledEvents: {} new orders, {} reservations released",
+                records.size(), orderIds.size(), released.size());
+    }
+}
@@ -1,36 +1,33 @@
 package com.aszender.inventory.kafka.consume;
 
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
 import com.aszender.inventory.kafka.events.OrderCancelledEvent;
-import com.aszender.inventory.kafka.events.StockReleasedEvent;
-import com.aszender.inventory.kafka.inbox.KafkaInboxService;
-import com.aszender.inventory.kafka.publish.StockEventsPublisher;
-import com.aszender.inventory.service.InventoryService;
+import com.aszender.inventory.service.InventoryReservationOrchestrator;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
+import java.util.List;
 
 @Component
 @Profile("kafka")
+@ConditionalOnProperty(name = "app.kafka.batch-listeners.enabled", havingValue = "false", matchIfMissing = true)
 public class OrderCancelledListener {
 
     private static final Logger log = LoggerFactory.getLogger(OrderCancelledListener.class);
 
-    private final InventoryService inventoryService;
-    private final StockEventsPublisher stockEventsPublisher;
+    private final InventoryReservationOrchestrator reservationOrchestrator;
     private final KafkaInboxService inboxService;
 
     public OrderCancelledListener(
-            InventoryService inventoryService,
-            StockEventsPublisher stockEventsPublisher,
+            InventoryReservationOrchestrator reservationOrchestrator,
             KafkaInboxService inboxService
     ) {
-        this.inventoryService = inventoryService;
-        this.stockEventsPublisher = stockEventsPublisher;
+        this.reservationOrchestrator = reservationOrchestrator;
         this.inboxService = inboxService;
     }
 
@@ -42,18 +39,15 @@ public class OrderCancelledListener {
             }
     )
     public void onOrderCancelled(OrderCancelledEvent event, ConsumerRecord<String, OrderCancelledEvent> record) {
-        if (!inboxService.tryConsume(record)) {
+        if (inboxService.unconsumed(List.of(record)).isEmpty()) {
             return;
         }
 
         log.info("Received OrderCancelledEvent: {}", event);
-        if (event == null || event.orderId() == null) {
-            return;
-        }
-
-        boolean released = inventoryService.releaseReservation(event.orderId());
-        if (released) {
-            stockEventsPublisher.publishStockReleased(new StockReleasedEvent(event.orderId(), Instant.now().toString()));
+        if (event != null && event.orderId() != null) {
+            reservationOrchestrator.release(event.orderId());
         }
+        // After the release, like OrderCancelledBatchListener.
+        inboxService.tryConsume(record);
     }
 }
@@ -0,0 +1,42 @@
+package com.aszender.inventory.kafka.consume;
+
+import com.aszender.contracts.kafka.KafkaBatchListenerAutoConfiguration;
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
+import com.aszender.inventory.kafka.events.OrderCreatedEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Profile("kafka")
+@ConditionalOnProperty(name = "app.kafka.batch-listeners.enabled", havingValue = "true")
+public class OrderCreatedBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderCreatedBatchListener.class);
+
+    private final KafkaInboxService inboxService;
+
+    public OrderCreatedBatchListener(KafkaInboxService inboxService) {
+        this.inboxService = inboxService;
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topics.order-created}",
+            groupId = "inventory-service",
+            containerFactory = KafkaBatchListenerAutoConfiguration.CONTAINER_FACTORY,
+            properties = {
+                    "spring.json.value.default.type=com.aszender.inventory.kafka.events.OrderCreatedEvent",
+                    "max.poll.records=${app.kafka.batch-listeners.max-poll-records:500}"
+            }
+    )
+    public void onOrderCreated(List<ConsumerRecord<String, OrderCreatedEvent>> records) {
+        int fresh = inboxService.tryConsumeAll(records).size();
+        log.info("Received {} OrderCreatedEvents ({} new)", records.size(), fresh);
+    }
+}
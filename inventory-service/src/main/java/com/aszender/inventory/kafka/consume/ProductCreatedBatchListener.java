@@ -0,0 +1,62 @@
+package com.aszender.inventory.kafka.consume;
+
+import com.aszender.contracts.kafka.KafkaBatchListenerAutoConfiguration;
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
+import com.aszender.inventory.kafka.events.ProductCreatedEvent;
+import com.aszender.inventory.service.InventoryService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+@Component
+@Profile("kafka")
+@ConditionalOnProperty(name = "app.kafka.batch-listeners.enabled", havingValue = "true")
+public class ProductCreatedBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCreatedBatchListener.class);
+
+    private final InventoryService inventoryService;
+    private final KafkaInboxService inboxService;
+
+    public ProductCreatedBatchListener(InventoryService inventoryService, KafkaInboxService inboxService) {
+        this.inventoryService = inventoryService;
+        this.inboxService = inboxService;
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topics.product-created}",
+            groupId = "inventory-service",
+            containerFactory = KafkaBatchListenerAutoConfiguration.CONTAINER_FACTORY,
+            properties = {
+                    "spring.json.value.default.type=com.aszender.inventory.kafka.events.ProductCreatedEvent",
+                    "max.poll.records=${app.kafka.batch-listeners.max-poll-records:500}"
+            }
+    )
+    public void onProductCreated(List<ConsumerRecord<String, ProductCreatedEvent>> records) {
+        List<Long> productIds = inboxService.tryConsumeAll(records).stream()
+                .map(ConsumerRecord::value)
+                .filter(Objects::nonNull)
+                .map(ProductCreatedEvent::productId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        // Same failure handling as the record listener: log and move on.
+        try {
+            inventoryService.ensureStockItemsExist(productIds);
+            log.info("Received {} ProductCreatedEvents: stock items ensured for {} products", records.size(), productIds.size());
+        } catch (Exception ex) {
+            log.error("Failed to ensure stock items for productIds={}: {}", productIds, ex.getMessage(), ex);
+        }
+    }
+}
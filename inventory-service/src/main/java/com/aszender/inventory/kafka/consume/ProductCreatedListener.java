@@ -1,17 +1,19 @@
 package com.aszender.inventory.kafka.consume;
 
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
 import com.aszender.inventory.kafka.events.ProductCreatedEvent;
-import com.aszender.inventory.kafka.inbox.KafkaInboxService;
 import com.aszender.inventory.service.InventoryService;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
 @Component
 @Profile("kafka")
+@ConditionalOnProperty(name = "app.kafka.batch-listeners.enabled", havingValue = "false", matchIfMissing = true)
 public class ProductCreatedListener {
 
     private static final Logger log = LoggerFactory.getLogger(ProductCreatedListener.class);
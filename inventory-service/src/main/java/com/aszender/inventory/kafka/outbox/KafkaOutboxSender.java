@@ -0,0 +1,66 @@
+package com.aszender.inventory.kafka.outbox;
+
+import com.aszender.contracts.kafka.EventContentType;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.kafka.autoconfigure.KafkaProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pipelines a whole batch through one producer (payloads are already encoded, so values are plain
+ * bytes) and then waits for the acknowledgements. With idempotence enabled and a single relay
+ * thread, records of the same key keep their order within a partition.
+ */
+@Component
+@Profile("kafka")
+@ConditionalOnProperty(name = "app.inventory.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class KafkaOutboxSender implements OutboxSender {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaOutboxSender.class);
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    public KafkaOutboxSender(KafkaProperties kafkaProperties) {
+        Map<String, Object> props = kafkaProperties.buildProducerProperties();
+        props.put("value.serializer", ByteArraySerializer.class);
+        props.put("enable.idempotence", true);
+        props.put("linger.ms", 5);
+        this.kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(props));
+    }
+
+    @Override
+    public int send(List<OutboxEvent> events) {
+        List<CompletableFuture<SendResult<String, byte[]>>> acks = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload());
+            if (event.getContentType() != null) {
+                record.headers().add(EventContentType.HEADER, event.getContentType().getBytes(StandardCharsets.UTF_8));
+            }
+            acks.add(kafkaTemplate.send(record));
+        }
+        kafkaTemplate.flush();
+
+        for (int i = 0; i < acks.size(); i++) {
+            try {
+                acks.get(i).join();
+            } catch (RuntimeException ex) {
+                log.warn("Outbox send failed at event {} of {}: {}", i, events.size(), ex.getMessage());
+                return i;
+            }
+        }
+        return events.size();
+    }
+}
@@ -0,0 +1,84 @@
+package com.aszender.inventory.kafka.outbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * An event written in the same transaction as the state change it describes; {@link OutboxRelay}
+ * publishes it to Kafka afterwards. The id gives the publish order.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_sent_at_id", columnList = "sent_at, id")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    @Column(name = "message_key", nullable = false)
+    private String messageKey;
+
+    // The record value, exactly what the serializer of the direct publisher would have produced.
+    @Column(nullable = false, length = 8192)
+    private byte[] payload;
+
+    // Record header value; null for JSON (see EventContentType).
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    protected OutboxEvent() {
+    }
+
+    public OutboxEvent(String topic, String messageKey, byte[] payload, String contentType) {
+        this.topic = topic;
+        this.messageKey = messageKey;
+        this.payload = payload;
+        this.contentType = contentType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getMessageKey() {
+        return messageKey;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+}
@@ -0,0 +1,28 @@
+package com.aszender.inventory.kafka.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Keyset scan over idx_outbox_events_sent_at_id: each page starts after the last id of the previous one.
+    @Query("select e from OutboxEvent e where e.sentAt is null and e.id > :afterId order by e.id")
+    List<OutboxEvent> findPendingAfter(@Param("afterId") long afterId, Pageable page);
+
+    long countBySentAtIsNull();
+
+    @Modifying
+    @Query("update OutboxEvent e set e.sentAt = :sentAt where e.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") Instant cutoff);
+}
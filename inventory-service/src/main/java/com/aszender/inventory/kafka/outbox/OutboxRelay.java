@@ -0,0 +1,163 @@
+package com.aszender.inventory.kafka.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes pending outbox events in id order, in batches, on a single thread: it wakes up when a
+ * transaction that wrote events commits, and otherwise polls every poll-interval-ms.
+ * Acknowledged events are marked sent with one bulk update per batch (delivery is at-least-once).
+ *
+ * Runs as a single instance per database; several relays would need row claiming.
+ */
+@Component
+@Profile("kafka")
+@ConditionalOnProperty(name = "app.inventory.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository repository;
+    private final OutboxSender sender;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final Duration retention;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private volatile Thread worker;
+    private volatile boolean running;
+    private Instant lastCleanup = Instant.now();
+
+    public OutboxRelay(
+            OutboxEventRepository repository,
+            OutboxSender sender,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.inventory.outbox.batch-size:500}") int batchSize,
+            @Value("${app.inventory.outbox.poll-interval-ms:200}") long pollIntervalMillis,
+            @Value("${app.inventory.outbox.retention:PT1H}") Duration retention
+    ) {
+        this.repository = repository;
+        this.sender = sender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.retention = retention;
+    }
+
+    /**
+     * Called after a transaction that wrote outbox events has committed.
+     */
+    public void wakeUp() {
+        if (wakeUps.availablePermits() == 0) {
+            wakeUps.release();
+        }
+    }
+
+    /**
+     * Publishes everything pending. Runs on the relay thread; public for tests and benchmarks.
+     *
+     * @return number of events sent
+     */
+    public int relayPending() {
+        int sentTotal = 0;
+        // Every round restarts at id 0, so an event whose transaction committed after a higher id was
+        // relayed is still picked up; within the round the scan only moves forward.
+        long afterId = 0;
+        while (true) {
+            List<OutboxEvent> batch = repository.findPendingAfter(afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return sentTotal;
+            }
+
+            int acknowledged = sender.send(batch);
+            if (acknowledged > 0) {
+                List<Long> ids = batch.subList(0, acknowledged).stream().map(OutboxEvent::getId).toList();
+                Instant now = Instant.now();
+                transactionTemplate.executeWithoutResult(status -> repository.markSent(ids, now));
+                sentTotal += acknowledged;
+                afterId = ids.get(ids.size() - 1);
+            }
+            if (acknowledged < batch.size()) {
+                return sentTotal; // broker trouble: retry the rest on the next round, in order
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                wakeUps.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                int sent = relayPending();
+                if (sent > 0) {
+                    log.debug("Outbox relay published {} events", sent);
+                }
+                cleanUpSentEvents();
+            } catch (RuntimeException ex) {
+                log.error("Outbox relay round failed", ex);
+            }
+        }
+    }
+
+    private void cleanUpSentEvents() {
+        Instant now = Instant.now();
+        if (Duration.between(lastCleanup, now).compareTo(Duration.ofMinutes(1)) < 0) {
+            return;
+        }
+        lastCleanup = now;
+        Integer deleted = transactionTemplate.execute(status -> repository.deleteSentBefore(now.minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Outbox relay removed {} sent events older than {}", deleted, retention);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::run, "outbox-relay");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        wakeUp();
+        Thread thread = worker;
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
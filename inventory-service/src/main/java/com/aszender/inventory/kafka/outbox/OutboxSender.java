@@ -0,0 +1,17 @@
+package com.aszender.inventory.kafka.outbox;
+
+import java.util.List;
+
+/**
+ * Delivers a batch of outbox events to the broker.
+ */
+public interface OutboxSender {
+
+    /**
+     * Sends the events in the given order and waits for the broker's acknowledgements.
+     *
+     * @return how many events, counted from the start of the list, were acknowledged; the relay
+     * retries the rest, so per-key order is kept
+     */
+    int send(List<OutboxEvent> events);
+}
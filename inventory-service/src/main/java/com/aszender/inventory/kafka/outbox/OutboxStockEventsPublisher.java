@@ -0,0 +1,104 @@
+package com.aszender.inventory.kafka.outbox;
+
+import com.aszender.inventory.kafka.events.LowStockEvent;
+import com.aszender.inventory.kafka.events.StockReleasedEvent;
+import com.aszender.inventory.kafka.events.StockReservationFailedEvent;
+import com.aszender.inventory.kafka.events.StockReservedEvent;
+import com.aszender.contracts.kafka.EventContentType;
+import com.aszender.inventory.kafka.publish.StockEventsPublisher;
+import com.aszender.inventory.kafka.serde.StockEventMessages;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+
+/**
+ * Writes stock events to the outbox table in the caller's transaction (or its own, when called
+ * outside one); {@link OutboxRelay} publishes them once that transaction has committed. Payloads
+ * are encoded as the direct publisher would: protobuf for app.kafka.protobuf-topics, JSON otherwise.
+ */
+@Component
+@Profile("kafka")
+@ConditionalOnProperty(name = "app.inventory.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxStockEventsPublisher implements StockEventsPublisher {
+
+    private final OutboxEventRepository repository;
+    private final OutboxRelay relay;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String stockReservedTopic;
+    private final String stockReleasedTopic;
+    private final String stockReservationFailedTopic;
+    private final String lowStockTopic;
+    private final Set<String> protobufTopics;
+
+    public OutboxStockEventsPublisher(
+            OutboxEventRepository repository,
+            OutboxRelay relay,
+            @Value("${app.kafka.topics.stock-reserved}") String stockReservedTopic,
+            @Value("${app.kafka.topics.stock-released}") String stockReleasedTopic,
+            @Value("${app.kafka.topics.stock-reservation-failed}") String stockReservationFailedTopic,
+            @Value("${app.kafka.topics.low-stock}") String lowStockTopic,
+            @Value("${app.kafka.protobuf-topics:}") Set<String> protobufTopics
+    ) {
+        this.repository = repository;
+        this.relay = relay;
+        this.stockReservedTopic = stockReservedTopic;
+        this.stockReleasedTopic = stockReleasedTopic;
+        this.stockReservationFailedTopic = stockReservationFailedTopic;
+        this.lowStockTopic = lowStockTopic;
+        this.protobufTopics = protobufTopics;
+    }
+
+    @Override
+    @Transactional
+    public void publishStockReserved(StockReservedEvent event) {
+        append(stockReservedTopic, event.orderId().toString(), event);
+    }
+
+    @Override
+    @Transactional
+    public void publishStockReleased(StockReleasedEvent event) {
+        append(stockReleasedTopic, event.orderId().toString(), event);
+    }
+
+    @Override
+    @Transactional
+    public void publishStockReservationFailed(StockReservationFailedEvent event) {
+        append(stockReservationFailedTopic, event.orderId().toString(), event);
+    }
+
+    @Override
+    @Transactional
+    public void publishLowStock(LowStockEvent event) {
+        append(lowStockTopic, event.productId().toString(), event);
+    }
+
+    private void append(String topic, String key, Object event) {
+        if (protobufTopics.contains(topic)) {
+            byte[] payload = StockEventMessages.toMessage(event).toByteArray();
+            repository.save(new OutboxEvent(topic, key, payload, EventContentType.PROTOBUF));
+        } else {
+            byte[] payload;
+            try {
+                payload = objectMapper.writeValueAsBytes(event);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Cannot serialize " + event, e);
+            }
+            repository.save(new OutboxEvent(topic, key, payload, null));
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.wakeUp();
+            }
+        });
+    }
+}
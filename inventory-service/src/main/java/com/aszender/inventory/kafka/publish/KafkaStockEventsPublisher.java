@@ -7,12 +7,15 @@ import com.aszender.inventory.kafka.events.LowStockEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+// Direct, fire-and-forget publishing; only used when the transactional outbox is switched off.
 @Component
 @Profile("kafka")
+@ConditionalOnProperty(name = "app.inventory.outbox.enabled", havingValue = "false")
 public class KafkaStockEventsPublisher implements StockEventsPublisher {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaStockEventsPublisher.class);
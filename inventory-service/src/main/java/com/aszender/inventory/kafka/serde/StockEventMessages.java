@@ -0,0 +1,103 @@
+package com.aszender.inventory.kafka.serde;
+
+import com.aszender.contracts.events.v1.LowStock;
+import com.aszender.contracts.events.v1.OrderCancelled;
+import com.aszender.contracts.events.v1.OrderCreated;
+import com.aszender.contracts.events.v1.OrderItem;
+import com.aszender.contracts.events.v1.ProductCreated;
+import com.aszender.contracts.events.v1.StockReleased;
+import com.aszender.contracts.events.v1.StockReservationFailed;
+import com.aszender.contracts.events.v1.StockReserved;
+import com.aszender.contracts.kafka.ProtoTimestamps;
+import com.aszender.inventory.kafka.events.LowStockEvent;
+import com.aszender.inventory.kafka.events.OrderCancelledEvent;
+import com.aszender.inventory.kafka.events.OrderCreatedEvent;
+import com.aszender.inventory.kafka.events.OrderItemEvent;
+import com.aszender.inventory.kafka.events.ProductCreatedEvent;
+import com.aszender.inventory.kafka.events.StockReleasedEvent;
+import com.aszender.inventory.kafka.events.StockReservationFailedEvent;
+import com.aszender.inventory.kafka.events.StockReservedEvent;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Timestamp;
+
+import java.util.List;
+
+/**
+ * The event records of this service &lt;-&gt; their protobuf messages (contracts events.proto).
+ * Null timestamps stay unset on the wire and come back as null.
+ */
+public final class StockEventMessages {
+
+    private StockEventMessages() {
+    }
+
+    /**
+     * @param event one of the events this service publishes
+     */
+    public static MessageLite toMessage(Object event) {
+        if (event instanceof StockReservedEvent e) {
+            StockReserved.Builder message = StockReserved.newBuilder().setOrderId(e.orderId());
+            if (e.reservedAt() != null) {
+                message.setReservedAt(ProtoTimestamps.parse(e.reservedAt()));
+            }
+            if (e.items() != null) {
+                e.items().forEach(item -> message.addItems(OrderItem.newBuilder()
+                        .setProductId(item.productId())
+                        .setQuantity(item.quantity())));
+            }
+            return message.build();
+        }
+        if (event instanceof StockReleasedEvent e) {
+            StockReleased.Builder message = StockReleased.newBuilder().setOrderId(e.orderId());
+            if (e.releasedAt() != null) {
+                message.setReleasedAt(ProtoTimestamps.parse(e.releasedAt()));
+            }
+            return message.build();
+        }
+        if (event instanceof StockReservationFailedEvent e) {
+            StockReservationFailed.Builder message = StockReservationFailed.newBuilder().setOrderId(e.orderId());
+            if (e.failedAt() != null) {
+                message.setFailedAt(ProtoTimestamps.parse(e.failedAt()));
+            }
+            if (e.reason() != null) {
+                message.setReason(e.reason());
+            }
+            return message.build();
+        }
+        if (event instanceof LowStockEvent e) {
+            LowStock.Builder message = LowStock.newBuilder()
+                    .setProductId(e.productId())
+                    .setAvailable(e.available())
+                    .setThreshold(e.threshold());
+            if (e.detectedAt() != null) {
+                message.setDetectedAt(ProtoTimestamps.parse(e.detectedAt()));
+            }
+            return message.build();
+        }
+        throw new IllegalArgumentException("No protobuf message for " + event.getClass().getName());
+    }
+
+    public static OrderCreatedEvent fromMessage(OrderCreated message) {
+        List<OrderItemEvent> items = message.getItemsList().stream()
+                .map(item -> new OrderItemEvent(item.getProductId(), item.getQuantity()))
+                .toList();
+        return new OrderCreatedEvent(message.getOrderId(),
+                message.hasCreatedAt() ? ProtoTimestamps.toInstant(message.getCreatedAt()) : null, items);
+    }
+
+    public static OrderCancelledEvent fromMessage(OrderCancelled message) {
+        return new OrderCancelledEvent(message.getOrderId(),
+                message.hasCancelledAt() ? ProtoTimestamps.toInstant(message.getCancelledAt()) : null);
+    }
+
+    public static ProductCreatedEvent fromMessage(ProductCreated message) {
+        return new ProductCreatedEvent(message.getProductId(),
+                message.hasName() ? message.getName() : null,
+                message.hasPrice() ? message.getPrice() : null,
+                message.hasCreatedAt() ? iso(message.getCreatedAt()) : null);
+    }
+
+    private static String iso(Timestamp timestamp) {
+        return ProtoTimestamps.toInstant(timestamp).toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.aszender.inventory.ledger;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of orders whose hold ended and left the ledger's memory. A miss means the order
+ * never ended here, so a new reservation needs no database lookup; a hit may be a false positive
+ * and is confirmed against stock_reservations. Fixed size: it only gets less selective as ended
+ * orders accumulate, never wrong.
+ */
+final class EndedOrderFilter {
+
+    private static final int HASHES = 4;
+
+    private final AtomicLongArray words;
+    private final long bitMask;
+
+    /**
+     * @param bits a power of two
+     */
+    EndedOrderFilter(int bits) {
+        if (bits < Long.SIZE || Integer.bitCount(bits) != 1) {
+            throw new IllegalArgumentException("bits must be a power of two >= 64, got " + bits);
+        }
+        this.words = new AtomicLongArray(bits / Long.SIZE);
+        this.bitMask = bits - 1;
+    }
+
+    void add(long orderId) {
+        long hash = mix(orderId);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = bit(hash, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.weakCompareAndSetVolatile(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    boolean mightContain(long orderId) {
+        long hash = mix(orderId);
+        for (int i = 0; i < HASHES; i++) {
+            long bit = bit(hash, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Double hashing over the two halves of one 64-bit hash.
+    private long bit(long hash, int i) {
+        return ((hash >>> 32) + i * (hash & 0xFFFFFFFFL)) & bitMask;
+    }
+
+    // MurmurHash3 finalizer: order ids are sequential, the bits must not be.
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb93e53ca04ebL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
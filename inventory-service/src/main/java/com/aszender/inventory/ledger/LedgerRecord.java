@@ -0,0 +1,21 @@
+package com.aszender.inventory.ledger;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One journaled ledger decision. Records are deltas, so replay never re-decides anything.
+ *
+ * @param expiresAt deadline of a RESERVE, fixed when it was decided; null for other types or when expiry is disabled
+ */
+public record LedgerRecord(long seq, Type type, long orderId, List<Line> lines, Instant expiresAt) {
+
+    public enum Type {
+        RESERVE,
+        RELEASE,
+        EXPIRE // same delta as RELEASE; the reservation ends up EXPIRED
+    }
+
+    public record Line(long productId, int quantity) {
+    }
+}
@@ -0,0 +1,443 @@
+package com.aszender.inventory.ledger;
+
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import com.aszender.inventory.service.InventoryService;
+import com.aszender.inventory.service.LowStockDetector;
+import com.aszender.inventory.service.StockBucketService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory authoritative stock ledger (app.inventory.ledger.enabled=true).
+ *
+ * Reservations are decided against in-memory counters under per-product striped locks, appended to
+ * the {@link StockLedgerJournal} (fsync'd before the caller is answered) and written to
+ * stock_items / stock_reservations asynchronously by {@link StockLedgerWriteBehind}.
+ * On startup the state is rebuilt from the database and the journal records past the checkpoint.
+ *
+ * While enabled, this ledger is the only writer of stock rows: hot-SKU buckets are merged back on
+ * startup and the database view of stock lags by at most one flush interval.
+ *
+ * Memory holds the stock of every product but only open holds: an order's entry is dropped once its
+ * release is persisted and its id goes into an {@link EndedOrderFilter}. An order the ledger does not
+ * know is looked up in stock_reservations only if that filter matches, so new orders are decided
+ * without touching the database.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.ledger.enabled", havingValue = "true")
+public class StockLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+
+    private static final int STRIPES = 64;
+    private static final int ENDED_FILTER_BITS = 1 << 24; // 2 MB; ~0.2% false positives at a million ended orders
+
+    private final StockLedgerJournal journal;
+    private final StockLedgerWriteBehind writeBehind;
+    private final StockLedgerPersister persister;
+    private final StockItemRepository stockItemRepository;
+    private final StockBucketService stockBucketService;
+    private final LowStockDetector lowStockDetector;
+
+    // Boxed keys: no primitive-collection library in the build, and these maps need atomic putIfAbsent/remove.
+    private final ConcurrentHashMap<Long, Stock> stockByProductId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, OrderEntry> ordersById = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final EndedOrderFilter endedOrders = new EndedOrderFilter(ENDED_FILTER_BITS);
+    // Highest seq written to the database.
+    private volatile long persistedSeq;
+
+    public StockLedger(
+            StockLedgerJournal journal,
+            StockLedgerWriteBehind writeBehind,
+            StockLedgerPersister persister,
+            StockItemRepository stockItemRepository,
+            StockBucketService stockBucketService,
+            LowStockDetector lowStockDetector
+    ) {
+        this.journal = journal;
+        this.writeBehind = writeBehind;
+        this.persister = persister;
+        this.stockItemRepository = stockItemRepository;
+        this.stockBucketService = stockBucketService;
+        this.lowStockDetector = lowStockDetector;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        writeBehind.onPersisted(this::persisted);
+    }
+
+    @PostConstruct
+    void rebuild() {
+        // Bucketed stock is not modelled by the ledger: fold it back into the item rows first.
+        stockItemRepository.findAllByBucketCountGreaterThan(1)
+                .forEach(item -> stockBucketService.changeBucketCount(item.getProductId(), 1));
+
+        long checkpoint = persister.loadCheckpoint();
+        if (checkpoint < 0) {
+            // No checkpoint row means a fresh database: the journal belongs to an earlier one.
+            if (journal.size() > 0) {
+                log.warn("Discarding the ledger journal ({} bytes) without a database checkpoint", journal.size());
+                journal.discard();
+            }
+            persister.initCheckpoint();
+            checkpoint = 0;
+        }
+
+        StockLedgerPersister.Snapshot snapshot = persister.loadSnapshot();
+        snapshot.stock().forEach(item -> stockByProductId.put(item.getProductId(), new Stock(item.getAvailable(), item.getReserved(), item.getLowStockThreshold())));
+        snapshot.reserved().forEach((orderId, lines) -> ordersById.put(orderId, new OrderEntry(OrderStatus.RESERVED, lines, 0L)));
+        persister.forEachEndedOrderId(endedOrders::add);
+
+        long checkpointSeq = checkpoint;
+        persistedSeq = checkpoint;
+        AtomicLong lastSeq = new AtomicLong(checkpoint);
+        int replayed = journal.replay(record -> {
+            if (record.seq() > checkpointSeq) {
+                replay(record);
+                writeBehind.enqueue(record);
+                lastSeq.set(record.seq());
+            }
+        });
+        journal.startAfter(lastSeq.get());
+        log.info("Stock ledger rebuilt: {} products, {} open holds, {} journal records read after seq {}",
+                stockByProductId.size(), ordersById.size(), replayed, checkpoint);
+    }
+
+    /**
+     * All-or-nothing reservation of the order's lines. Idempotent per orderId, like
+     * {@code InventoryService.reserveStock}: a reserved order returns true, a released one false.
+     *
+     * @param quantityByProductId quantities summed per product
+     * @param expiresAt           written to the reservation row as is, so it matches the deadline the
+     *                            caller schedules however late the write-behind runs; null for none
+     */
+    public InventoryService.ReservationOutcome reserve(long orderId, Map<Long, Integer> quantityByProductId, Instant expiresAt) {
+        while (true) {
+            List<LowStockDetector.LowStockCrossing> crossings = new ArrayList<>();
+            OrderEntry candidate = new OrderEntry(OrderStatus.NEW, List.of(), 0L);
+            OrderEntry entry = ordersById.putIfAbsent(orderId, candidate);
+            if (entry == null) {
+                entry = candidate;
+            }
+
+            LedgerRecord record;
+            synchronized (entry) {
+                if (entry.status == OrderStatus.DISCARDED) {
+                    continue; // a rejected attempt removed it; start over with a fresh entry
+                }
+                if (entry.status != OrderStatus.NEW) {
+                    return entry.status == OrderStatus.RESERVED
+                            ? InventoryService.ReservationOutcome.reserved(List.of())
+                            : InventoryService.ReservationOutcome.REJECTED;
+                }
+                if (endedEarlier(orderId) != null) {
+                    // Ended and evicted (open holds are always in memory): like a released order.
+                    entry.status = OrderStatus.DISCARDED;
+                    ordersById.remove(orderId, entry);
+                    return InventoryService.ReservationOutcome.REJECTED;
+                }
+
+                List<LedgerRecord.Line> lines = toLines(quantityByProductId);
+                record = applyAndJournal(LedgerRecord.Type.RESERVE, orderId, lines, expiresAt, crossings);
+                if (record == null) {
+                    entry.status = OrderStatus.DISCARDED;
+                    ordersById.remove(orderId, entry);
+                    return InventoryService.ReservationOutcome.REJECTED;
+                }
+                entry.status = OrderStatus.RESERVED;
+                entry.lines = lines;
+                entry.seq = record.seq();
+            }
+            journal.sync(record.seq());
+            return InventoryService.ReservationOutcome.reserved(crossings);
+        }
+    }
+
+    /**
+     * @return false if the order has no reservation
+     */
+    public boolean release(long orderId) {
+        return end(orderId, LedgerRecord.Type.RELEASE) != null;
+    }
+
+    /**
+     * Expires the holds that are still reserved (the caller checked their deadlines). The expiries
+     * are journaled one after the other and synced once, however many there are.
+     *
+     * @return the orderIds whose stock this call released, in the given order
+     */
+    public List<Long> expireAll(Collection<Long> orderIds) {
+        List<Long> expired = new ArrayList<>(orderIds.size());
+        long lastSeq = 0;
+        for (Long orderId : orderIds) {
+            LedgerRecord record = endOpenHold(orderId, LedgerRecord.Type.EXPIRE);
+            if (record != null) {
+                expired.add(orderId);
+                lastSeq = record.seq();
+            }
+        }
+        if (!expired.isEmpty()) {
+            journal.sync(lastSeq);
+        }
+        return expired;
+    }
+
+    /**
+     * Whether the order holds stock that the write-behind has not written to stock_reservations yet
+     * (so the database cannot tell whether it is due).
+     */
+    public boolean isUnpersistedHold(long orderId) {
+        OrderEntry entry = ordersById.get(orderId);
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            return entry.status == OrderStatus.RESERVED && entry.seq > persistedSeq;
+        }
+    }
+
+    /**
+     * Orders held in memory: open holds, plus ended ones whose release is not persisted yet.
+     */
+    public int trackedOrders() {
+        return ordersById.size();
+    }
+
+    /**
+     * Writes everything decided so far to the database.
+     */
+    public void awaitPersisted() {
+        writeBehind.flush();
+    }
+
+    /**
+     * @return null if the order has no reservation, false if it had already ended, true if this call ended it
+     */
+    private Boolean end(long orderId, LedgerRecord.Type type) {
+        LedgerRecord record = endOpenHold(orderId, type);
+        if (record != null) {
+            journal.sync(record.seq());
+            return true;
+        }
+        OrderEntry entry = ordersById.get(orderId);
+        if (entry != null) {
+            synchronized (entry) {
+                if (entry.status == OrderStatus.RELEASED) {
+                    return false;
+                }
+            }
+        }
+        return endedEarlier(orderId); // not known, being decided, or evicted meanwhile
+    }
+
+    // Ends the order's hold without waiting for the journal; null if it holds nothing.
+    private LedgerRecord endOpenHold(long orderId, LedgerRecord.Type type) {
+        OrderEntry entry = ordersById.get(orderId);
+        if (entry == null) {
+            return null;
+        }
+        synchronized (entry) {
+            if (entry.status != OrderStatus.RESERVED) {
+                return null;
+            }
+            LedgerRecord record = applyAndJournal(type, orderId, entry.lines, null, new ArrayList<>());
+            entry.status = OrderStatus.RELEASED;
+            entry.lines = List.of();
+            return record;
+        }
+    }
+
+    // Not an open hold: false if the order's reservation ended (and was evicted), null if it never had one.
+    private Boolean endedEarlier(long orderId) {
+        return endedOrders.mightContain(orderId) && persister.hasReservation(orderId) ? false : null;
+    }
+
+    /**
+     * @return the product's current stock, ahead of the stock row the write-behind updates later;
+     * empty if the product has no stock row
+     */
+    public Optional<Balance> balance(long productId) {
+        ReentrantLock lock = stripes[Math.floorMod(Long.hashCode(productId), STRIPES)];
+        lock.lock();
+        try {
+            Stock stock = stockByProductId.get(productId);
+            if (stock == null) {
+                stock = loadFromDatabase(productId);
+            }
+            return stock == null ? Optional.empty() : Optional.of(new Balance(productId, stock.available, stock.reserved));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public record Balance(long productId, int available, int reserved) {
+    }
+
+    /**
+     * Mirrors a threshold change already written to the stock row.
+     */
+    public void changeLowStockThreshold(long productId, Integer threshold) {
+        Stock stock = stockByProductId.get(productId);
+        if (stock != null) {
+            stock.lowStockThreshold = threshold;
+        }
+    }
+
+    /**
+     * Validates and applies the lines under their stripe locks (taken in stripe order), then
+     * journals the decision.
+     *
+     * @return null (nothing changed) if a product is missing or short on stock
+     */
+    private LedgerRecord applyAndJournal(
+            LedgerRecord.Type type,
+            long orderId,
+            List<LedgerRecord.Line> lines,
+            Instant expiresAt,
+            List<LowStockDetector.LowStockCrossing> crossings
+    ) {
+        List<ReentrantLock> locks = locksFor(lines);
+        locks.forEach(ReentrantLock::lock);
+        try {
+            List<Stock> stocks = new ArrayList<>(lines.size());
+            for (LedgerRecord.Line line : lines) {
+                Stock stock = stockByProductId.get(line.productId());
+                if (stock == null) {
+                    stock = loadFromDatabase(line.productId());
+                }
+                boolean sufficient = stock != null && (type == LedgerRecord.Type.RESERVE
+                        ? stock.available >= line.quantity()
+                        : stock.reserved >= line.quantity());
+                if (!sufficient) {
+                    if (type != LedgerRecord.Type.RESERVE) {
+                        throw new IllegalStateException("cannot release more than reserved for productId=" + line.productId());
+                    }
+                    return null;
+                }
+                stocks.add(stock);
+            }
+
+            int sign = type == LedgerRecord.Type.RESERVE ? 1 : -1;
+            for (int i = 0; i < lines.size(); i++) {
+                Stock stock = stocks.get(i);
+                int before = stock.available;
+                stock.available -= sign * lines.get(i).quantity();
+                stock.reserved += sign * lines.get(i).quantity();
+                lowStockDetector.check(crossings, lines.get(i).productId(), before, stock.available, stock.lowStockThreshold);
+            }
+
+            // Append and enqueue together so the write-behind queue stays in sequence order.
+            synchronized (journal) {
+                LedgerRecord record = journal.append(type, orderId, lines, expiresAt);
+                writeBehind.enqueue(record);
+                return record;
+            }
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    // Ended holds are only kept until their release is in the database.
+    private void persisted(List<LedgerRecord> persisted) {
+        persistedSeq = persisted.get(persisted.size() - 1).seq();
+        for (LedgerRecord record : persisted) {
+            if (record.type() == LedgerRecord.Type.RESERVE) {
+                continue;
+            }
+            OrderEntry entry = ordersById.get(record.orderId());
+            if (entry != null) {
+                synchronized (entry) {
+                    if (entry.status == OrderStatus.RELEASED) {
+                        endedOrders.add(record.orderId()); // before the entry leaves the map
+                        entry.status = OrderStatus.DISCARDED;
+                        ordersById.remove(record.orderId(), entry);
+                    }
+                }
+            }
+        }
+    }
+
+    private void replay(LedgerRecord record) {
+        int sign = record.type() == LedgerRecord.Type.RESERVE ? 1 : -1;
+        for (LedgerRecord.Line line : record.lines()) {
+            Stock stock = stockByProductId.computeIfAbsent(line.productId(), id -> new Stock(0, 0, null));
+            stock.available -= sign * line.quantity();
+            stock.reserved += sign * line.quantity();
+        }
+        ordersById.put(record.orderId(), record.type() == LedgerRecord.Type.RESERVE
+                ? new OrderEntry(OrderStatus.RESERVED, record.lines(), record.seq())
+                : new OrderEntry(OrderStatus.RELEASED, List.of(), record.seq()));
+    }
+
+    // Products created after startup are picked up on first use (their rows are not ledger-managed yet).
+    private Stock loadFromDatabase(long productId) {
+        StockItem item = stockItemRepository.findByProductId(productId).orElse(null);
+        if (item == null) {
+            return null;
+        }
+        return stockByProductId.computeIfAbsent(productId, id -> new Stock(item.getAvailable(), item.getReserved(), item.getLowStockThreshold()));
+    }
+
+    private List<ReentrantLock> locksFor(List<LedgerRecord.Line> lines) {
+        TreeMap<Integer, ReentrantLock> ordered = new TreeMap<>();
+        for (LedgerRecord.Line line : lines) {
+            int stripe = Math.floorMod(Long.hashCode(line.productId()), STRIPES);
+            ordered.put(stripe, stripes[stripe]);
+        }
+        return new ArrayList<>(ordered.values());
+    }
+
+    private static List<LedgerRecord.Line> toLines(Map<Long, Integer> quantityByProductId) {
+        List<LedgerRecord.Line> lines = new ArrayList<>(quantityByProductId.size());
+        quantityByProductId.forEach((productId, quantity) -> lines.add(new LedgerRecord.Line(productId, quantity)));
+        return List.copyOf(lines);
+    }
+
+    // Guarded by the stripe lock of its product; the threshold is written without it, hence volatile.
+    private static final class Stock {
+        volatile int available;
+        volatile int reserved;
+        volatile Integer lowStockThreshold;
+
+        Stock(int available, int reserved, Integer lowStockThreshold) {
+            this.available = available;
+            this.reserved = reserved;
+            this.lowStockThreshold = lowStockThreshold;
+        }
+    }
+
+    private enum OrderStatus {
+        NEW, RESERVED, RELEASED, DISCARDED // RELEASED also covers expired holds; DISCARDED entries left the map
+    }
+
+    // Guarded by its own monitor.
+    private static final class OrderEntry {
+        OrderStatus status;
+        List<LedgerRecord.Line> lines;
+        long seq; // of the record that decided the status; 0 if loaded from the database
+
+        OrderEntry(OrderStatus status, List<LedgerRecord.Line> lines, long seq) {
+            this.status = status;
+            this.lines = lines;
+            this.seq = seq;
+        }
+    }
+}
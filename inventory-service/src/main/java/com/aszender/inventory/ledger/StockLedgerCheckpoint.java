@@ -0,0 +1,55 @@
+package com.aszender.inventory.ledger;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * Highest journal sequence already applied to stock_items / stock_reservations (single row).
+ * Written in the same transaction as the batch it covers, so replay starts exactly after it.
+ */
+@Entity
+@Table(name = "stock_ledger_checkpoint")
+public class StockLedgerCheckpoint {
+
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    protected StockLedgerCheckpoint() {
+    }
+
+    public StockLedgerCheckpoint(long lastSeq) {
+        this.id = SINGLETON_ID;
+        this.lastSeq = lastSeq;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void advanceTo(long seq) {
+        if (seq > lastSeq) {
+            lastSeq = seq;
+            updatedAt = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.aszender.inventory.ledger;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StockLedgerCheckpointRepository extends JpaRepository<StockLedgerCheckpoint, Long> {
+}
@@ -0,0 +1,335 @@
+package com.aszender.inventory.ledger;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local journal of ledger decisions, kept in segment files named
+ * {@code <journal-path>.<first seq>}. Only the newest segment is written; at a persisted
+ * checkpoint a full segment is closed and a new one started, and closed segments whose records
+ * are all in the database are deleted, so the journal stays bounded under steady load.
+ *
+ * Frame layout: [int bodyLength][body][int crc32(body)], body = seq, type, orderId, lineCount, lines,
+ * expiresAt epoch millis (Long.MIN_VALUE for none; absent in records written before it was added).
+ * {@link #sync(long)} is a group commit: one fsync makes every record written so far durable,
+ * so concurrent callers share the cost of a single force().
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.ledger.enabled", havingValue = "true")
+public class StockLedgerJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedgerJournal.class);
+
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+
+    private final Path path;
+    private final boolean fsync;
+    private final long segmentBytes;
+    // Lock order: syncLock, then this.
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // Guarded by this: first seq a segment may hold -> its file; the last one is being written.
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel active;
+    private long lastSeq;
+    private volatile long durableSeq;
+
+    public StockLedgerJournal(
+            @Value("${app.inventory.ledger.journal-path:data/inventory-ledger.journal}") String path,
+            @Value("${app.inventory.ledger.fsync:true}") boolean fsync,
+            @Value("${app.inventory.ledger.segment-bytes:67108864}") long segmentBytes
+    ) throws IOException {
+        this.path = Path.of(path).toAbsolutePath();
+        this.fsync = fsync;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(this.path.getParent());
+        String prefix = this.path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(this.path.getParent())) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && name.substring(prefix.length()).chars().allMatch(Character::isDigit)) {
+                    segments.put(Long.parseLong(name.substring(prefix.length())), file);
+                }
+            });
+        }
+        if (segments.isEmpty()) {
+            segments.put(1L, segmentPath(1L));
+        }
+        this.active = open(segments.lastEntry().getValue());
+    }
+
+    /**
+     * Streams every intact record, oldest first, without loading a segment into memory. A torn or
+     * corrupt tail (crash mid-write) is cut off, together with any segment after it. Appends
+     * continue after the last record read.
+     *
+     * @return the number of records passed to the consumer
+     */
+    public synchronized int replay(Consumer<LedgerRecord> consumer) {
+        int count = 0;
+        try {
+            for (Map.Entry<Long, Path> segment : List.copyOf(segments.entrySet())) {
+                Path file = segment.getValue();
+                long size = Files.size(file);
+                long validEnd = 0;
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), READ_BUFFER_BYTES))) {
+                    while (size - validEnd >= Integer.BYTES) {
+                        int bodyLength = in.readInt();
+                        if (bodyLength <= 0 || size - validEnd - Integer.BYTES < (long) bodyLength + Integer.BYTES) {
+                            break;
+                        }
+                        byte[] body = new byte[bodyLength];
+                        in.readFully(body);
+                        if (in.readInt() != crc32(body)) {
+                            break;
+                        }
+                        LedgerRecord record = decode(ByteBuffer.wrap(body));
+                        lastSeq = record.seq();
+                        consumer.accept(record);
+                        count++;
+                        validEnd += Integer.BYTES + bodyLength + Integer.BYTES;
+                    }
+                }
+                if (validEnd < size) {
+                    log.warn("Truncating torn ledger journal tail at byte {} of {} ({})", validEnd, size, file);
+                    truncateAfter(segment.getKey(), validEnd);
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read ledger journal " + path, e);
+        }
+        durableSeq = lastSeq;
+        return count;
+    }
+
+    /**
+     * Sequence numbers continue after {@code seq} (the highest seq already persisted or replayed).
+     */
+    public synchronized void startAfter(long seq) {
+        this.lastSeq = seq;
+        this.durableSeq = seq;
+    }
+
+    public synchronized LedgerRecord append(LedgerRecord.Type type, long orderId, List<LedgerRecord.Line> lines, Instant expiresAt) {
+        LedgerRecord record = new LedgerRecord(lastSeq + 1, type, orderId, lines, expiresAt);
+        ByteBuffer body = encode(record);
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + body.remaining() + Integer.BYTES);
+        frame.putInt(body.remaining());
+        frame.put(body.duplicate());
+        frame.putInt(crc32(body.array()));
+        frame.flip();
+        try {
+            while (frame.hasRemaining()) {
+                active.write(frame);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to ledger journal " + path, e);
+        }
+        lastSeq = record.seq();
+        return record;
+    }
+
+    /**
+     * Blocks until the record with {@code seq} is on disk.
+     */
+    public void sync(long seq) {
+        if (!fsync || durableSeq >= seq) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durableSeq >= seq) {
+                return; // another caller's force() already covered us
+            }
+            long target;
+            FileChannel channel;
+            synchronized (this) {
+                target = lastSeq;
+                channel = active;
+            }
+            channel.force(false);
+            durableSeq = target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to fsync ledger journal " + path, e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Called after every record up to {@code persistedSeq} has been written to the database:
+     * empties the journal if that is all of it, otherwise starts a new segment once the current one
+     * is full and deletes the segments that are entirely persisted.
+     */
+    public void checkpoint(long persistedSeq) {
+        syncLock.lock();
+        try {
+            synchronized (this) {
+                if (lastSeq <= persistedSeq) {
+                    deleteSegmentsUpTo(Long.MAX_VALUE);
+                    active.truncate(0);
+                    return;
+                }
+                if (active.size() >= segmentBytes) {
+                    rotate();
+                }
+                deleteSegmentsUpTo(persistedSeq);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to checkpoint ledger journal " + path, e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Drops every record (the journal belongs to another database).
+     */
+    public void discard() {
+        syncLock.lock();
+        try {
+            synchronized (this) {
+                deleteSegmentsUpTo(Long.MAX_VALUE);
+                active.truncate(0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to discard ledger journal " + path, e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // Bytes in all segments.
+    public synchronized long size() {
+        long size = 0;
+        try {
+            for (Path file : segments.values()) {
+                size += Files.size(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return size;
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (active.isOpen()) {
+            active.force(false);
+            active.close();
+        }
+    }
+
+    // Caller holds syncLock and this. The closed segment is forced first, so sync() never misses it.
+    private void rotate() throws IOException {
+        if (fsync) {
+            active.force(false);
+            durableSeq = lastSeq;
+        }
+        active.close();
+        long first = lastSeq + 1;
+        segments.put(first, segmentPath(first));
+        active = open(segments.get(first));
+    }
+
+    // Deletes the closed segments whose records all have seq <= upTo (every segment before the
+    // next one's first seq).
+    private void deleteSegmentsUpTo(long upTo) throws IOException {
+        while (segments.size() > 1) {
+            Map.Entry<Long, Path> oldest = segments.firstEntry();
+            long next = segments.higherKey(oldest.getKey());
+            if (next - 1 > upTo) {
+                return;
+            }
+            Files.deleteIfExists(oldest.getValue());
+            segments.remove(oldest.getKey());
+        }
+    }
+
+    // Cuts the segment at validEnd and deletes every later one (their records would leave a gap).
+    private void truncateAfter(long first, long validEnd) throws IOException {
+        for (Long later : List.copyOf(segments.tailMap(first, false).keySet())) {
+            log.warn("Deleting ledger journal segment {} after a torn record", segments.get(later));
+            if (segments.lastKey().equals(later)) {
+                active.close();
+            }
+            Files.deleteIfExists(segments.remove(later));
+        }
+        if (!active.isOpen()) {
+            active = open(segments.get(first));
+        }
+        active.truncate(validEnd);
+    }
+
+    private Path segmentPath(long first) {
+        return path.resolveSibling(path.getFileName() + "." + String.format("%020d", first));
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static ByteBuffer encode(LedgerRecord record) {
+        ByteBuffer body = ByteBuffer.allocate(Long.BYTES + 1 + Long.BYTES + Integer.BYTES
+                + record.lines().size() * (Long.BYTES + Integer.BYTES) + Long.BYTES);
+        body.putLong(record.seq());
+        body.put((byte) record.type().ordinal());
+        body.putLong(record.orderId());
+        body.putInt(record.lines().size());
+        for (LedgerRecord.Line line : record.lines()) {
+            body.putLong(line.productId());
+            body.putInt(line.quantity());
+        }
+        body.putLong(record.expiresAt() == null ? NO_EXPIRY : record.expiresAt().toEpochMilli());
+        body.flip();
+        return body;
+    }
+
+    private static LedgerRecord decode(ByteBuffer body) {
+        long seq = body.getLong();
+        LedgerRecord.Type type = LedgerRecord.Type.values()[body.get()];
+        long orderId = body.getLong();
+        int lineCount = body.getInt();
+        List<LedgerRecord.Line> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(new LedgerRecord.Line(body.getLong(), body.getInt()));
+        }
+        long expiresAt = body.remaining() >= Long.BYTES ? body.getLong() : NO_EXPIRY;
+        return new LedgerRecord(seq, type, orderId, List.copyOf(lines), expiresAt == NO_EXPIRY ? null : Instant.ofEpochMilli(expiresAt));
+    }
+
+    private static int crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,155 @@
+package com.aszender.inventory.ledger;
+
+import com.aszender.inventory.model.ReservationStatus;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.model.StockReservation;
+import com.aszender.inventory.repository.StockItemRepository;
+import com.aszender.inventory.repository.StockReservationRepository;
+import com.aszender.inventory.service.ReservationExpiryPolicy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Applies a batch of ledger records to the database in one transaction: one delta update per
+ * touched product, inserts/updates of the reservations, and the checkpoint.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.ledger.enabled", havingValue = "true")
+public class StockLedgerPersister {
+
+    private final StockItemRepository stockItemRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final StockLedgerCheckpointRepository checkpointRepository;
+    private final ReservationExpiryPolicy expiryPolicy;
+
+    public StockLedgerPersister(
+            StockItemRepository stockItemRepository,
+            StockReservationRepository stockReservationRepository,
+            StockLedgerCheckpointRepository checkpointRepository,
+            ReservationExpiryPolicy expiryPolicy
+    ) {
+        this.stockItemRepository = stockItemRepository;
+        this.stockReservationRepository = stockReservationRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.expiryPolicy = expiryPolicy;
+    }
+
+    @Transactional(readOnly = true)
+    public long loadCheckpoint() {
+        return checkpointRepository.findById(StockLedgerCheckpoint.SINGLETON_ID)
+                .map(StockLedgerCheckpoint::getLastSeq)
+                .orElse(-1L);
+    }
+
+    @Transactional
+    public void initCheckpoint() {
+        if (!checkpointRepository.existsById(StockLedgerCheckpoint.SINGLETON_ID)) {
+            checkpointRepository.save(new StockLedgerCheckpoint(0L));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Snapshot loadSnapshot() {
+        Map<Long, List<LedgerRecord.Line>> reserved = new HashMap<>();
+        for (StockReservation reservation : stockReservationRepository.findAllWithItemsByStatus(ReservationStatus.RESERVED)) {
+            Map<Long, Integer> quantityByProductId = new TreeMap<>();
+            reservation.getItems().forEach(item -> quantityByProductId.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+            reserved.put(reservation.getOrderId(), quantityByProductId.entrySet().stream()
+                    .map(e -> new LedgerRecord.Line(e.getKey(), e.getValue()))
+                    .toList());
+        }
+        return new Snapshot(stockItemRepository.findAll(), reserved);
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachEndedOrderId(LongConsumer consumer) {
+        try (Stream<Long> orderIds = stockReservationRepository.streamEndedOrderIds()) {
+            orderIds.forEach(consumer::accept);
+        }
+    }
+
+    /**
+     * Whether the order ever had a reservation. Ended ones are not kept in memory, so the ledger
+     * asks here about orders its filter of ended orders matches (the unique order_id row decides).
+     */
+    @Transactional(readOnly = true)
+    public boolean hasReservation(long orderId) {
+        return stockReservationRepository.existsByOrderId(orderId);
+    }
+
+    /**
+     * @param records in sequence order
+     */
+    @Transactional
+    public void persist(List<LedgerRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        // Reservations released in this batch but created by an earlier one: one IN (...) query.
+        Set<Long> reservedInBatch = records.stream()
+                .filter(r -> r.type() == LedgerRecord.Type.RESERVE)
+                .map(LedgerRecord::orderId)
+                .collect(Collectors.toSet());
+        Set<Long> releasedEarlier = records.stream()
+                .filter(r -> r.type() != LedgerRecord.Type.RESERVE && !reservedInBatch.contains(r.orderId()))
+                .map(LedgerRecord::orderId)
+                .collect(Collectors.toSet());
+
+        Map<Long, StockReservation> reservations = new HashMap<>();
+        if (!releasedEarlier.isEmpty()) {
+            stockReservationRepository.findAllByOrderIdIn(releasedEarlier)
+                    .forEach(r -> reservations.put(r.getOrderId(), r));
+        }
+
+        // productId -> {availableDelta, reservedDelta}, sorted to keep the row lock order stable.
+        Map<Long, int[]> deltas = new TreeMap<>();
+        for (LedgerRecord record : records) {
+            int sign = record.type() == LedgerRecord.Type.RESERVE ? 1 : -1;
+            for (LedgerRecord.Line line : record.lines()) {
+                int[] delta = deltas.computeIfAbsent(line.productId(), id -> new int[2]);
+                delta[0] -= sign * line.quantity();
+                delta[1] += sign * line.quantity();
+            }
+
+            if (record.type() == LedgerRecord.Type.RESERVE) {
+                // The deadline the expiry scheduler was given; records from older journals carry none.
+                Instant expiresAt = record.expiresAt() != null ? record.expiresAt() : expiryPolicy.expiresAt(Instant.now());
+                StockReservation reservation = new StockReservation(record.orderId(), expiresAt);
+                record.lines().forEach(line -> reservation.addItem(line.productId(), line.quantity()));
+                reservations.put(record.orderId(), stockReservationRepository.save(reservation));
+            } else {
+                StockReservation reservation = reservations.get(record.orderId());
+                if (reservation != null && record.type() == LedgerRecord.Type.EXPIRE) {
+                    reservation.expire();
+                } else if (reservation != null) {
+                    reservation.release();
+                }
+            }
+        }
+
+        deltas.forEach((productId, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) {
+                stockItemRepository.applyDelta(productId, delta[0], delta[1]);
+            }
+        });
+
+        StockLedgerCheckpoint checkpoint = checkpointRepository.findById(StockLedgerCheckpoint.SINGLETON_ID)
+                .orElseGet(() -> checkpointRepository.save(new StockLedgerCheckpoint(0L)));
+        checkpoint.advanceTo(records.get(records.size() - 1).seq());
+    }
+
+    public record Snapshot(List<StockItem> stock, Map<Long, List<LedgerRecord.Line>> reserved) {
+    }
+}
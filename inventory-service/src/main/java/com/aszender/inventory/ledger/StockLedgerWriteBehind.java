@@ -0,0 +1,140 @@
+package com.aszender.inventory.ledger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Drains journaled ledger records into the database in batches on a background thread.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.ledger.enabled", havingValue = "true")
+public class StockLedgerWriteBehind implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedgerWriteBehind.class);
+
+    private final StockLedgerPersister persister;
+    private final StockLedgerJournal journal;
+    private final long flushIntervalMillis;
+    private final int batchSize;
+
+    // Records are enqueued while holding the journal monitor, so the queue is in sequence order.
+    private final ConcurrentLinkedQueue<LedgerRecord> queue = new ConcurrentLinkedQueue<>();
+    private final List<LedgerRecord> failedBatch = new ArrayList<>();
+
+    private volatile ScheduledExecutorService scheduler;
+    private volatile Consumer<List<LedgerRecord>> persistedListener = records -> {
+    };
+
+    public StockLedgerWriteBehind(
+            StockLedgerPersister persister,
+            StockLedgerJournal journal,
+            @Value("${app.inventory.ledger.flush-interval-ms:50}") long flushIntervalMillis,
+            @Value("${app.inventory.ledger.flush-batch-size:500}") int batchSize
+    ) {
+        this.persister = persister;
+        this.journal = journal;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.batchSize = batchSize;
+    }
+
+    public void enqueue(LedgerRecord record) {
+        queue.add(record);
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Called on the flushing thread with every batch once it is committed.
+     */
+    public void onPersisted(Consumer<List<LedgerRecord>> listener) {
+        this.persistedListener = listener;
+    }
+
+    /**
+     * Persists everything queued so far. Runs on the scheduler thread; public for shutdown and tests.
+     */
+    public synchronized void flush() {
+        while (true) {
+            List<LedgerRecord> batch = new ArrayList<>(failedBatch);
+            failedBatch.clear();
+            LedgerRecord record;
+            while (batch.size() < batchSize && (record = queue.poll()) != null) {
+                batch.add(record);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                persister.persist(batch);
+            } catch (RuntimeException ex) {
+                // Keep the batch (it is also in the journal) and try again on the next tick.
+                log.error("Ledger write-behind failed for {} records, will retry", batch.size(), ex);
+                failedBatch.addAll(batch);
+                return;
+            }
+
+            journal.checkpoint(batch.get(batch.size() - 1).seq());
+            persistedListener.accept(batch);
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-ledger-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            current.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        flushQuietly();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    // Stops after the components that still write to the ledger (reservation expiry).
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.error("Ledger write-behind flush failed", ex);
+        }
+    }
+}
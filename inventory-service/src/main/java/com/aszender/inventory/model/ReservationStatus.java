@@ -2,5 +2,7 @@ package com.aszender.inventory.model;
 
 public enum ReservationStatus {
     RESERVED,
-    RELEASED
+    RELEASED,
+    // Released automatically because the hold was not confirmed or cancelled before expires_at.
+    EXPIRED
 }
@@ -0,0 +1,84 @@
+package com.aszender.inventory.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One slice of a hot product's stock. Reservations for a hot SKU pick a bucket instead of
+ * contending on the single {@link StockItem} row.
+ */
+@Entity
+@Table(name = "stock_buckets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_buckets_product_bucket", columnNames = {"product_id", "bucket_index"})
+})
+public class StockBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "bucket_index", nullable = false)
+    private int bucketIndex;
+
+    @Column(nullable = false)
+    private int available;
+
+    @Column(nullable = false)
+    private int reserved;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    protected StockBucket() {
+    }
+
+    public StockBucket(Long productId, int bucketIndex) {
+        this.productId = productId;
+        this.bucketIndex = bucketIndex;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getBucketIndex() {
+        return bucketIndex;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public int getReserved() {
+        return reserved;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setAvailable(int available) {
+        if (available < 0) {
+            throw new IllegalArgumentException("available must be >= 0");
+        }
+        this.available = available;
+    }
+
+    public void reserve(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be > 0");
+        }
+        if (available < quantity) {
+            throw new IllegalArgumentException("insufficient stock in bucket " + bucketIndex + " for productId=" + productId);
+        }
+        available -= quantity;
+        reserved += quantity;
+    }
+}
@@ -23,9 +23,21 @@ public class StockItem {
     @Column(nullable = false)
     private int reserved;
 
+    // > 1 when the product is a hot SKU whose available stock lives in stock_buckets.
+    @Column(name = "bucket_count", nullable = false)
+    private int bucketCount = 1;
+
+    // Per-product low-stock threshold; null falls back to app.inventory.low-stock-threshold.
+    @Column(name = "low_stock_threshold")
+    private Integer lowStockThreshold;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     protected StockItem() {
     }
 
@@ -51,10 +63,29 @@ public class StockItem {
         return reserved;
     }
 
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public Integer getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public void setLowStockThreshold(Integer lowStockThreshold) {
+        if (lowStockThreshold != null && lowStockThreshold < 0) {
+            throw new IllegalArgumentException("lowStockThreshold must be >= 0");
+        }
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public void reserve(int quantity) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("quantity must be > 0");
@@ -76,4 +107,23 @@ public class StockItem {
         reserved -= quantity;
         available += quantity;
     }
+
+    /**
+     * Moves all available stock out of this row (into buckets) and records the new bucket count.
+     */
+    public int drainAvailableToBuckets(int bucketCount) {
+        int drained = available;
+        available = 0;
+        this.bucketCount = bucketCount;
+        return drained;
+    }
+
+    /**
+     * Takes back stock from buckets that are being removed.
+     */
+    public void absorbBuckets(int available, int reserved, int bucketCount) {
+        this.available += available;
+        this.reserved += reserved;
+        this.bucketCount = bucketCount;
+    }
 }
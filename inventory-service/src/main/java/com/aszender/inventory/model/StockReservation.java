@@ -9,11 +9,15 @@ import java.util.List;
 @Entity
 @Table(name = "stock_reservations", uniqueConstraints = {
         @UniqueConstraint(name = "uk_stock_reservations_order_id", columnNames = "order_id")
+}, indexes = {
+        @Index(name = "idx_stock_reservations_status_expires_at", columnList = "status, expires_at")
 })
 public class StockReservation {
 
+    // Pooled sequence: ids are handed out in blocks, so inserts can be batched (IDENTITY cannot).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservations_seq")
+    @SequenceGenerator(name = "stock_reservations_seq", sequenceName = "stock_reservations_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_id", nullable = false)
@@ -26,15 +30,24 @@ public class StockReservation {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
+    // Null once confirmed (or when expiry is disabled): the hold is then kept until released.
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @OneToMany(mappedBy = "reservation", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<StockReservationItem> items = new ArrayList<>();
 
     protected StockReservation() {
     }
 
-    public StockReservation(Long orderId) {
+    public StockReservation(Long orderId, Instant expiresAt) {
         this.orderId = orderId;
         this.status = ReservationStatus.RESERVED;
+        this.expiresAt = expiresAt;
     }
 
     public Long getId() {
@@ -53,16 +66,36 @@ public class StockReservation {
         return createdAt;
     }
 
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
     public List<StockReservationItem> getItems() {
         return items;
     }
 
     public void addItem(Long productId, int quantity) {
-        StockReservationItem item = new StockReservationItem(this, productId, quantity);
+        addItem(productId, quantity, null);
+    }
+
+    public void addItem(Long productId, int quantity, Integer bucketIndex) {
+        StockReservationItem item = new StockReservationItem(this, productId, quantity, bucketIndex);
         this.items.add(item);
     }
 
     public void release() {
         this.status = ReservationStatus.RELEASED;
     }
+
+    public void expire() {
+        this.status = ReservationStatus.EXPIRED;
+    }
+
+    public void confirm() {
+        this.expiresAt = null;
+    }
 }
@@ -7,7 +7,8 @@ import jakarta.persistence.*;
 public class StockReservationItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_reservation_items_seq")
+    @SequenceGenerator(name = "stock_reservation_items_seq", sequenceName = "stock_reservation_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -20,13 +21,22 @@ public class StockReservationItem {
     @Column(nullable = false)
     private int quantity;
 
+    // Set when the quantity was taken from a hot-SKU bucket, so release returns it to the same bucket.
+    @Column(name = "bucket_index")
+    private Integer bucketIndex;
+
     protected StockReservationItem() {
     }
 
     public StockReservationItem(StockReservation reservation, Long productId, int quantity) {
+        this(reservation, productId, quantity, null);
+    }
+
+    public StockReservationItem(StockReservation reservation, Long productId, int quantity, Integer bucketIndex) {
         this.reservation = reservation;
         this.productId = productId;
         this.quantity = quantity;
+        this.bucketIndex = bucketIndex;
     }
 
     public Long getId() {
@@ -44,4 +54,8 @@ public class StockReservationItem {
     public int getQuantity() {
         return quantity;
     }
+
+    public Integer getBucketIndex() {
+        return bucketIndex;
+    }
 }
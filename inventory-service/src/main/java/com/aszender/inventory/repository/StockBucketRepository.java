@@ -0,0 +1,61 @@
+package com.aszender.inventory.repository;
+
+import com.aszender.inventory.model.StockBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface StockBucketRepository extends JpaRepository<StockBucket, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from StockBucket b where b.productId = :productId order by b.bucketIndex")
+    List<StockBucket> findAllByProductIdForUpdate(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("""
+            update StockBucket b
+               set b.available = b.available - :quantity, b.reserved = b.reserved + :quantity,
+                   b.version = b.version + 1
+             where b.productId = :productId and b.bucketIndex = :bucketIndex and b.available >= :quantity
+            """)
+    int reserveIfAvailable(
+            @Param("productId") Long productId,
+            @Param("bucketIndex") int bucketIndex,
+            @Param("quantity") int quantity
+    );
+
+    @Modifying
+    @Query("""
+            update StockBucket b
+               set b.available = b.available + :quantity, b.reserved = b.reserved - :quantity,
+                   b.version = b.version + 1
+             where b.productId = :productId and b.bucketIndex = :bucketIndex and b.reserved >= :quantity
+            """)
+    int releaseIfReserved(
+            @Param("productId") Long productId,
+            @Param("bucketIndex") int bucketIndex,
+            @Param("quantity") int quantity
+    );
+
+    @Query("""
+            select b.productId as productId, sum(b.available) as available, sum(b.reserved) as reserved
+              from StockBucket b
+             where b.productId in :productIds
+             group by b.productId
+            """)
+    List<BucketTotals> sumByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    interface BucketTotals {
+        Long getProductId();
+
+        long getAvailable();
+
+        long getReserved();
+    }
+}
@@ -1,10 +1,62 @@
 package com.aszender.inventory.repository;
 
 import com.aszender.inventory.model.StockItem;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface StockItemRepository extends JpaRepository<StockItem, Long> {
     Optional<StockItem> findByProductId(Long productId);
+
+    // Loads every row of an order in one IN (...) query. Rows are locked in productId order so two
+    // concurrent orders touching the same products always queue on the same first row (no deadlock).
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from StockItem s where s.productId in :productIds order by s.productId")
+    List<StockItem> findAllByProductIdInForUpdate(@Param("productIds") Collection<Long> productIds);
+
+    List<StockItem> findAllByBucketCountGreaterThan(int bucketCount);
+
+    @Query("select s.bucketCount from StockItem s where s.productId = :productId")
+    Optional<Integer> findBucketCountByProductId(@Param("productId") Long productId);
+
+    // Same set-based load without row locks; conflicting writers are detected by @Version instead.
+    List<StockItem> findAllByProductIdInOrderByProductId(Collection<Long> productIds);
+
+    // Guarded decrement: returns 0 (and changes nothing) when the row is missing or short on stock.
+    @Modifying
+    @Query("""
+            update StockItem s
+               set s.available = s.available - :quantity, s.reserved = s.reserved + :quantity,
+                   s.version = s.version + 1
+             where s.productId = :productId and s.available >= :quantity
+            """)
+    int reserveIfAvailable(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("""
+            update StockItem s
+               set s.available = s.available + :quantity, s.reserved = s.reserved - :quantity,
+                   s.version = s.version + 1
+             where s.productId = :productId and s.reserved >= :quantity
+            """)
+    int releaseIfReserved(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    // Net change of a write-behind batch (stock ledger); the ledger already validated the totals.
+    @Modifying
+    @Query("""
+            update StockItem s
+               set s.available = s.available + :availableDelta, s.reserved = s.reserved + :reservedDelta,
+                   s.version = s.version + 1
+             where s.productId = :productId
+            """)
+    int applyDelta(@Param("productId") Long productId,
+                   @Param("availableDelta") int availableDelta,
+                   @Param("reservedDelta") int reservedDelta);
 }
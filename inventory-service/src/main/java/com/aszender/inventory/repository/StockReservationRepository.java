@@ -1,10 +1,58 @@
 package com.aszender.inventory.repository;
 
+import com.aszender.inventory.model.ReservationStatus;
 import com.aszender.inventory.model.StockReservation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
     Optional<StockReservation> findByOrderId(Long orderId);
+
+    List<StockReservation> findAllByOrderIdIn(Collection<Long> orderIds);
+
+    @Query("select distinct r from StockReservation r left join fetch r.items where r.status = :status")
+    List<StockReservation> findAllWithItemsByStatus(@Param("status") ReservationStatus status);
+
+    @Query("""
+            select distinct r from StockReservation r left join fetch r.items
+             where r.orderId in :orderIds and r.status = :status
+            """)
+    List<StockReservation> findAllWithItemsByOrderIdInAndStatus(
+            @Param("orderIds") Collection<Long> orderIds,
+            @Param("status") ReservationStatus status
+    );
+
+    boolean existsByOrderId(Long orderId);
+
+    // Orders whose hold ended, for the stock ledger's filter of evicted orders.
+    @Query("select r.orderId from StockReservation r where r.status <> com.aszender.inventory.model.ReservationStatus.RESERVED")
+    Stream<Long> streamEndedOrderIds();
+
+    // Pending deadlines for the expiry scheduler; served by idx_stock_reservations_status_expires_at.
+    @Query("""
+            select r.orderId as orderId, r.expiresAt as expiresAt from StockReservation r
+             where r.status = com.aszender.inventory.model.ReservationStatus.RESERVED and r.expiresAt is not null
+            """)
+    List<ExpiryDeadline> findPendingExpiryDeadlines();
+
+    @Query("""
+            select distinct r from StockReservation r left join fetch r.items
+             where r.orderId in :orderIds
+               and r.status = com.aszender.inventory.model.ReservationStatus.RESERVED
+               and r.expiresAt <= :now
+            """)
+    List<StockReservation> findAllExpiredWithItems(@Param("orderIds") Collection<Long> orderIds, @Param("now") Instant now);
+
+    interface ExpiryDeadline {
+        Long getOrderId();
+
+        Instant getExpiresAt();
+    }
 }
@@ -0,0 +1,64 @@
+package com.aszender.inventory.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process counters of optimistic-locking conflicts, retries and give-ups per productId,
+ * so contended SKUs are visible without digging through logs.
+ */
+@Component
+public class InventoryContentionMetrics {
+
+    private final Map<Long, Counters> byProductId = new ConcurrentHashMap<>();
+    private final Counters total = new Counters();
+
+    public void recordConflict(Collection<Long> productIds) {
+        total.conflicts.increment();
+        productIds.forEach(productId -> counters(productId).conflicts.increment());
+    }
+
+    public void recordRetry(Collection<Long> productIds) {
+        total.retries.increment();
+        productIds.forEach(productId -> counters(productId).retries.increment());
+    }
+
+    public void recordGiveUp(Collection<Long> productIds) {
+        total.giveUps.increment();
+        productIds.forEach(productId -> counters(productId).giveUps.increment());
+    }
+
+    public Snapshot snapshot() {
+        List<ProductContention> products = byProductId.entrySet().stream()
+                .map(e -> e.getValue().toProductContention(e.getKey()))
+                .sorted(Comparator.comparingLong(ProductContention::conflicts).reversed())
+                .toList();
+        return new Snapshot(total.conflicts.sum(), total.retries.sum(), total.giveUps.sum(), products);
+    }
+
+    private Counters counters(Long productId) {
+        return byProductId.computeIfAbsent(productId, id -> new Counters());
+    }
+
+    private static final class Counters {
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder giveUps = new LongAdder();
+
+        private ProductContention toProductContention(Long productId) {
+            return new ProductContention(productId, conflicts.sum(), retries.sum(), giveUps.sum());
+        }
+    }
+
+    public record ProductContention(Long productId, long conflicts, long retries, long giveUps) {
+    }
+
+    public record Snapshot(long conflicts, long retries, long giveUps, List<ProductContention> products) {
+    }
+}
@@ -2,36 +2,57 @@ package com.aszender.inventory.service;
 
 import com.aszender.inventory.kafka.events.LowStockEvent;
 import com.aszender.inventory.kafka.events.OrderItemEvent;
+import com.aszender.inventory.kafka.events.StockReleasedEvent;
 import com.aszender.inventory.kafka.events.StockReservationFailedEvent;
 import com.aszender.inventory.kafka.events.StockReservedEvent;
 import com.aszender.inventory.kafka.publish.StockEventsPublisher;
-import com.aszender.inventory.repository.StockItemRepository;
-import org.springframework.beans.factory.annotation.Value;
+import com.aszender.inventory.ledger.StockLedger;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 @Service
 public class InventoryReservationOrchestrator {
 
     private final InventoryService inventoryService;
-    private final StockItemRepository stockItemRepository;
     private final StockEventsPublisher stockEventsPublisher;
-    private final int lowStockThreshold;
+    private final ReservationRetryExecutor retryExecutor;
+    private final Optional<StockLedger> stockLedger;
+    private final Optional<ReservationBatcher> reservationBatcher;
+    private final ReservationExpiryScheduler expiryScheduler;
+    private final ReservationExpiryPolicy expiryPolicy;
+    private final StockBucketService stockBucketService;
+    private final TransactionTemplate transactionTemplate;
 
     public InventoryReservationOrchestrator(
             InventoryService inventoryService,
-            StockItemRepository stockItemRepository,
             StockEventsPublisher stockEventsPublisher,
-            @Value("${app.inventory.low-stock-threshold:5}") int lowStockThreshold
+            ReservationRetryExecutor retryExecutor,
+            Optional<StockLedger> stockLedger,
+            Optional<ReservationBatcher> reservationBatcher,
+            ReservationExpiryScheduler expiryScheduler,
+            ReservationExpiryPolicy expiryPolicy,
+            StockBucketService stockBucketService,
+            PlatformTransactionManager transactionManager
     ) {
         this.inventoryService = inventoryService;
-        this.stockItemRepository = stockItemRepository;
         this.stockEventsPublisher = stockEventsPublisher;
-        this.lowStockThreshold = lowStockThreshold;
+        this.retryExecutor = retryExecutor;
+        this.stockLedger = stockLedger;
+        this.reservationBatcher = reservationBatcher;
+        this.expiryScheduler = expiryScheduler;
+        this.expiryPolicy = expiryPolicy;
+        this.stockBucketService = stockBucketService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public record ReserveLine(Long productId, int quantity) {
@@ -40,47 +61,151 @@ public class InventoryReservationOrchestrator {
     public record ReserveResult(boolean reserved, String reason) {
     }
 
+    /**
+     * Events of a successful reservation (or release) are written in the same transaction as the
+     * stock change, so with the outbox publisher they are never lost or sent for a rolled-back change.
+     */
     public ReserveResult reserve(Long orderId, List<ReserveLine> items) {
-        boolean reserved = inventoryService.reserveStock(
-                orderId,
-                items.stream()
+        List<InventoryService.ReservationLine> lines = items.stream()
+                .map(i -> new InventoryService.ReservationLine(i.productId(), i.quantity()))
+                .toList();
+        List<Long> productIds = items.stream().map(ReserveLine::productId).distinct().toList();
+        Consumer<InventoryService.ReservationOutcome> publishReserved = outcome -> publishReserved(orderId, items, outcome);
+
+        if (stockLedger.isPresent()) {
+            // The ledger decides outside the database; its events follow in a transaction of their own.
+            // The deadline is fixed before the decision and journaled with it.
+            Instant expiresAt = expiryPolicy.expiresAt(Instant.now());
+            InventoryService.ReservationOutcome outcome = reserveInLedger(stockLedger.get(), orderId, lines, expiresAt);
+            if (outcome.reserved()) {
+                transactionTemplate.executeWithoutResult(status -> publishReserved.accept(outcome));
+            }
+            return finish(orderId, outcome, expiresAt);
+        }
+
+        InventoryService.ReservationOutcome outcome;
+        if (reservationBatcher.isPresent() && reservationBatcher.get().canBatch(productIds)) {
+            InventoryService.ReservationOutcome batched = reservationBatcher.get().reserve(orderId, lines, publishReserved);
+            // null: a product turned out to be hot
+            outcome = batched != null ? batched : reserveInDatabase(orderId, lines, items);
+        } else {
+            outcome = reserveInDatabase(orderId, lines, items);
+        }
+
+        // After the commit, so the deadline is never before the row's expires_at.
+        return finish(orderId, outcome, expiryPolicy.expiresAt(Instant.now()));
+    }
+
+    public record BatchOrder(Long orderId, List<ReserveLine> items) {
+    }
+
+    /**
+     * Reserves many orders in one pass: their stock rows are loaded once and the orders are decided
+     * in the given order within one transaction, together with their events (see
+     * {@link InventoryService#reserveStockBatch}). Orders touching hot SKUs are reserved one by one.
+     *
+     * @return the result per order, in request order
+     */
+    public List<ReserveResult> reserveBatch(List<BatchOrder> orders) {
+        List<InventoryService.BatchedReservation> requests = orders.stream()
+                .map(order -> new InventoryService.BatchedReservation(order.orderId(), order.items().stream()
                         .map(i -> new InventoryService.ReservationLine(i.productId(), i.quantity()))
-                        .toList()
-        );
-
-        if (reserved) {
-            stockEventsPublisher.publishStockReserved(new StockReservedEvent(
-                    orderId,
-                    Instant.now().toString(),
-                    items.stream()
-                            .map(i -> new OrderItemEvent(i.productId(), i.quantity()))
-                            .toList()
-            ));
+                        .toList()))
+                .toList();
 
-            // Low-stock event (only when crossing the threshold).
-            Map<Long, Integer> reservedQtyByProductId = items.stream()
-                    .collect(Collectors.groupingBy(ReserveLine::productId, Collectors.summingInt(ReserveLine::quantity)));
-
-            for (Map.Entry<Long, Integer> entry : reservedQtyByProductId.entrySet()) {
-                Long productId = entry.getKey();
-                int reservedQty = entry.getValue();
-
-                stockItemRepository.findByProductId(productId).ifPresent(stockItem -> {
-                    int availableAfter = stockItem.getAvailable();
-                    int availableBefore = availableAfter + reservedQty;
-
-                    boolean crossedToLow = availableBefore > lowStockThreshold && availableAfter <= lowStockThreshold;
-                    if (crossedToLow) {
-                        stockEventsPublisher.publishLowStock(new LowStockEvent(
-                                productId,
-                                availableAfter,
-                                lowStockThreshold,
-                                Instant.now().toString()
-                        ));
+        List<InventoryService.ReservationOutcome> outcomes;
+        Instant expiresAt = null;
+        if (stockLedger.isPresent()) {
+            Instant ledgerExpiresAt = expiryPolicy.expiresAt(Instant.now());
+            expiresAt = ledgerExpiresAt;
+            outcomes = requests.stream()
+                    .map(request -> reserveInLedger(stockLedger.get(), request.orderId(), request.lines(), ledgerExpiresAt))
+                    .toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < orders.size(); i++) {
+                    if (outcomes.get(i).reserved()) {
+                        publishReserved(orders.get(i).orderId(), orders.get(i).items(), outcomes.get(i));
                     }
-                });
+                }
+            });
+        } else {
+            outcomes = reserveBatchInDatabase(orders, requests);
+            expiresAt = expiryPolicy.expiresAt(Instant.now());
+        }
+
+        List<ReserveResult> results = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            results.add(finish(orders.get(i).orderId(), outcomes.get(i), expiresAt));
+        }
+        return results;
+    }
+
+    private List<InventoryService.ReservationOutcome> reserveBatchInDatabase(
+            List<BatchOrder> orders,
+            List<InventoryService.BatchedReservation> requests
+    ) {
+        InventoryService.ReservationOutcome[] outcomes = new InventoryService.ReservationOutcome[orders.size()];
+        List<Integer> batchable = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            BatchOrder order = orders.get(i);
+            boolean hot = order.items().stream().map(ReserveLine::productId).anyMatch(stockBucketService::isHot);
+            if (hot) {
+                outcomes[i] = reserveInDatabase(order.orderId(), requests.get(i).lines(), order.items());
+            } else {
+                batchable.add(i);
+            }
+        }
+        if (batchable.isEmpty()) {
+            return List.of(outcomes);
+        }
+
+        List<InventoryService.BatchedReservation> batch = batchable.stream().map(requests::get).toList();
+        List<Long> productIds = batch.stream()
+                .flatMap(r -> r.lines().stream())
+                .map(InventoryService.ReservationLine::productId)
+                .distinct()
+                .toList();
+        List<InventoryService.ReservationOutcome> batchOutcomes = retryExecutor.execute(productIds, () -> transactionTemplate.execute(status -> {
+            List<InventoryService.ReservationOutcome> result = inventoryService.reserveStockBatch(batch);
+            for (int j = 0; j < batch.size(); j++) {
+                if (result.get(j) != null && result.get(j).reserved()) {
+                    BatchOrder order = orders.get(batchable.get(j));
+                    publishReserved(order.orderId(), order.items(), result.get(j));
+                }
             }
+            return result;
+        }));
+        for (int j = 0; j < batchable.size(); j++) {
+            int i = batchable.get(j);
+            // Undecided: one of its products turned out to be hot.
+            outcomes[i] = batchOutcomes.get(j) != null
+                    ? batchOutcomes.get(j)
+                    : reserveInDatabase(orders.get(i).orderId(), requests.get(i).lines(), orders.get(i).items());
+        }
+        return List.of(outcomes);
+    }
+
+    private InventoryService.ReservationOutcome reserveInDatabase(
+            Long orderId,
+            List<InventoryService.ReservationLine> lines,
+            List<ReserveLine> items
+    ) {
+        List<Long> productIds = items.stream().map(ReserveLine::productId).distinct().toList();
+        return retryExecutor.execute(productIds, () -> transactionTemplate.execute(status -> {
+            InventoryService.ReservationOutcome result = inventoryService.reserveStock(orderId, lines);
+            if (result.reserved()) {
+                publishReserved(orderId, items, result);
+            } else {
+                status.setRollbackOnly(); // the reservation already asked for it; roll back without UnexpectedRollbackException
+            }
+            return result;
+        }));
+    }
 
+    // Schedules the expiry of a new hold, or reports the failed reservation.
+    private ReserveResult finish(Long orderId, InventoryService.ReservationOutcome outcome, Instant expiresAt) {
+        if (outcome.reserved()) {
+            expiryScheduler.schedule(orderId, expiresAt);
             return new ReserveResult(true, null);
         }
 
@@ -92,4 +217,110 @@ public class InventoryReservationOrchestrator {
 
         return new ReserveResult(false, "INSUFFICIENT_STOCK");
     }
+
+    public boolean release(Long orderId) {
+        if (orderId == null) {
+            throw new IllegalArgumentException("orderId is required");
+        }
+        if (stockLedger.isPresent()) {
+            boolean released = stockLedger.get().release(orderId);
+            if (released) {
+                publishReleased(orderId);
+            }
+            return released;
+        }
+        return retryExecutor.execute(List.of(), () -> transactionTemplate.execute(status -> {
+            boolean released = inventoryService.releaseReservation(orderId);
+            if (released) {
+                publishReleased(orderId);
+            }
+            return released;
+        }));
+    }
+
+    /**
+     * Releases many orders at once (batch consumption of cancellations): one transaction for all
+     * the stock changes and their events.
+     *
+     * @return the orderIds whose hold was released
+     */
+    public List<Long> releaseAll(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        if (stockLedger.isPresent()) {
+            List<Long> released = orderIds.stream().filter(stockLedger.get()::release).toList();
+            transactionTemplate.executeWithoutResult(status -> released.forEach(this::publishReleased));
+            return released;
+        }
+        return retryExecutor.execute(List.of(), () -> transactionTemplate.execute(status -> {
+            List<Long> released = inventoryService.releaseReservations(orderIds);
+            released.forEach(this::publishReleased);
+            return released;
+        }));
+    }
+
+    private void publishReserved(Long orderId, List<ReserveLine> items, InventoryService.ReservationOutcome outcome) {
+        stockEventsPublisher.publishStockReserved(new StockReservedEvent(
+                orderId,
+                Instant.now().toString(),
+                items.stream()
+                        .map(i -> new OrderItemEvent(i.productId(), i.quantity()))
+                        .toList()
+        ));
+
+        // Low-stock events: crossings were detected by the reservation itself, against the rows it held.
+        for (LowStockDetector.LowStockCrossing crossing : outcome.lowStockCrossings()) {
+            stockEventsPublisher.publishLowStock(new LowStockEvent(
+                    crossing.productId(),
+                    crossing.availableAfter(),
+                    crossing.threshold(),
+                    Instant.now().toString()
+            ));
+        }
+    }
+
+    private void publishReleased(Long orderId) {
+        stockEventsPublisher.publishStockReleased(new StockReleasedEvent(orderId, Instant.now().toString()));
+    }
+
+    private static InventoryService.ReservationOutcome reserveInLedger(
+            StockLedger ledger,
+            Long orderId,
+            List<InventoryService.ReservationLine> lines,
+            Instant expiresAt
+    ) {
+        if (orderId == null) {
+            throw new IllegalArgumentException("orderId is required");
+        }
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("order lines are required");
+        }
+        Map<Long, Integer> quantityByProductId = new TreeMap<>();
+        lines.forEach(line -> quantityByProductId.merge(line.productId(), line.quantity(), Integer::sum));
+        return ledger.reserve(orderId, quantityByProductId, expiresAt);
+    }
+
+    /**
+     * Keeps the hold of a confirmed order until it is released, instead of letting it expire.
+     */
+    public boolean confirm(Long orderId) {
+        if (orderId == null) {
+            throw new IllegalArgumentException("orderId is required");
+        }
+        stockLedger.ifPresent(StockLedger::awaitPersisted);
+        return inventoryService.confirmReservation(orderId);
+    }
+
+    /**
+     * @param threshold null falls back to app.inventory.low-stock-threshold
+     * @return false if the product has no stock row
+     */
+    public boolean changeLowStockThreshold(Long productId, Integer threshold) {
+        boolean changed = inventoryService.changeLowStockThreshold(productId, threshold);
+        if (changed) {
+            stockLedger.ifPresent(ledger -> ledger.changeLowStockThreshold(productId, threshold));
+        }
+        return changed;
+    }
 }
@@ -3,30 +3,53 @@ package com.aszender.inventory.service;
 import com.aszender.inventory.model.ReservationStatus;
 import com.aszender.inventory.model.StockItem;
 import com.aszender.inventory.model.StockReservation;
+import com.aszender.inventory.model.StockReservationItem;
 import com.aszender.inventory.repository.StockItemRepository;
 import com.aszender.inventory.repository.StockReservationRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 @Service
 public class InventoryService {
 
     private final StockItemRepository stockItemRepository;
     private final StockReservationRepository stockReservationRepository;
+    private final StockBucketService stockBucketService;
+    private final ReservationExpiryPolicy expiryPolicy;
+    private final LowStockDetector lowStockDetector;
 
     private final int defaultStock;
+    private final ReservationMode reservationMode;
 
     public InventoryService(
             StockItemRepository stockItemRepository,
             StockReservationRepository stockReservationRepository,
-            @Value("${app.inventory.default-stock:100}") int defaultStock
+            StockBucketService stockBucketService,
+            ReservationExpiryPolicy expiryPolicy,
+            LowStockDetector lowStockDetector,
+            @Value("${app.inventory.default-stock:100}") int defaultStock,
+            @Value("${app.inventory.reservation-mode:LOCKING}") ReservationMode reservationMode
     ) {
         this.stockItemRepository = stockItemRepository;
         this.stockReservationRepository = stockReservationRepository;
+        this.stockBucketService = stockBucketService;
+        this.expiryPolicy = expiryPolicy;
+        this.lowStockDetector = lowStockDetector;
         this.defaultStock = defaultStock;
+        this.reservationMode = reservationMode;
     }
 
     @Transactional
@@ -35,8 +58,22 @@ public class InventoryService {
                 .orElseGet(() -> stockItemRepository.save(new StockItem(productId, defaultStock)));
     }
 
+    /**
+     * Creates the missing stock rows of many products in one transaction.
+     */
     @Transactional
-    public boolean reserveStock(Long orderId, java.util.List<ReservationLine> lines) {
+    public void ensureStockItemsExist(Collection<Long> productIds) {
+        Set<Long> missing = new TreeSet<>(productIds);
+        stockItemRepository.findAllByProductIdInOrderByProductId(missing)
+                .forEach(item -> missing.remove(item.getProductId()));
+        stockItemRepository.saveAll(missing.stream().map(productId -> new StockItem(productId, defaultStock)).toList());
+    }
+
+    /**
+     * @return whether the order holds its stock, plus the low-stock thresholds this reservation crossed
+     */
+    @Transactional
+    public ReservationOutcome reserveStock(Long orderId, List<ReservationLine> lines) {
         if (orderId == null) {
             throw new IllegalArgumentException("orderId is required");
         }
@@ -46,33 +83,53 @@ public class InventoryService {
 
         Optional<StockReservation> existing = stockReservationRepository.findByOrderId(orderId);
         if (existing.isPresent()) {
-            // Idempotency: if already reserved, treat as success; if released, do not re-reserve.
-            return existing.get().getStatus() == ReservationStatus.RESERVED;
+            // Idempotency: if already reserved, treat as success; if released or expired, do not re-reserve.
+            return existing.get().getStatus() == ReservationStatus.RESERVED
+                    ? ReservationOutcome.reserved(List.of())
+                    : ReservationOutcome.REJECTED;
         }
 
-        // Validate all stock exists and is sufficient BEFORE mutating.
-        for (ReservationLine line : lines) {
-            StockItem stockItem = stockItemRepository.findByProductId(line.productId())
-                    .orElse(null);
-            if (stockItem == null) {
-                return false;
+        // Hot SKUs (see StockBucketService) are reserved from their buckets; the rest use the configured mode.
+        // Products that turn out to be hot on their stock row move over to the buckets.
+        Map<Long, Integer> requestedByProductId = new TreeMap<>();
+        Map<Long, Integer> hotRequestedByProductId = new TreeMap<>();
+        sumByProductId(lines).forEach((productId, quantity) ->
+                (stockBucketService.isHot(productId) ? hotRequestedByProductId : requestedByProductId).put(productId, quantity));
+
+        List<LowStockDetector.LowStockCrossing> crossings = new ArrayList<>();
+        boolean applied = requestedByProductId.isEmpty() || switch (reservationMode) {
+            case LOCKING, OPTIMISTIC -> reserveWithLoadedRows(requestedByProductId, hotRequestedByProductId, crossings);
+            case GUARDED_UPDATE -> reserveWithGuardedUpdates(requestedByProductId, hotRequestedByProductId, crossings);
+        };
+        if (!applied) {
+            return reject();
+        }
+
+        StockReservation reservation = new StockReservation(orderId, expiryPolicy.expiresAt(Instant.now()));
+        for (Map.Entry<Long, Integer> entry : hotRequestedByProductId.entrySet()) {
+            List<StockBucketService.BucketAllocation> allocations = stockBucketService.reserve(entry.getKey(), entry.getValue());
+            if (allocations.isEmpty()) {
+                return reject();
             }
-            if (stockItem.getAvailable() < line.quantity()) {
-                return false;
+            allocations.forEach(a -> reservation.addItem(entry.getKey(), a.quantity(), a.bucketIndex()));
+        }
+        if (!hotRequestedByProductId.isEmpty()) {
+            // Buckets are not locked together, so for hot SKUs the "before" is derived from the
+            // aggregated total read after our allocation (best effort under concurrency).
+            for (StockBucketService.StockLevel level : stockBucketService.findStockLevels(hotRequestedByProductId.keySet())) {
+                int after = level.available();
+                lowStockDetector.check(crossings, level.productId(), after + hotRequestedByProductId.get(level.productId()),
+                        after, level.lowStockThreshold());
             }
         }
-
-        // Apply reservations
-        StockReservation reservation = new StockReservation(orderId);
         for (ReservationLine line : lines) {
-            StockItem stockItem = stockItemRepository.findByProductId(line.productId())
-                    .orElseThrow();
-            stockItem.reserve(line.quantity());
-            reservation.addItem(line.productId(), line.quantity());
+            if (!hotRequestedByProductId.containsKey(line.productId())) {
+                reservation.addItem(line.productId(), line.quantity());
+            }
         }
 
         stockReservationRepository.save(reservation);
-        return true;
+        return ReservationOutcome.reserved(crossings);
     }
 
     @Transactional
@@ -87,20 +144,283 @@ public class InventoryService {
             return false;
         }
 
-        if (reservation.getStatus() == ReservationStatus.RELEASED) {
-            return true;
+        if (reservation.getStatus() != ReservationStatus.RESERVED) {
+            return true; // already released or expired
+        }
+
+        returnStock(List.of(reservation));
+        reservation.release();
+        return true;
+    }
+
+    /**
+     * Releases the holds of many orders in one transaction. Unlike {@link #releaseReservation},
+     * holds that had already ended are not reported.
+     *
+     * @return the orderIds whose hold this call released
+     */
+    @Transactional
+    public List<Long> releaseReservations(Collection<Long> orderIds) {
+        List<StockReservation> reserved = stockReservationRepository.findAllWithItemsByOrderIdInAndStatus(orderIds, ReservationStatus.RESERVED);
+        if (reserved.isEmpty()) {
+            return List.of();
         }
+        returnStock(reserved);
+        reserved.forEach(StockReservation::release);
+        return reserved.stream().map(StockReservation::getOrderId).toList();
+    }
 
-        reservation.getItems().forEach(item -> {
-            StockItem stockItem = stockItemRepository.findByProductId(item.getProductId())
-                    .orElseThrow();
-            stockItem.releaseReserved(item.getQuantity());
+    /**
+     * Releases the given holds that are still RESERVED and past their expires_at, in one transaction.
+     *
+     * @return the orderIds that were expired
+     */
+    @Transactional
+    public List<Long> expireReservations(Collection<Long> orderIds, Instant now) {
+        List<StockReservation> expired = stockReservationRepository.findAllExpiredWithItems(orderIds, now);
+        if (expired.isEmpty()) {
+            return List.of();
+        }
+        returnStock(expired);
+        expired.forEach(StockReservation::expire);
+        return expired.stream().map(StockReservation::getOrderId).toList();
+    }
+
+    /**
+     * Same selection as {@link #expireReservations} without changing anything (the stock ledger
+     * applies the release itself).
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findExpiredReservations(Collection<Long> orderIds, Instant now) {
+        return stockReservationRepository.findAllExpiredWithItems(orderIds, now).stream()
+                .map(StockReservation::getOrderId)
+                .toList();
+    }
+
+    /**
+     * Keeps the hold until it is released explicitly.
+     *
+     * @return false if the order has no active reservation
+     */
+    @Transactional
+    public boolean confirmReservation(Long orderId) {
+        return stockReservationRepository.findByOrderId(orderId)
+                .filter(reservation -> reservation.getStatus() == ReservationStatus.RESERVED)
+                .map(reservation -> {
+                    reservation.confirm();
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    // Gives the reserved quantities of the reservations back: bucket items to their bucket, the rest to the item rows.
+    private void returnStock(List<StockReservation> reservations) {
+        Map<Long, Integer> releasedByProductId = new TreeMap<>();
+        for (StockReservation reservation : reservations) {
+            for (StockReservationItem item : reservation.getItems()) {
+                boolean releasedToBucket = item.getBucketIndex() != null
+                        && stockBucketService.release(item.getProductId(), item.getBucketIndex(), item.getQuantity());
+                if (!releasedToBucket) {
+                    releasedByProductId.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+                }
+            }
+        }
+
+        if (reservationMode == ReservationMode.GUARDED_UPDATE) {
+            releasedByProductId.forEach((productId, quantity) -> {
+                if (stockItemRepository.releaseIfReserved(productId, quantity) == 0) {
+                    throw new IllegalStateException("cannot release more than reserved for productId=" + productId);
+                }
+            });
+        } else {
+            Map<Long, StockItem> stockByProductId = loadStockItems(releasedByProductId.keySet());
+            releasedByProductId.forEach((productId, quantity) -> {
+                StockItem stockItem = stockByProductId.get(productId);
+                if (stockItem == null) {
+                    throw new IllegalStateException("stock item missing for productId=" + productId);
+                }
+                stockItem.releaseReserved(quantity);
+            });
+        }
+    }
+
+    /**
+     * Reserves several orders in one transaction (group commit, see {@link ReservationBatcher}).
+     * Stock for all of them is loaded with one query and the orders are evaluated one after the
+     * other in memory, in the given order. Orders touching hot SKUs must use {@link #reserveStock}.
+     *
+     * @return the outcome per request, in request order; null for an order left undecided because
+     * one of its products turned out to be hot (switched by another instance), to be reserved with
+     * {@link #reserveStock} after this transaction
+     */
+    @Transactional
+    public List<ReservationOutcome> reserveStockBatch(List<BatchedReservation> requests) {
+        Map<Long, StockReservation> existingByOrderId = new HashMap<>();
+        stockReservationRepository.findAllByOrderIdIn(requests.stream().map(BatchedReservation::orderId).toList())
+                .forEach(r -> existingByOrderId.put(r.getOrderId(), r));
+
+        Map<Long, Map<Long, Integer>> requestedByOrder = new HashMap<>();
+        Set<Long> productIds = new TreeSet<>();
+        for (BatchedReservation request : requests) {
+            Map<Long, Integer> requested = sumByProductId(request.lines());
+            requestedByOrder.putIfAbsent(request.orderId(), requested);
+            productIds.addAll(requested.keySet());
+        }
+        Map<Long, StockItem> stockByProductId = loadStockItems(productIds);
+        Set<Long> hotProductIds = new TreeSet<>();
+        stockByProductId.values().forEach(item -> {
+            stockBucketService.refresh(item.getProductId(), item.getBucketCount());
+            if (item.getBucketCount() > 1) {
+                hotProductIds.add(item.getProductId());
+            }
         });
 
-        reservation.release();
+        Instant expiresAt = expiryPolicy.expiresAt(Instant.now());
+        Map<Long, ReservationOutcome> outcomeByOrderId = new HashMap<>();
+        List<StockReservation> created = new ArrayList<>();
+        List<ReservationOutcome> outcomes = new ArrayList<>(requests.size());
+        for (BatchedReservation request : requests) {
+            ReservationOutcome outcome = outcomeByOrderId.get(request.orderId());
+            boolean touchesHot = requestedByOrder.get(request.orderId()).keySet().stream().anyMatch(hotProductIds::contains);
+            if (outcome == null && touchesHot && !existingByOrderId.containsKey(request.orderId())) {
+                outcomes.add(null);
+                continue;
+            }
+            if (outcome == null) {
+                StockReservation existing = existingByOrderId.get(request.orderId());
+                if (existing != null) {
+                    outcome = existing.getStatus() == ReservationStatus.RESERVED
+                            ? ReservationOutcome.reserved(List.of())
+                            : ReservationOutcome.REJECTED;
+                } else {
+                    List<LowStockDetector.LowStockCrossing> crossings = new ArrayList<>();
+                    boolean applied = applyToLoadedRows(stockByProductId, requestedByOrder.get(request.orderId()), crossings);
+                    outcome = applied ? ReservationOutcome.reserved(crossings) : ReservationOutcome.REJECTED;
+                    if (applied) {
+                        StockReservation reservation = new StockReservation(request.orderId(), expiresAt);
+                        request.lines().forEach(line -> reservation.addItem(line.productId(), line.quantity()));
+                        created.add(reservation);
+                    }
+                }
+                outcomeByOrderId.put(request.orderId(), outcome.reserved() ? ReservationOutcome.reserved(List.of()) : outcome);
+            }
+            outcomes.add(outcome);
+        }
+
+        stockReservationRepository.saveAll(created);
+        return outcomes;
+    }
+
+    private boolean reserveWithLoadedRows(
+            Map<Long, Integer> requestedByProductId,
+            Map<Long, Integer> hotRequestedByProductId,
+            List<LowStockDetector.LowStockCrossing> crossings
+    ) {
+        // One IN (...) query for every product of the order, in productId order.
+        Map<Long, StockItem> stockByProductId = loadStockItems(requestedByProductId.keySet());
+        for (StockItem stockItem : stockByProductId.values()) {
+            if (stockItem.getBucketCount() > 1) {
+                moveToBuckets(stockItem.getProductId(), stockItem.getBucketCount(), requestedByProductId, hotRequestedByProductId);
+            }
+        }
+        return applyToLoadedRows(stockByProductId, requestedByProductId, crossings);
+    }
+
+    // The product became hot on another instance: its item row holds no available stock any more.
+    private void moveToBuckets(
+            Long productId,
+            int bucketCount,
+            Map<Long, Integer> requestedByProductId,
+            Map<Long, Integer> hotRequestedByProductId
+    ) {
+        stockBucketService.refresh(productId, bucketCount);
+        hotRequestedByProductId.put(productId, requestedByProductId.remove(productId));
+    }
+
+    private boolean applyToLoadedRows(
+            Map<Long, StockItem> stockByProductId,
+            Map<Long, Integer> requestedByProductId,
+            List<LowStockDetector.LowStockCrossing> crossings
+    ) {
+        // Validate all stock exists and is sufficient BEFORE mutating.
+        for (Map.Entry<Long, Integer> entry : requestedByProductId.entrySet()) {
+            StockItem stockItem = stockByProductId.get(entry.getKey());
+            if (stockItem == null) {
+                return false;
+            }
+            if (stockItem.getAvailable() < entry.getValue()) {
+                return false;
+            }
+        }
+
+        // Apply reservations: the decrements are flushed as one JDBC batch of updates at commit
+        // (see hibernate.jdbc.batch_size). In OPTIMISTIC mode each update is guarded by the version.
+        // Before/after come from the rows we hold, so no extra query is needed for low-stock detection.
+        for (Map.Entry<Long, Integer> entry : requestedByProductId.entrySet()) {
+            StockItem stockItem = stockByProductId.get(entry.getKey());
+            int before = stockItem.getAvailable();
+            stockItem.reserve(entry.getValue());
+            lowStockDetector.check(crossings, entry.getKey(), before, stockItem.getAvailable(), stockItem.getLowStockThreshold());
+        }
         return true;
     }
 
+    private boolean reserveWithGuardedUpdates(
+            Map<Long, Integer> requestedByProductId,
+            Map<Long, Integer> hotRequestedByProductId,
+            List<LowStockDetector.LowStockCrossing> crossings
+    ) {
+        // Each statement checks and decrements atomically. If a later line fails, the earlier
+        // decrements are undone by rolling back the whole transaction (all-or-nothing per order).
+        for (Long productId : List.copyOf(requestedByProductId.keySet())) {
+            if (stockItemRepository.reserveIfAvailable(productId, requestedByProductId.get(productId)) == 0) {
+                int bucketCount = stockItemRepository.findBucketCountByProductId(productId).orElse(1);
+                if (bucketCount == 1) {
+                    return false;
+                }
+                moveToBuckets(productId, bucketCount, requestedByProductId, hotRequestedByProductId);
+            }
+        }
+        if (requestedByProductId.isEmpty()) {
+            return true;
+        }
+
+        // The updates still hold the row locks: one read gives the exact "after", and before = after + quantity.
+        for (StockItem stockItem : stockItemRepository.findAllByProductIdInOrderByProductId(requestedByProductId.keySet())) {
+            int after = stockItem.getAvailable();
+            lowStockDetector.check(crossings, stockItem.getProductId(), after + requestedByProductId.get(stockItem.getProductId()),
+                    after, stockItem.getLowStockThreshold());
+        }
+        return true;
+    }
+
+    // Guarded updates and bucket reservations may already have been applied for earlier lines.
+    private static ReservationOutcome reject() {
+        TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        return ReservationOutcome.REJECTED;
+    }
+
+    private Map<Long, StockItem> loadStockItems(Collection<Long> productIds) {
+        List<StockItem> stockItems = reservationMode == ReservationMode.OPTIMISTIC
+                ? stockItemRepository.findAllByProductIdInOrderByProductId(productIds)
+                : stockItemRepository.findAllByProductIdInForUpdate(productIds);
+
+        Map<Long, StockItem> stockByProductId = new HashMap<>();
+        for (StockItem stockItem : stockItems) {
+            stockByProductId.put(stockItem.getProductId(), stockItem);
+        }
+        return stockByProductId;
+    }
+
+    // Sorted so that every code path touches products in the same (lock) order.
+    private static Map<Long, Integer> sumByProductId(List<ReservationLine> lines) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (ReservationLine line : lines) {
+            quantities.merge(line.productId(), line.quantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
     public record ReservationLine(Long productId, int quantity) {
         public ReservationLine {
             if (productId == null) {
@@ -111,4 +431,30 @@ public class InventoryService {
             }
         }
     }
+
+    /**
+     * Per-product threshold; null falls back to app.inventory.low-stock-threshold.
+     *
+     * @return false if the product has no stock row
+     */
+    @Transactional
+    public boolean changeLowStockThreshold(Long productId, Integer threshold) {
+        return stockItemRepository.findByProductId(productId)
+                .map(stockItem -> {
+                    stockItem.setLowStockThreshold(threshold);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    public record ReservationOutcome(boolean reserved, List<LowStockDetector.LowStockCrossing> lowStockCrossings) {
+        public static final ReservationOutcome REJECTED = new ReservationOutcome(false, List.of());
+
+        public static ReservationOutcome reserved(List<LowStockDetector.LowStockCrossing> lowStockCrossings) {
+            return new ReservationOutcome(true, List.copyOf(lowStockCrossings));
+        }
+    }
+
+    public record BatchedReservation(Long orderId, List<ReservationLine> lines) {
+    }
 }
@@ -0,0 +1,34 @@
+package com.aszender.inventory.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Decides whether a reservation moved a product across its low-stock threshold. Callers pass the
+ * before/after quantities they observed while holding the product's row (or ledger) lock, so
+ * exactly one reservation reports each crossing.
+ */
+@Component
+public class LowStockDetector {
+
+    private final int defaultThreshold;
+
+    public LowStockDetector(@Value("${app.inventory.low-stock-threshold:5}") int defaultThreshold) {
+        this.defaultThreshold = defaultThreshold;
+    }
+
+    /**
+     * @param threshold the product's own threshold, or null for the default
+     */
+    public void check(List<LowStockCrossing> crossings, Long productId, int availableBefore, int availableAfter, Integer threshold) {
+        int effective = threshold == null ? defaultThreshold : threshold;
+        if (availableBefore > effective && availableAfter <= effective) {
+            crossings.add(new LowStockCrossing(productId, availableBefore, availableAfter, effective));
+        }
+    }
+
+    public record LowStockCrossing(Long productId, int availableBefore, int availableAfter, int threshold) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.aszender.inventory.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batch size distribution and the queueing latency added by {@link ReservationBatcher},
+ * for tuning its window and maximum batch size.
+ */
+@Component
+public class ReservationBatchMetrics {
+
+    private static final long[] BATCH_SIZE_BOUNDS = {1, 2, 4, 8, 16, 32, 64, 128, Long.MAX_VALUE};
+    private static final long[] QUEUE_MICROS_BOUNDS = {100, 250, 500, 1_000, 2_000, 5_000, 10_000, Long.MAX_VALUE};
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final AtomicLongArray batchSizeCounts = new AtomicLongArray(BATCH_SIZE_BOUNDS.length);
+
+    private final LongAdder queueMicrosTotal = new LongAdder();
+    private final LongAccumulator queueMicrosMax = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray queueMicrosCounts = new AtomicLongArray(QUEUE_MICROS_BOUNDS.length);
+
+    public void recordBatch(int size) {
+        batches.increment();
+        requests.add(size);
+        batchSizeCounts.incrementAndGet(bucketOf(BATCH_SIZE_BOUNDS, size));
+    }
+
+    /**
+     * @param queueNanos time between the request being enqueued and its batch starting
+     */
+    public void recordQueueLatency(long queueNanos) {
+        long micros = queueNanos / 1_000;
+        queueMicrosTotal.add(micros);
+        queueMicrosMax.accumulate(micros);
+        queueMicrosCounts.incrementAndGet(bucketOf(QUEUE_MICROS_BOUNDS, micros));
+    }
+
+    public Snapshot snapshot() {
+        long batchCount = batches.sum();
+        long requestCount = requests.sum();
+        return new Snapshot(
+                batchCount,
+                requestCount,
+                batchCount == 0 ? 0 : (double) requestCount / batchCount,
+                histogram(BATCH_SIZE_BOUNDS, batchSizeCounts),
+                requestCount == 0 ? 0 : queueMicrosTotal.sum() / requestCount,
+                queueMicrosMax.get(),
+                histogram(QUEUE_MICROS_BOUNDS, queueMicrosCounts)
+        );
+    }
+
+    private static int bucketOf(long[] bounds, long value) {
+        int i = 0;
+        while (value > bounds[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static List<Bucket> histogram(long[] bounds, AtomicLongArray counts) {
+        List<Bucket> buckets = new ArrayList<>(bounds.length);
+        for (int i = 0; i < bounds.length; i++) {
+            String le = bounds[i] == Long.MAX_VALUE ? "+Inf" : Long.toString(bounds[i]);
+            buckets.add(new Bucket(le, counts.get(i)));
+        }
+        return buckets;
+    }
+
+    /**
+     * @param le inclusive upper bound of the bucket
+     */
+    public record Bucket(String le, long count) {
+    }
+
+    public record Snapshot(
+            long batches,
+            long requests,
+            double averageBatchSize,
+            List<Bucket> batchSizes,
+            long averageQueueMicros,
+            long maxQueueMicros,
+            List<Bucket> queueMicros
+    ) {
+    }
+}
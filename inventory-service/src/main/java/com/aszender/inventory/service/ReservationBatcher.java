@@ -0,0 +1,247 @@
+package com.aszender.inventory.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Group commit for reservations (app.inventory.batching.enabled=true): requests arriving within
+ * a short window, or until the batch is full, are reserved in a single transaction by one
+ * worker thread, and each caller is completed with its own outcome.
+ *
+ * Orders touching hot SKUs are not batched (bucket reservations are per order), see {@link #canBatch}.
+ * If a batch fails as a whole, its orders are retried one by one, so one bad order fails only itself.
+ */
+@Component
+@ConditionalOnProperty(name = "app.inventory.batching.enabled", havingValue = "true")
+public class ReservationBatcher implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationBatcher.class);
+
+    private final InventoryService inventoryService;
+    private final StockBucketService stockBucketService;
+    private final ReservationRetryExecutor retryExecutor;
+    private final ReservationBatchMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private volatile Thread worker;
+    // Written under this, so nothing is enqueued after stop() let the worker drain the queue.
+    private volatile boolean running;
+
+    public ReservationBatcher(
+            InventoryService inventoryService,
+            StockBucketService stockBucketService,
+            ReservationRetryExecutor retryExecutor,
+            ReservationBatchMetrics metrics,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.inventory.batching.window-micros:1000}") long windowMicros,
+            @Value("${app.inventory.batching.max-batch-size:64}") int maxBatchSize,
+            @Value("${app.inventory.batching.timeout-ms:5000}") long timeoutMillis
+    ) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("app.inventory.batching.max-batch-size must be >= 1");
+        }
+        this.inventoryService = inventoryService;
+        this.stockBucketService = stockBucketService;
+        this.retryExecutor = retryExecutor;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public boolean canBatch(Collection<Long> productIds) {
+        return running && productIds.stream().noneMatch(stockBucketService::isHot);
+    }
+
+    /**
+     * Blocks until the batch containing this order has committed, at most app.inventory.batching.timeout-ms.
+     *
+     * @param onReserved runs inside the batch transaction if the order was reserved (e.g. writes its events)
+     * @return null if the batcher is stopped, or if the order was not decided because one of its
+     * products turned out to be hot; the caller reserves it on its own
+     * @throws IllegalStateException on timeout (the batch may still commit the order later)
+     */
+    public InventoryService.ReservationOutcome reserve(
+            Long orderId,
+            List<InventoryService.ReservationLine> lines,
+            Consumer<InventoryService.ReservationOutcome> onReserved
+    ) {
+        if (orderId == null) {
+            throw new IllegalArgumentException("orderId is required");
+        }
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("order lines are required");
+        }
+
+        Pending pending = new Pending(new InventoryService.BatchedReservation(orderId, lines), onReserved, System.nanoTime());
+        synchronized (this) {
+            if (!running) {
+                return null;
+            }
+            queue.add(pending);
+        }
+        try {
+            return pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IllegalStateException("reservation batch for orderId=" + orderId + " did not commit within " + timeoutMillis + "ms");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the reservation batch", ex);
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                process(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Pending> batch) {
+        long started = System.nanoTime();
+        metrics.recordBatch(batch.size());
+        batch.forEach(p -> metrics.recordQueueLatency(started - p.enqueuedAt));
+
+        try {
+            commit(batch);
+        } catch (RuntimeException ex) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(ex);
+                return;
+            }
+            log.warn("Reservation batch of {} orders failed, retrying them one by one: {}", batch.size(), ex.getMessage());
+            for (Pending pending : batch) {
+                try {
+                    commit(List.of(pending));
+                } catch (RuntimeException single) {
+                    pending.result.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    // Reserves the batch in one transaction and completes its callers.
+    private void commit(List<Pending> batch) {
+        List<InventoryService.BatchedReservation> requests = batch.stream().map(p -> p.request).toList();
+        List<Long> productIds = requests.stream()
+                .flatMap(r -> r.lines().stream())
+                .map(InventoryService.ReservationLine::productId)
+                .distinct()
+                .toList();
+        List<InventoryService.ReservationOutcome> outcomes = retryExecutor.execute(productIds, () -> transactionTemplate.execute(status -> {
+            List<InventoryService.ReservationOutcome> result = inventoryService.reserveStockBatch(requests);
+            for (int i = 0; i < batch.size(); i++) {
+                if (result.get(i) != null && result.get(i).reserved()) {
+                    batch.get(i).onReserved.accept(result.get(i));
+                }
+            }
+            return result;
+        }));
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(outcomes.get(i));
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        Thread thread = new Thread(this::run, "reservation-batcher");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        synchronized (this) {
+            running = false;
+        }
+        Thread thread = worker;
+        if (thread == null) {
+            return;
+        }
+        // The worker notices within one poll timeout and drains the queue before exiting.
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            process(rest);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static final class Pending {
+        private final InventoryService.BatchedReservation request;
+        private final Consumer<InventoryService.ReservationOutcome> onReserved;
+        private final long enqueuedAt;
+        private final CompletableFuture<InventoryService.ReservationOutcome> result = new CompletableFuture<>();
+
+        private Pending(
+                InventoryService.BatchedReservation request,
+                Consumer<InventoryService.ReservationOutcome> onReserved,
+                long enqueuedAt
+        ) {
+            this.request = request;
+            this.onReserved = onReserved;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.aszender.inventory.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * How long an unconfirmed reservation holds stock (app.inventory.reservation-ttl, zero disables expiry).
+ */
+@Component
+public class ReservationExpiryPolicy {
+
+    private final Duration ttl;
+
+    public ReservationExpiryPolicy(@Value("${app.inventory.reservation-ttl:PT15M}") Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public boolean isEnabled() {
+        return !ttl.isZero() && !ttl.isNegative();
+    }
+
+    /**
+     * @return null when expiry is disabled
+     */
+    public Instant expiresAt(Instant reservedAt) {
+        return isEnabled() ? reservedAt.plus(ttl) : null;
+    }
+}
@@ -0,0 +1,220 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.kafka.events.StockReleasedEvent;
+import com.aszender.inventory.kafka.publish.StockEventsPublisher;
+import com.aszender.inventory.ledger.StockLedger;
+import com.aszender.inventory.repository.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases reservations that were neither confirmed nor cancelled before their expires_at.
+ *
+ * Deadlines live in an in-memory due-time queue, so each tick only looks at holds that are due
+ * (independent of the table size). The queue is a hint: a due hold is re-checked against the
+ * database, so holds that were released or confirmed in the meantime are simply skipped. With the
+ * ledger, a due hold whose row the write-behind has not written yet is checked again on the next tick,
+ * and the events of expired holds are retried until written.
+ * Pending deadlines are reloaded from the (status, expires_at) index on startup.
+ */
+@Component
+public class ReservationExpiryScheduler implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpiryScheduler.class);
+
+    private final InventoryService inventoryService;
+    private final StockReservationRepository stockReservationRepository;
+    private final StockEventsPublisher stockEventsPublisher;
+    private final ReservationRetryExecutor retryExecutor;
+    private final ReservationExpiryPolicy expiryPolicy;
+    private final Optional<StockLedger> stockLedger;
+    private final long tickMillis;
+    private final int batchSize;
+    private final TransactionTemplate transactionTemplate;
+
+    private final DelayQueue<Deadline> deadlines = new DelayQueue<>();
+    // Expired by the ledger, StockReleasedEvent not written yet.
+    private final Set<Long> unpublishedReleases = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService scheduler;
+
+    public ReservationExpiryScheduler(
+            InventoryService inventoryService,
+            StockReservationRepository stockReservationRepository,
+            StockEventsPublisher stockEventsPublisher,
+            ReservationRetryExecutor retryExecutor,
+            ReservationExpiryPolicy expiryPolicy,
+            Optional<StockLedger> stockLedger,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.inventory.expiry.tick-ms:1000}") long tickMillis,
+            @Value("${app.inventory.expiry.batch-size:200}") int batchSize
+    ) {
+        this.inventoryService = inventoryService;
+        this.stockReservationRepository = stockReservationRepository;
+        this.stockEventsPublisher = stockEventsPublisher;
+        this.retryExecutor = retryExecutor;
+        this.expiryPolicy = expiryPolicy;
+        this.stockLedger = stockLedger;
+        this.tickMillis = tickMillis;
+        this.batchSize = batchSize;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void schedule(Long orderId, Instant expiresAt) {
+        if (expiresAt != null) {
+            deadlines.add(new Deadline(orderId, expiresAt.toEpochMilli()));
+        }
+    }
+
+    public int pending() {
+        return deadlines.size();
+    }
+
+    /**
+     * Expires every due hold, in batches. Runs on the scheduler thread; public for tests.
+     *
+     * @return number of reservations expired
+     */
+    public int expireDue() {
+        if (stockLedger.isPresent()) {
+            publishUnpublishedReleases();
+        }
+        int expiredTotal = 0;
+        List<Deadline> due = new ArrayList<>(batchSize);
+        while (deadlines.drainTo(due, batchSize) > 0) {
+            List<Long> orderIds = due.stream().map(Deadline::orderId).distinct().toList();
+            List<Long> expired;
+            try {
+                expired = expire(orderIds, Instant.now());
+            } catch (RuntimeException ex) {
+                // Try the whole batch again on the next tick.
+                log.warn("Expiring {} reservations failed, will retry: {}", orderIds.size(), ex.getMessage());
+                deadlines.addAll(due);
+                return expiredTotal;
+            }
+            due.clear();
+
+            expiredTotal += expired.size();
+        }
+        if (expiredTotal > 0) {
+            log.info("Expired {} abandoned reservations", expiredTotal);
+        }
+        return expiredTotal;
+    }
+
+    // The StockReleasedEvents are written in the transaction that expires the holds.
+    private List<Long> expire(List<Long> orderIds, Instant now) {
+        if (stockLedger.isEmpty()) {
+            return retryExecutor.execute(List.of(), () -> transactionTemplate.execute(status -> {
+                List<Long> expired = inventoryService.expireReservations(orderIds, now);
+                publishReleased(expired);
+                return expired;
+            }));
+        }
+        // The ledger owns stock: select the due holds from the database, release them in the ledger.
+        List<Long> due = inventoryService.findExpiredReservations(orderIds, now);
+        List<Long> expired = stockLedger.get().expireAll(due);
+        unpublishedReleases.addAll(expired);
+        publishUnpublishedReleases();
+        long retryAt = now.toEpochMilli() + tickMillis;
+        orderIds.stream()
+                .filter(orderId -> !due.contains(orderId) && stockLedger.get().isUnpersistedHold(orderId))
+                .forEach(orderId -> deadlines.add(new Deadline(orderId, retryAt)));
+        return expired;
+    }
+
+    // Ledger expiries are not undone when their events fail to be written: those are kept and retried every tick.
+    private void publishUnpublishedReleases() {
+        List<Long> orderIds = List.copyOf(unpublishedReleases);
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> publishReleased(orderIds));
+            orderIds.forEach(unpublishedReleases::remove);
+        } catch (RuntimeException ex) {
+            log.warn("Publishing {} expired reservations failed, will retry: {}", orderIds.size(), ex.getMessage());
+        }
+    }
+
+    private void publishReleased(List<Long> orderIds) {
+        String releasedAt = Instant.now().toString();
+        orderIds.forEach(orderId -> stockEventsPublisher.publishStockReleased(new StockReleasedEvent(orderId, releasedAt)));
+    }
+
+    @Override
+    public void start() {
+        if (!expiryPolicy.isEnabled()) {
+            return;
+        }
+        // Holds replayed from the ledger journal must be in the database before the reload.
+        stockLedger.ifPresent(StockLedger::awaitPersisted);
+        stockReservationRepository.findPendingExpiryDeadlines()
+                .forEach(d -> schedule(d.getOrderId(), d.getExpiresAt()));
+        log.info("Reservation expiry: {} pending deadlines reloaded", deadlines.size());
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reservation-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::expireQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            current.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private void expireQuietly() {
+        try {
+            expireDue();
+        } catch (RuntimeException ex) {
+            log.error("Reservation expiry tick failed", ex);
+        }
+    }
+
+    private record Deadline(long orderId, long dueEpochMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueEpochMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueEpochMillis, ((Deadline) other).dueEpochMillis);
+        }
+    }
+}
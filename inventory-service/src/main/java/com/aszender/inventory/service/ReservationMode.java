@@ -0,0 +1,23 @@
+package com.aszender.inventory.service;
+
+/**
+ * How {@link InventoryService} applies stock decrements (app.inventory.reservation-mode).
+ */
+public enum ReservationMode {
+    /**
+     * Load all rows of the order with SELECT ... FOR UPDATE, validate in memory, flush batched updates.
+     */
+    LOCKING,
+
+    /**
+     * One conditional UPDATE per product; the affected-row count is the decision.
+     * Row locks are held only for the statement, which suits a single hot SKU.
+     */
+    GUARDED_UPDATE,
+
+    /**
+     * Same as LOCKING but without row locks: concurrent writers are detected through the
+     * {@code @Version} column and retried by {@link ReservationRetryExecutor}.
+     */
+    OPTIMISTIC
+}
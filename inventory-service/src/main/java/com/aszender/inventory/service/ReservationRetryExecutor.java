@@ -0,0 +1,96 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a transactional inventory operation and re-runs it (in a fresh transaction) when it loses
+ * a concurrent update race, with a bounded number of attempts and jittered exponential backoff.
+ */
+@Component
+public class ReservationRetryExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationRetryExecutor.class);
+
+    private final StockItemRepository stockItemRepository;
+    private final InventoryContentionMetrics contentionMetrics;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public ReservationRetryExecutor(
+            StockItemRepository stockItemRepository,
+            InventoryContentionMetrics contentionMetrics,
+            @Value("${app.inventory.retry.max-attempts:5}") int maxAttempts,
+            @Value("${app.inventory.retry.initial-backoff-ms:5}") long initialBackoffMillis,
+            @Value("${app.inventory.retry.max-backoff-ms:100}") long maxBackoffMillis
+    ) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("app.inventory.retry.max-attempts must be >= 1");
+        }
+        this.stockItemRepository = stockItemRepository;
+        this.contentionMetrics = contentionMetrics;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * @param productIds products touched by the operation, used when the conflicting row cannot be identified
+     */
+    public <T> T execute(Collection<Long> productIds, Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (ConcurrencyFailureException ex) {
+                Collection<Long> contended = contendedProductIds(ex, productIds);
+                contentionMetrics.recordConflict(contended);
+
+                if (attempt >= maxAttempts) {
+                    contentionMetrics.recordGiveUp(contended);
+                    log.warn("Giving up after {} attempts, contended productIds={}", attempt, contended);
+                    throw ex;
+                }
+
+                contentionMetrics.recordRetry(contended);
+                sleepBeforeRetry(attempt, ex);
+            }
+        }
+    }
+
+    private Collection<Long> contendedProductIds(ConcurrencyFailureException ex, Collection<Long> productIds) {
+        if (ex instanceof ObjectOptimisticLockingFailureException lockFailure
+                && StockItem.class.getName().equals(lockFailure.getPersistentClassName())
+                && lockFailure.getIdentifier() instanceof Long stockItemId) {
+            Optional<Long> productId = stockItemRepository.findById(stockItemId).map(StockItem::getProductId);
+            if (productId.isPresent()) {
+                return List.of(productId.get());
+            }
+        }
+        return productIds;
+    }
+
+    private void sleepBeforeRetry(int attempt, ConcurrencyFailureException cause) {
+        // "Full jitter": uniform in [0, min(max, initial * 2^(attempt-1))] so retrying writers spread out.
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        long sleepMillis = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(sleepMillis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.ledger.StockLedger;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read side of stock for the gRPC read RPCs and stock watches: the ledger's counters while it owns
+ * stock (its rows lag by up to one flush), otherwise the stock rows plus their hot-SKU buckets.
+ */
+@Service
+public class StockAvailabilityService {
+
+    private final StockBucketService stockBucketService;
+    private final Optional<StockLedger> stockLedger;
+
+    public StockAvailabilityService(StockBucketService stockBucketService, Optional<StockLedger> stockLedger) {
+        this.stockBucketService = stockBucketService;
+        this.stockLedger = stockLedger;
+    }
+
+    /**
+     * @return the stock of the products that have a stock row, keyed by productId (one query
+     * without the ledger)
+     */
+    public Map<Long, Availability> find(Collection<Long> productIds) {
+        Map<Long, Availability> found = new LinkedHashMap<>();
+        if (productIds.isEmpty()) {
+            return found;
+        }
+        if (stockLedger.isPresent()) {
+            for (Long productId : productIds) {
+                stockLedger.get().balance(productId).ifPresent(balance -> found.put(productId,
+                        new Availability(productId, balance.available(), balance.reserved())));
+            }
+            return found;
+        }
+        stockBucketService.findStockLevels(productIds).forEach(level -> found.put(level.productId(),
+                new Availability(level.productId(), level.available(), level.reserved())));
+        return found;
+    }
+
+    public record Availability(long productId, int available, int reserved) {
+    }
+}
@@ -0,0 +1,262 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.model.StockBucket;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockBucketRepository;
+import com.aszender.inventory.repository.StockItemRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hot-SKU mode: a product's available stock is split across N {@link StockBucket} rows so that
+ * concurrent reservations update different rows instead of queueing on one.
+ *
+ * Invariant: the product's totals are its {@link StockItem} row plus the sum of its buckets.
+ */
+@Service
+public class StockBucketService {
+
+    public static final int MAX_BUCKETS = 64;
+
+    private final StockItemRepository stockItemRepository;
+    private final StockBucketRepository stockBucketRepository;
+
+    // productId -> bucket count for hot products, as last seen by this instance. Only a hint for
+    // routing: another replica may switch a product, so reservations check the stock row and
+    // correct it (see refresh).
+    private final Map<Long, Integer> bucketCountByProductId = new ConcurrentHashMap<>();
+
+    public StockBucketService(StockItemRepository stockItemRepository, StockBucketRepository stockBucketRepository) {
+        this.stockItemRepository = stockItemRepository;
+        this.stockBucketRepository = stockBucketRepository;
+    }
+
+    @PostConstruct
+    void loadHotProducts() {
+        stockItemRepository.findAllByBucketCountGreaterThan(1)
+                .forEach(item -> bucketCountByProductId.put(item.getProductId(), item.getBucketCount()));
+    }
+
+    public boolean isHot(Long productId) {
+        return bucketCountByProductId.containsKey(productId);
+    }
+
+    /**
+     * Records the bucket count read from the product's stock row (it may have been switched by
+     * another instance).
+     */
+    public void refresh(Long productId, int bucketCount) {
+        if (bucketCount > 1) {
+            bucketCountByProductId.put(productId, bucketCount);
+        } else {
+            bucketCountByProductId.remove(productId);
+        }
+    }
+
+    /**
+     * Switches a product between normal (bucketCount = 1) and hot mode, redistributing its
+     * available stock evenly across the buckets.
+     */
+    @Transactional
+    public Optional<StockLevel> changeBucketCount(Long productId, int bucketCount) {
+        if (bucketCount < 1 || bucketCount > MAX_BUCKETS) {
+            throw new IllegalArgumentException("bucketCount must be between 1 and " + MAX_BUCKETS);
+        }
+
+        List<StockItem> locked = stockItemRepository.findAllByProductIdInForUpdate(List.of(productId));
+        if (locked.isEmpty()) {
+            return Optional.empty();
+        }
+        StockItem stockItem = locked.get(0);
+        List<StockBucket> buckets = stockBucketRepository.findAllByProductIdForUpdate(productId);
+
+        // Buckets beyond the new count are removed; their stock goes back to the item row
+        // (reservation items that still point at them are released against the item row).
+        int removedAvailable = 0;
+        int removedReserved = 0;
+        List<StockBucket> kept = new ArrayList<>();
+        for (StockBucket bucket : buckets) {
+            if (bucketCount > 1 && bucket.getBucketIndex() < bucketCount) {
+                kept.add(bucket);
+            } else {
+                removedAvailable += bucket.getAvailable();
+                removedReserved += bucket.getReserved();
+                stockBucketRepository.delete(bucket);
+            }
+        }
+        stockItem.absorbBuckets(removedAvailable, removedReserved, bucketCount);
+
+        if (bucketCount > 1) {
+            for (int index = kept.size(); index < bucketCount; index++) {
+                kept.add(stockBucketRepository.save(new StockBucket(productId, index)));
+            }
+            int total = stockItem.drainAvailableToBuckets(bucketCount);
+            for (StockBucket bucket : kept) {
+                total += bucket.getAvailable();
+            }
+            redistribute(kept, total);
+        }
+
+        runAfterCommit(() -> refresh(productId, bucketCount));
+
+        int bucketAvailable = kept.stream().mapToInt(StockBucket::getAvailable).sum();
+        int bucketReserved = kept.stream().mapToInt(StockBucket::getReserved).sum();
+        return Optional.of(new StockLevel(
+                stockItem.getId(),
+                productId,
+                stockItem.getAvailable() + bucketAvailable,
+                stockItem.getReserved() + bucketReserved,
+                bucketCount,
+                stockItem.getLowStockThreshold(),
+                stockItem.getCreatedAt()
+        ));
+    }
+
+    /**
+     * Reserves from a random bucket, trying the others round-robin. When no single bucket can
+     * serve the quantity, all buckets are locked, drained in order and rebalanced. A product that
+     * has no buckets any more (switched back elsewhere) is reserved on its item row.
+     *
+     * @return the quantity taken per bucket, or an empty list if the product is short on stock
+     * (the caller must roll back, since earlier lines may already be applied)
+     */
+    public List<BucketAllocation> reserve(Long productId, int quantity) {
+        int bucketCount = bucketCountByProductId.getOrDefault(productId, 1);
+        int start = ThreadLocalRandom.current().nextInt(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            int bucketIndex = (start + i) % bucketCount;
+            if (stockBucketRepository.reserveIfAvailable(productId, bucketIndex, quantity) == 1) {
+                return List.of(new BucketAllocation(bucketIndex, quantity));
+            }
+        }
+        return reserveAcrossBuckets(productId, quantity);
+    }
+
+    /**
+     * @return false if the bucket no longer exists (product switched back), so the caller releases on the item row
+     */
+    public boolean release(Long productId, int bucketIndex, int quantity) {
+        return stockBucketRepository.releaseIfReserved(productId, bucketIndex, quantity) == 1;
+    }
+
+    public Optional<StockLevel> findStockLevel(Long productId) {
+        return stockItemRepository.findByProductId(productId)
+                .map(stockItem -> toStockLevels(List.of(stockItem)).get(0));
+    }
+
+    public List<StockLevel> findStockLevels(Collection<Long> productIds) {
+        return toStockLevels(stockItemRepository.findAllByProductIdInOrderByProductId(productIds));
+    }
+
+    public List<StockLevel> listStockLevels() {
+        return toStockLevels(stockItemRepository.findAll());
+    }
+
+    private List<BucketAllocation> reserveAcrossBuckets(Long productId, int quantity) {
+        List<StockBucket> buckets = stockBucketRepository.findAllByProductIdForUpdate(productId);
+        refresh(productId, buckets.size());
+        if (buckets.isEmpty()) {
+            return stockItemRepository.reserveIfAvailable(productId, quantity) == 1
+                    ? List.of(new BucketAllocation(null, quantity))
+                    : List.of();
+        }
+        int total = buckets.stream().mapToInt(StockBucket::getAvailable).sum();
+        if (total < quantity) {
+            return List.of();
+        }
+
+        List<BucketAllocation> allocations = new ArrayList<>();
+        int remaining = quantity;
+        for (StockBucket bucket : buckets) {
+            int taken = Math.min(remaining, bucket.getAvailable());
+            if (taken > 0) {
+                bucket.reserve(taken);
+                allocations.add(new BucketAllocation(bucket.getBucketIndex(), taken));
+                remaining -= taken;
+            }
+            if (remaining == 0) {
+                break;
+            }
+        }
+
+        redistribute(buckets, total - quantity);
+        return allocations;
+    }
+
+    private List<StockLevel> toStockLevels(List<StockItem> stockItems) {
+        List<Long> hotProductIds = stockItems.stream()
+                .filter(item -> item.getBucketCount() > 1)
+                .map(StockItem::getProductId)
+                .toList();
+
+        Map<Long, StockBucketRepository.BucketTotals> totals = new HashMap<>();
+        if (!hotProductIds.isEmpty()) {
+            stockBucketRepository.sumByProductIdIn(hotProductIds)
+                    .forEach(t -> totals.put(t.getProductId(), t));
+        }
+
+        return stockItems.stream()
+                .map(item -> {
+                    StockBucketRepository.BucketTotals t = totals.get(item.getProductId());
+                    long available = item.getAvailable() + (t == null ? 0 : t.getAvailable());
+                    long reserved = item.getReserved() + (t == null ? 0 : t.getReserved());
+                    return new StockLevel(item.getId(), item.getProductId(), (int) available, (int) reserved,
+                            item.getBucketCount(), item.getLowStockThreshold(), item.getCreatedAt());
+                })
+                .toList();
+    }
+
+    private static void redistribute(List<StockBucket> buckets, int totalAvailable) {
+        int share = totalAvailable / buckets.size();
+        int remainder = totalAvailable % buckets.size();
+        for (int i = 0; i < buckets.size(); i++) {
+            buckets.get(i).setAvailable(share + (i < remainder ? 1 : 0));
+        }
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * @param bucketIndex null when taken from the item row
+     */
+    public record BucketAllocation(Integer bucketIndex, int quantity) {
+    }
+
+    /**
+     * Aggregated stock of a product (item row + buckets).
+     */
+    public record StockLevel(
+            Long id,
+            Long productId,
+            int available,
+            int reserved,
+            int bucketCount,
+            Integer lowStockThreshold,
+            Instant createdAt
+    ) {
+    }
+}
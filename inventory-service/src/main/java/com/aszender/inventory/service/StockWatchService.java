@@ -0,0 +1,191 @@
+package com.aszender.inventory.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock watches (WatchStock). One poller reads the stock of every watched product per interval, in
+ * one read for all watchers and only while someone watches, and hands each watcher the products
+ * whose availability differs from what that watcher was last sent. Reservations at any rate thus
+ * cost a watcher at most one update per product and interval.
+ *
+ * A watcher that is not ready (flow control) is skipped and gets the newest value once it is,
+ * rather than a backlog of stale steps.
+ */
+@Component
+public class StockWatchService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(StockWatchService.class);
+
+    private final StockAvailabilityService availabilityService;
+    private final long intervalMillis;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService scheduler;
+
+    public StockWatchService(
+            StockAvailabilityService availabilityService,
+            @Value("${app.inventory.watch.interval-ms:250}") long intervalMillis
+    ) {
+        this.availabilityService = availabilityService;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Receives the updates of one watch, one call at a time.
+     */
+    public interface Watcher {
+
+        boolean isReady();
+
+        void send(List<Change> changes);
+
+        // The service is stopping.
+        void close();
+    }
+
+    /**
+     * @param availableDelta change since the previous update of the product to this watcher (0 for snapshots)
+     */
+    public record Change(long productId, int available, int reserved, int availableDelta, boolean snapshot) {
+    }
+
+    /**
+     * Sends the snapshot of the products to the watcher (on the calling thread), then their changes.
+     */
+    public Subscription watch(Collection<Long> productIds, Watcher watcher) {
+        Subscription subscription = new Subscription(new LinkedHashSet<>(productIds), watcher);
+        subscriptions.add(subscription);
+        subscription.publish(availabilityService.find(subscription.productIds), true);
+        return subscription;
+    }
+
+    public int watchers() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Publishes the changes since the previous poll. Runs on the poller thread; public for tests.
+     */
+    public void poll() {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        Set<Long> watched = new HashSet<>();
+        subscriptions.forEach(subscription -> watched.addAll(subscription.productIds));
+        Map<Long, StockAvailabilityService.Availability> current = availabilityService.find(watched);
+        subscriptions.forEach(subscription -> subscription.publish(current, false));
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-watch");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs before the gRPC server stops (higher phase), so watch streams end cleanly.
+    @Override
+    public void stop() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            current.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        subscriptions.forEach(Subscription::close);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException ex) {
+            log.warn("Stock watch poll failed, will retry: {}", ex.getMessage());
+        }
+    }
+
+    public final class Subscription {
+
+        private final Set<Long> productIds;
+        private final Watcher watcher;
+        // Guarded by this; the available last sent per product.
+        private final Map<Long, Integer> lastSent = new HashMap<>();
+        private boolean snapshotSent;
+        private boolean cancelled;
+
+        private Subscription(Set<Long> productIds, Watcher watcher) {
+            this.productIds = productIds;
+            this.watcher = watcher;
+        }
+
+        // Products without a stock row count as zero stock.
+        private synchronized void publish(Map<Long, StockAvailabilityService.Availability> current, boolean snapshot) {
+            if (cancelled || snapshot == snapshotSent || (!snapshot && !watcher.isReady())) {
+                return; // a poll racing the snapshot waits for it
+            }
+            List<Change> changes = new ArrayList<>();
+            for (Long productId : productIds) {
+                StockAvailabilityService.Availability level = current.get(productId);
+                int available = level == null ? 0 : level.available();
+                int reserved = level == null ? 0 : level.reserved();
+                Integer previous = lastSent.put(productId, available);
+                if (snapshot) {
+                    changes.add(new Change(productId, available, reserved, 0, true));
+                } else if (previous == null || previous != available) {
+                    changes.add(new Change(productId, available, reserved, available - (previous == null ? 0 : previous), false));
+                }
+            }
+            snapshotSent = true;
+            if (changes.isEmpty()) {
+                return;
+            }
+            try {
+                watcher.send(changes);
+            } catch (RuntimeException ex) {
+                log.debug("Stock watch dropped: {}", ex.getMessage());
+                cancel();
+            }
+        }
+
+        public synchronized void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        private synchronized void close() {
+            if (!cancelled) {
+                cancel();
+                watcher.close();
+            }
+        }
+    }
+}
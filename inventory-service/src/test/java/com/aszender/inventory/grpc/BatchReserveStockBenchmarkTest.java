@@ -0,0 +1,109 @@
+package com.aszender.inventory.grpc;
+
+import com.aszender.contracts.inventory.v1.BatchReserveStockRequest;
+import com.aszender.contracts.inventory.v1.BatchReserveStockResponse;
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReserveItem;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.contracts.inventory.v1.ReserveStockStreamResponse;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reserving a few hundred orders: one unary ReserveStock call per order versus one BatchReserveStock call.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+class BatchReserveStockBenchmarkTest {
+
+    private static final long FIRST_PRODUCT_ID = 92_001L;
+    private static final int PRODUCTS = 20;
+    private static final int ORDERS = 300;
+
+    @Autowired
+    private InventoryGrpcService inventoryGrpcService;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = ServerBuilder.forPort(0).addService(inventoryGrpcService).build().start();
+        channel = ManagedChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+        LongStream.range(FIRST_PRODUCT_ID, FIRST_PRODUCT_ID + PRODUCTS)
+                .filter(productId -> stockItemRepository.findByProductId(productId).isEmpty())
+                .forEach(productId -> stockItemRepository.save(new StockItem(productId, 1_000_000)));
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void batchCall_reservesEveryOrder_andBeatsTheUnaryLoop() {
+        InventoryServiceGrpc.InventoryServiceBlockingStub stub = InventoryServiceGrpc.newBlockingStub(channel);
+        stub.reserveStock(order(9_299_999L)); // warm up the call path
+
+        long unaryStarted = System.nanoTime();
+        for (long orderId = 9_200_001L; orderId < 9_200_001L + ORDERS; orderId++) {
+            assertThat(stub.reserveStock(order(orderId)).getReserved()).isTrue();
+        }
+        long unaryMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - unaryStarted);
+
+        List<ReserveStockRequest> orders = new ArrayList<>();
+        for (long orderId = 9_300_001L; orderId < 9_300_001L + ORDERS; orderId++) {
+            orders.add(order(orderId));
+        }
+        orders.add(ReserveStockRequest.newBuilder().setOrderId(9_399_999L).build()); // no items
+
+        long batchStarted = System.nanoTime();
+        BatchReserveStockResponse response = stub.batchReserveStock(BatchReserveStockRequest.newBuilder().addAllOrders(orders).build());
+        long batchMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - batchStarted);
+
+        System.out.printf("reserve %d orders: unary loop=%dus (%dus/order), batch=%dus (%dus/order)%n",
+                ORDERS, unaryMicros, unaryMicros / ORDERS, batchMicros, batchMicros / ORDERS);
+
+        List<ReserveStockStreamResponse> results = response.getResultsList();
+        assertThat(results).hasSize(ORDERS + 1);
+        assertThat(results.subList(0, ORDERS)).allMatch(ReserveStockStreamResponse::getReserved);
+        assertThat(results.get(0).getOrderId()).isEqualTo(9_300_001L);
+        assertThat(results.get(ORDERS).getErrorCode()).isEqualTo(Status.Code.INVALID_ARGUMENT.value());
+        assertThat(batchMicros).isLessThan(unaryMicros);
+    }
+
+    // Three lines over the shared products, so the orders of one batch overlap on rows.
+    private static ReserveStockRequest order(long orderId) {
+        ReserveStockRequest.Builder builder = ReserveStockRequest.newBuilder().setOrderId(orderId);
+        for (int line = 0; line < 3; line++) {
+            long productId = FIRST_PRODUCT_ID + (orderId + line * 7L) % PRODUCTS;
+            builder.addItems(ReserveItem.newBuilder().setProductId(productId).setQuantity(1));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.aszender.inventory.grpc;
+
+import com.aszender.contracts.grpc.GrpcMetrics;
+import com.aszender.contracts.grpc.GrpcMetricsServerInterceptor;
+import com.aszender.contracts.grpc.LatencyHistogram;
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReserveItem;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.contracts.inventory.v1.ReserveStockResponse;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class GrpcMetricsServerInterceptorTest {
+
+    private final GrpcMetrics metrics = new GrpcMetrics();
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (channel != null) {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void callsAreCountedPerMethodAndStatus_withMessageSizes() throws Exception {
+        InventoryServiceGrpc.InventoryServiceImplBase service = new InventoryServiceGrpc.InventoryServiceImplBase() {
+            @Override
+            public void reserveStock(ReserveStockRequest request, StreamObserver<ReserveStockResponse> responseObserver) {
+                if (request.getOrderId() <= 0) {
+                    responseObserver.onError(Status.INVALID_ARGUMENT.asRuntimeException());
+                    return;
+                }
+                responseObserver.onNext(ReserveStockResponse.newBuilder().setReserved(true).build());
+                responseObserver.onCompleted();
+            }
+        };
+        server = ServerBuilder.forPort(0)
+                .addService(ServerInterceptors.intercept(service, new GrpcMetricsServerInterceptor(metrics)))
+                .build().start();
+        channel = ManagedChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+        InventoryServiceGrpc.InventoryServiceBlockingStub stub = InventoryServiceGrpc.newBlockingStub(channel);
+
+        ReserveStockRequest ok = ReserveStockRequest.newBuilder()
+                .setOrderId(1)
+                .addItems(ReserveItem.newBuilder().setProductId(7).setQuantity(2))
+                .build();
+        for (int i = 0; i < 3; i++) {
+            stub.reserveStock(ok);
+        }
+        assertThatThrownBy(() -> stub.reserveStock(ReserveStockRequest.newBuilder().setOrderId(-1).build()))
+                .isInstanceOf(StatusRuntimeException.class);
+
+        List<GrpcMetrics.MethodSnapshot> snapshot = metrics.snapshot();
+        assertThat(snapshot).hasSize(1);
+        GrpcMetrics.MethodSnapshot reserve = snapshot.get(0);
+        assertThat(reserve.method()).isEqualTo(InventoryServiceGrpc.getReserveStockMethod().getFullMethodName());
+        assertThat(reserve.calls()).isEqualTo(4);
+        assertThat(reserve.inFlight()).isZero();
+        assertThat(reserve.statusCodes()).containsEntry("OK", 3L).containsEntry("INVALID_ARGUMENT", 1L);
+        assertThat(reserve.messagesReceived()).isEqualTo(4);
+        assertThat(reserve.bytesReceived()).isEqualTo(3L * ok.getSerializedSize() + 1 + 10);
+        assertThat(reserve.messagesSent()).isEqualTo(3);
+        assertThat(reserve.latency().count()).isEqualTo(4);
+        assertThat(reserve.latency().p50Millis()).isLessThanOrEqualTo(reserve.latency().p999Millis());
+        assertThat(reserve.latency().p999Millis()).isLessThanOrEqualTo(reserve.latency().maxMillis());
+    }
+
+    @Test
+    void histogramPercentilesStayWithinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros);
+        }
+
+        assertThat(histogram.count()).isEqualTo(100_000);
+        assertThat((double) histogram.valueAt(0.5)).isCloseTo(50_000, within(1_500.0));
+        assertThat((double) histogram.valueAt(0.99)).isCloseTo(99_000, within(3_000.0));
+        assertThat((double) histogram.valueAt(0.999)).isCloseTo(99_900, within(3_000.0));
+        assertThat(histogram.valueAt(1.0)).isEqualTo(100_000);
+        for (long value : new long[]{0, 63, 64, 1_000, 123_456_789}) {
+            // The median of {value, much larger} reports the top of value's bucket.
+            LatencyHistogram single = new LatencyHistogram();
+            single.record(value);
+            single.record(Long.MAX_VALUE);
+            assertThat(single.valueAt(0.5)).isGreaterThanOrEqualTo(value).isLessThanOrEqualTo(value + value / 32);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.aszender.inventory.grpc;
+
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReserveItem;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unary ReserveStock throughput and p99 with each server executor, over one shared client channel.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "app.grpc.server.port=0",
+        "spring.jpa.show-sql=false"
+})
+class GrpcServerLoadTest {
+
+    private static final long FIRST_PRODUCT_ID = 94_001L;
+    private static final int PRODUCTS = 50;
+    private static final int CLIENTS = 16;
+    private static final int CALLS_PER_CLIENT = 100;
+    private static final AtomicLong ORDER_IDS = new AtomicLong(9_400_000L);
+
+    @Autowired
+    private InventoryGrpcService inventoryGrpcService;
+
+    @Autowired
+    private GrpcServerSettings grpcServerSettings;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Test
+    void everyExecutorServesTheLoad() throws Exception {
+        LongStream.range(FIRST_PRODUCT_ID, FIRST_PRODUCT_ID + PRODUCTS)
+                .forEach(productId -> stockItemRepository.save(new StockItem(productId, 1_000_000)));
+
+        for (GrpcServerSettings.ExecutorType executor : GrpcServerSettings.ExecutorType.values()) {
+            run(executor);
+        }
+    }
+
+    private void run(GrpcServerSettings.ExecutorType executorType) throws Exception {
+        GrpcServerLifecycle lifecycle = new GrpcServerLifecycle(grpcServerSettings.withExecutor(executorType), inventoryGrpcService);
+        lifecycle.start();
+        ManagedChannel channel = ManagedChannelBuilder.forAddress("localhost", lifecycle.getPort()).usePlaintext().build();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            InventoryServiceGrpc.InventoryServiceBlockingStub stub = InventoryServiceGrpc.newBlockingStub(channel);
+            stub.reserveStock(request()); // warm up
+
+            long[] latencies = new long[CLIENTS * CALLS_PER_CLIENT];
+            long started = System.nanoTime();
+            Future<?>[] futures = new Future<?>[CLIENTS];
+            for (int c = 0; c < CLIENTS; c++) {
+                int client = c;
+                futures[c] = clients.submit(() -> {
+                    for (int i = 0; i < CALLS_PER_CLIENT; i++) {
+                        long callStarted = System.nanoTime();
+                        assertThat(stub.reserveStock(request()).getReserved()).isTrue();
+                        latencies[client * CALLS_PER_CLIENT + i] = System.nanoTime() - callStarted;
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+            long elapsed = System.nanoTime() - started;
+
+            Arrays.sort(latencies);
+            long p99Micros = TimeUnit.NANOSECONDS.toMicros(latencies[(int) Math.ceil(latencies.length * 0.99) - 1]);
+            System.out.printf("grpc executor=%s calls=%d throughput=%d calls/s p99=%dus%n",
+                    executorType, latencies.length, latencies.length * TimeUnit.SECONDS.toNanos(1) / elapsed, p99Micros);
+        } finally {
+            clients.shutdownNow();
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            lifecycle.stop();
+        }
+    }
+
+    private static ReserveStockRequest request() {
+        long orderId = ORDER_IDS.incrementAndGet();
+        return ReserveStockRequest.newBuilder()
+                .setOrderId(orderId)
+                .addItems(ReserveItem.newBuilder().setProductId(FIRST_PRODUCT_ID + orderId % PRODUCTS).setQuantity(1))
+                .build();
+    }
+}
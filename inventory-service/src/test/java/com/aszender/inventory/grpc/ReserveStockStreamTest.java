@@ -0,0 +1,101 @@
+package com.aszender.inventory.grpc;
+
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReserveItem;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.contracts.inventory.v1.ReserveStockStreamResponse;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "app.grpc.server.stream.window=4"
+})
+class ReserveStockStreamTest {
+
+    @Autowired
+    private InventoryGrpcService inventoryGrpcService;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = ServerBuilder.forPort(0).addService(inventoryGrpcService).build().start();
+        channel = ManagedChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void pipelinedRequests_areAnsweredByOrderId_andFailuresStayPerRequest() throws Exception {
+        long productId = 91_001L;
+        stockItemRepository.save(new StockItem(productId, 30));
+        int orders = 40; // one unit each: 30 reserved, 10 rejected
+
+        Map<Long, ReserveStockStreamResponse> responses = new ConcurrentHashMap<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        StreamObserver<ReserveStockRequest> requests = InventoryServiceGrpc.newStub(channel)
+                .reserveStockStream(new StreamObserver<>() {
+                    @Override
+                    public void onNext(ReserveStockStreamResponse value) {
+                        responses.put(value.getOrderId(), value);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        completed.countDown();
+                    }
+                });
+
+        for (long orderId = 9_100_001L; orderId < 9_100_001L + orders; orderId++) {
+            requests.onNext(request(orderId, productId));
+        }
+        requests.onNext(ReserveStockRequest.newBuilder().setOrderId(9_100_999L).build()); // no items
+        requests.onCompleted();
+
+        assertThat(completed.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(responses).hasSize(orders + 1);
+        assertThat(responses.values().stream().filter(ReserveStockStreamResponse::getReserved)).hasSize(30);
+        assertThat(responses.get(9_100_999L).getErrorCode()).isEqualTo(Status.Code.INVALID_ARGUMENT.value());
+        assertThat(stockItemRepository.findByProductId(productId).orElseThrow().getAvailable()).isZero();
+    }
+
+    private static ReserveStockRequest request(long orderId, long productId) {
+        return ReserveStockRequest.newBuilder()
+                .setOrderId(orderId)
+                .addAllItems(List.of(ReserveItem.newBuilder().setProductId(productId).setQuantity(1).build()))
+                .build();
+    }
+}
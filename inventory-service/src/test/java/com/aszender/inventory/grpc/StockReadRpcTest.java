@@ -0,0 +1,146 @@
+package com.aszender.inventory.grpc;
+
+import com.aszender.contracts.inventory.v1.GetStockBatchRequest;
+import com.aszender.contracts.inventory.v1.GetStockBatchResponse;
+import com.aszender.contracts.inventory.v1.GetStockRequest;
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.StockUpdate;
+import com.aszender.contracts.inventory.v1.WatchStockRequest;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import com.aszender.inventory.service.InventoryReservationOrchestrator;
+import com.aszender.inventory.service.StockWatchService;
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "app.inventory.watch.interval-ms=600000" // the test polls itself
+})
+class StockReadRpcTest {
+
+    @Autowired
+    private InventoryGrpcService inventoryGrpcService;
+
+    @Autowired
+    private InventoryReservationOrchestrator orchestrator;
+
+    @Autowired
+    private StockWatchService watchService;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = ServerBuilder.forPort(0).addService(inventoryGrpcService).build().start();
+        channel = ManagedChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void getStockBatch_returnsLevelsInRequestOrder_andUnknownProducts() {
+        stockItemRepository.save(new StockItem(95_001L, 12));
+        stockItemRepository.save(new StockItem(95_002L, 7));
+        InventoryServiceGrpc.InventoryServiceBlockingStub stub = InventoryServiceGrpc.newBlockingStub(channel);
+
+        GetStockBatchResponse response = stub.getStockBatch(GetStockBatchRequest.newBuilder()
+                .addAllProductIds(List.of(95_002L, 95_999L, 95_001L, 95_002L))
+                .build());
+
+        assertThat(response.getLevelsList()).extracting(level -> level.getProductId() + ":" + level.getAvailable())
+                .containsExactly("95002:7", "95001:12");
+        assertThat(response.getUnknownProductIdsList()).containsExactly(95_999L);
+        assertThat(stub.getStock(GetStockRequest.newBuilder().setProductId(95_001L).build()).getAvailable()).isEqualTo(12);
+        assertThatThrownBy(() -> stub.getStock(GetStockRequest.newBuilder().setProductId(95_999L).build()))
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.NOT_FOUND));
+    }
+
+    @Test
+    void watchStock_sendsASnapshotThenCoalescedDeltas() throws Exception {
+        stockItemRepository.save(new StockItem(95_011L, 20));
+        stockItemRepository.save(new StockItem(95_012L, 5));
+        BlockingQueue<StockUpdate> updates = new LinkedBlockingQueue<>();
+        Context.CancellableContext watch = Context.current().withCancellation();
+        watch.run(() -> InventoryServiceGrpc.newStub(channel).watchStock(
+                WatchStockRequest.newBuilder().addProductIds(95_011L).addProductIds(95_012L).build(),
+                new StreamObserver<>() {
+                    @Override
+                    public void onNext(StockUpdate value) {
+                        updates.add(value);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                }));
+
+        StockUpdate first = updates.poll(5, TimeUnit.SECONDS);
+        StockUpdate second = updates.poll(5, TimeUnit.SECONDS);
+        assertThat(List.of(first, second)).allMatch(StockUpdate::getSnapshot)
+                .extracting(update -> update.getLevel().getProductId() + ":" + update.getLevel().getAvailable())
+                .containsExactly("95011:20", "95012:5");
+
+        // Two reservations between polls arrive as one update; the untouched product sends nothing.
+        reserve(95_101L, 95_011L, 3);
+        reserve(95_102L, 95_011L, 4);
+        watchService.poll();
+        StockUpdate change = updates.poll(5, TimeUnit.SECONDS);
+        assertThat(change.getSnapshot()).isFalse();
+        assertThat(change.getLevel().getProductId()).isEqualTo(95_011L);
+        assertThat(change.getLevel().getAvailable()).isEqualTo(13);
+        assertThat(change.getLevel().getReserved()).isEqualTo(7);
+        assertThat(change.getAvailableDelta()).isEqualTo(-7);
+
+        orchestrator.release(95_101L);
+        watchService.poll();
+        assertThat(updates.poll(5, TimeUnit.SECONDS).getAvailableDelta()).isEqualTo(3);
+        assertThat(updates).isEmpty();
+
+        int watchers = watchService.watchers();
+        watch.cancel(null);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (watchService.watchers() == watchers && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(watchService.watchers()).isEqualTo(watchers - 1);
+    }
+
+    private void reserve(long orderId, long productId, int quantity) {
+        assertThat(orchestrator.reserve(orderId, List.of(new InventoryReservationOrchestrator.ReserveLine(productId, quantity))).reserved())
+                .isTrue();
+    }
+}
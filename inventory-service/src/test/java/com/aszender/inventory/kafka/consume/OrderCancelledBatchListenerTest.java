@@ -0,0 +1,99 @@
+package com.aszender.inventory.kafka.consume;
+
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
+import com.aszender.inventory.kafka.events.OrderCancelledEvent;
+import com.aszender.inventory.model.ReservationStatus;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import com.aszender.inventory.repository.StockReservationRepository;
+import com.aszender.inventory.service.InventoryReservationOrchestrator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+class OrderCancelledBatchListenerTest {
+
+    private static final String TOPIC = "orders.order-cancelled.batch-test";
+
+    @Autowired
+    private InventoryReservationOrchestrator reservationOrchestrator;
+
+    @Autowired
+    private KafkaInboxService inboxService;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Test
+    void releasesTheWholeBatchOnce_andSkipsRedeliveredRecords() {
+        long productId = 90_001L;
+        stockItemRepository.save(new StockItem(productId, 10));
+        List<Long> orderIds = List.of(9_000_001L, 9_000_002L, 9_000_003L);
+        orderIds.forEach(orderId -> assertThat(reservationOrchestrator.reserve(orderId,
+                List.of(new InventoryReservationOrchestrator.ReserveLine(productId, 2))).reserved()).isTrue());
+
+        OrderCancelledBatchListener listener = new OrderCancelledBatchListener(reservationOrchestrator, inboxService);
+        List<ConsumerRecord<String, OrderCancelledEvent>> batch = new ArrayList<>();
+        for (int i = 0; i < orderIds.size(); i++) {
+            batch.add(record(i, orderIds.get(i)));
+        }
+        batch.add(record(3, 9_999_999L)); // never reserved
+
+        listener.onOrderCancelled(batch);
+
+        StockItem item = stockItemRepository.findByProductId(productId).orElseThrow();
+        assertThat(item.getAvailable()).isEqualTo(10);
+        assertThat(item.getReserved()).isZero();
+        assertThat(stockReservationRepository.findAllByOrderIdIn(orderIds))
+                .allMatch(r -> r.getStatus() == ReservationStatus.RELEASED);
+
+        // A redelivered poll (offsets 2..4): only offset 4 is new, and its order has no hold.
+        assertThat(inboxService.tryConsumeAll(List.of(batch.get(2), batch.get(3), record(4, 9_000_001L))))
+                .extracting(ConsumerRecord::offset)
+                .containsExactly(4L);
+    }
+
+    @Test
+    void failedRelease_leavesThePollUnconsumed() {
+        long productId = 90_002L;
+        long orderId = 9_100_001L;
+        stockItemRepository.save(new StockItem(productId, 10));
+        assertThat(reservationOrchestrator.reserve(orderId,
+                List.of(new InventoryReservationOrchestrator.ReserveLine(productId, 2))).reserved()).isTrue();
+        ConsumerRecord<String, OrderCancelledEvent> cancelled = new ConsumerRecord<>(TOPIC, 1, 0, String.valueOf(orderId),
+                new OrderCancelledEvent(orderId, Instant.parse("2026-01-01T00:00:00Z")));
+
+        InventoryReservationOrchestrator failing = Mockito.mock(InventoryReservationOrchestrator.class);
+        when(failing.releaseAll(any())).thenThrow(new IllegalStateException("database unavailable"));
+        assertThatThrownBy(() -> new OrderCancelledBatchListener(failing, inboxService).onOrderCancelled(List.of(cancelled)))
+                .hasMessage("database unavailable");
+
+        // Redelivered: released now.
+        new OrderCancelledBatchListener(reservationOrchestrator, inboxService).onOrderCancelled(List.of(cancelled));
+        assertThat(stockReservationRepository.findByOrderId(orderId).orElseThrow().getStatus()).isEqualTo(ReservationStatus.RELEASED);
+        assertThat(inboxService.unconsumed(List.of(cancelled))).isEmpty();
+    }
+
+    private static ConsumerRecord<String, OrderCancelledEvent> record(long offset, long orderId) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, String.valueOf(orderId),
+                new OrderCancelledEvent(orderId, Instant.parse("2026-01-01T00:00:00Z")));
+    }
+}
@@ -1,7 +1,7 @@
 package com.aszender.inventory.kafka.consume;
 
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
 import com.aszender.inventory.kafka.events.ProductCreatedEvent;
-import com.aszender.inventory.kafka.inbox.KafkaInboxService;
 import com.aszender.inventory.service.InventoryService;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.BeforeEach;
@@ -0,0 +1,162 @@
+package com.aszender.inventory.kafka.outbox;
+
+import com.aszender.contracts.events.v1.LowStock;
+import com.aszender.contracts.kafka.EventContentType;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import com.aszender.inventory.service.InventoryReservationOrchestrator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "app.kafka.topics.stock-reserved=inventory.stock-reserved.v1",
+        "app.kafka.topics.stock-released=inventory.stock-released.v1",
+        "app.kafka.topics.stock-reservation-failed=inventory.stock-reservation-failed.v1",
+        "app.kafka.topics.low-stock=inventory.low-stock.v1"
+})
+class OutboxRelayTest {
+
+    // Stand-in for the broker: one simulated round trip per batch, records kept per key.
+    static class InMemoryBroker implements OutboxSender {
+        final Map<String, List<Long>> idsByKey = new ConcurrentHashMap<>();
+        final List<OutboxEvent> received = new ArrayList<>();
+
+        @Override
+        public synchronized int send(List<OutboxEvent> events) {
+            LockSupport.parkNanos(Duration.ofMillis(1).toNanos());
+            for (OutboxEvent event : events) {
+                idsByKey.computeIfAbsent(event.getMessageKey(), k -> new ArrayList<>()).add(event.getId());
+                received.add(event);
+            }
+            return events.size();
+        }
+    }
+
+    @TestConfiguration
+    static class OutboxConfig {
+        @Bean
+        InMemoryBroker inMemoryBroker() {
+            return new InMemoryBroker();
+        }
+
+        @Bean
+        OutboxRelay outboxRelay(OutboxEventRepository repository, InMemoryBroker broker, PlatformTransactionManager transactionManager) {
+            // Not started: the tests drive relayPending() directly.
+            return new OutboxRelay(repository, broker, transactionManager, 500, 60_000, Duration.ofHours(1)) {
+                @Override
+                public boolean isAutoStartup() {
+                    return false;
+                }
+            };
+        }
+
+        @Bean
+        @Primary
+        OutboxStockEventsPublisher outboxStockEventsPublisher(OutboxEventRepository repository, OutboxRelay relay) {
+            return new OutboxStockEventsPublisher(repository, relay,
+                    "inventory.stock-reserved.v1", "inventory.stock-released.v1",
+                    "inventory.stock-reservation-failed.v1", "inventory.low-stock.v1",
+                    Set.of("inventory.low-stock.v1"));
+        }
+    }
+
+    @Autowired
+    private InventoryReservationOrchestrator reservationOrchestrator;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private InMemoryBroker broker;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void eventsAreWrittenWithTheReservation_andRelayedInOrder() throws Exception {
+        relay.relayPending();
+        long productId = 80_001L;
+        stockItemRepository.save(new StockItem(productId, 8));
+        List<InventoryReservationOrchestrator.ReserveLine> lines =
+                List.of(new InventoryReservationOrchestrator.ReserveLine(productId, 4));
+
+        assertThat(reservationOrchestrator.reserve(8_000_001L, lines).reserved()).isTrue();
+        assertThat(reservationOrchestrator.reserve(8_000_002L, lines).reserved()).isTrue();   // crosses 5
+        assertThat(reservationOrchestrator.reserve(8_000_003L, lines).reserved()).isFalse();  // rolled back
+        assertThat(reservationOrchestrator.release(8_000_001L)).isTrue();
+
+        List<OutboxEvent> pending = outboxEventRepository.findPendingAfter(0, PageRequest.of(0, 100));
+        assertThat(pending).extracting(OutboxEvent::getTopic).containsExactly(
+                "inventory.stock-reserved.v1",
+                "inventory.low-stock.v1",                // 8 -> 4 crosses the default threshold (5)
+                "inventory.stock-reserved.v1",
+                "inventory.stock-reservation-failed.v1",
+                "inventory.stock-released.v1"
+        );
+        assertThat(new String(pending.get(0).getPayload(), StandardCharsets.UTF_8)).contains("\"orderId\":8000001");
+        assertThat(pending.get(0).getContentType()).isNull();
+        assertThat(pending.get(1).getContentType()).isEqualTo(EventContentType.PROTOBUF);
+        assertThat(LowStock.parseFrom(pending.get(1).getPayload()).getProductId()).isEqualTo(productId);
+
+        assertThat(relay.relayPending()).isEqualTo(5);
+        assertThat(outboxEventRepository.countBySentAtIsNull()).isZero();
+        assertThat(broker.idsByKey.get("8000001")).isSorted().hasSize(2);
+    }
+
+    @Tag("benchmark")
+    @Test
+    void relayThroughput_withBrokerStandIn() {
+        relay.relayPending();
+        for (int events : new int[]{1_000, 10_000, 50_000}) {
+            insertPending(events);
+
+            long start = System.nanoTime();
+            int sent = relay.relayPending();
+            long elapsedMicros = Math.max(1, (System.nanoTime() - start) / 1_000);
+
+            System.out.printf("Outbox relay: %d events in %dms (%d events/s, batch 500)%n",
+                    sent, elapsedMicros / 1_000, sent * 1_000_000L / elapsedMicros);
+            assertThat(sent).isEqualTo(events);
+        }
+        broker.idsByKey.values().forEach(ids -> assertThat(ids).isSorted());
+    }
+
+    private void insertPending(int count) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = IntStream.range(0, count)
+                .mapToObj(i -> new Object[]{"inventory.stock-reserved.v1", "bench-" + (i % 64), ("{\"orderId\":" + i + "}").getBytes(StandardCharsets.UTF_8), now})
+                .toList();
+        jdbcTemplate.batchUpdate(
+                "insert into outbox_events (topic, message_key, payload, created_at) values (?, ?, ?, ?)", rows);
+    }
+}
@@ -0,0 +1,102 @@
+package com.aszender.inventory.kafka.serde;
+
+import com.aszender.contracts.events.v1.OrderCreated;
+import com.aszender.contracts.events.v1.OrderItem;
+import com.aszender.contracts.events.v1.StockReserved;
+import com.aszender.contracts.kafka.ContentTypeDelegatingDeserializer;
+import com.aszender.contracts.kafka.ProtoTimestamps;
+import com.aszender.contracts.kafka.ProtobufDeserializer;
+import com.aszender.contracts.kafka.ProtobufSerializer;
+import com.aszender.inventory.kafka.events.OrderCreatedEvent;
+import com.aszender.inventory.kafka.events.OrderItemEvent;
+import com.aszender.inventory.kafka.events.StockReservedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Encoding a typical StockReservedEvent (five lines) as JSON, the way the JsonSerializer does, and as
+ * protobuf: record size, and encode / decode time per event.
+ */
+class EventEncodingBenchmarkTest {
+
+    private static final int EVENTS = 100_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final StockReservedEvent event = new StockReservedEvent(8_123_456L, "2026-03-14T09:26:53.589793Z",
+            LongStream.rangeClosed(1, 5).mapToObj(i -> new OrderItemEvent(10_000L + i * 37, (int) i)).toList());
+
+    @Tag("benchmark")
+    @Test
+    void protobufRecordsAreSmallerAndCheaperThanJson() throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(event);
+        byte[] protobuf = StockEventMessages.toMessage(event).toByteArray();
+
+        StockReserved decoded = StockReserved.parseFrom(protobuf);
+        assertThat(decoded.getOrderId()).isEqualTo(event.orderId());
+        assertThat(ProtoTimestamps.toInstant(decoded.getReservedAt()).toString()).isEqualTo(event.reservedAt());
+        assertThat(decoded.getItemsList()).extracting(OrderItem::getQuantity).containsExactly(1, 2, 3, 4, 5);
+
+        for (int round = 0; round < 3; round++) { // the last round is the measured one
+            long jsonEncode = time(() -> objectMapper.writeValueAsBytes(event));
+            long protobufEncode = time(() -> StockEventMessages.toMessage(event).toByteArray());
+            long jsonDecode = time(() -> objectMapper.readValue(json, StockReservedEvent.class));
+            long protobufDecode = time(() -> StockReserved.parseFrom(protobuf));
+            if (round == 2) {
+                System.out.printf("StockReservedEvent: json %d bytes, encode %dns, decode %dns | protobuf %d bytes, encode %dns, decode %dns%n",
+                        json.length, jsonEncode / EVENTS, jsonDecode / EVENTS,
+                        protobuf.length, protobufEncode / EVENTS, protobufDecode / EVENTS);
+            }
+        }
+        assertThat(protobuf.length).isLessThan(json.length / 2);
+    }
+
+    @Test
+    void consumersReadBothEncodingsOfATopic() {
+        String topic = "orders.order-created.v1";
+        Deserializer<Object> deserializer = new ContentTypeDelegatingDeserializer(
+                Map.of(topic, new ProtobufDeserializer<>(OrderCreated.parser(), StockEventMessages::fromMessage)),
+                new Deserializer<>() {
+                    @Override
+                    public Object deserialize(String t, byte[] data) {
+                        return new String(data, StandardCharsets.UTF_8);
+                    }
+                });
+        OrderCreated message = OrderCreated.newBuilder()
+                .setOrderId(42)
+                .setCreatedAt(ProtoTimestamps.of(Instant.parse("2026-03-14T09:26:53Z")))
+                .addItems(OrderItem.newBuilder().setProductId(7).setQuantity(2))
+                .build();
+
+        RecordHeaders protobufHeaders = new RecordHeaders();
+        byte[] protobuf = ProtobufSerializer.forMessages().serialize(topic, protobufHeaders, message);
+        byte[] json = "{\"orderId\":42}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(deserializer.deserialize(topic, protobufHeaders, protobuf)).isEqualTo(new OrderCreatedEvent(
+                42L, Instant.parse("2026-03-14T09:26:53Z"), List.of(new OrderItemEvent(7L, 2))));
+        assertThat(deserializer.deserialize(topic, new RecordHeaders(), json)).isEqualTo("{\"orderId\":42}");
+    }
+
+    private interface Encoding {
+        Object run() throws Exception;
+    }
+
+    private static long time(Encoding encoding) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            encoding.run();
+        }
+        return System.nanoTime() - start;
+    }
+}
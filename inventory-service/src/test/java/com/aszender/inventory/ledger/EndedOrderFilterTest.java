@@ -0,0 +1,34 @@
+package com.aszender.inventory.ledger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EndedOrderFilterTest {
+
+    @Test
+    void addedOrdersAlwaysMatch_othersRarely() {
+        EndedOrderFilter filter = new EndedOrderFilter(1 << 20);
+        for (long orderId = 1; orderId <= 50_000; orderId++) {
+            filter.add(orderId);
+        }
+
+        for (long orderId = 1; orderId <= 50_000; orderId++) {
+            assertThat(filter.mightContain(orderId)).isTrue();
+        }
+        int falsePositives = 0;
+        for (long orderId = 50_001; orderId <= 150_000; orderId++) {
+            if (filter.mightContain(orderId)) {
+                falsePositives++;
+            }
+        }
+        // ~0.2% expected for 50k ids in 1M bits with 4 hashes.
+        assertThat(falsePositives).isLessThan(1_000);
+    }
+
+    @Test
+    void sizeMustBeAPowerOfTwo() {
+        assertThatThrownBy(() -> new EndedOrderFilter(1_000_000)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
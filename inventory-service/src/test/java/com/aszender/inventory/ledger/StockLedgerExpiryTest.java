@@ -0,0 +1,77 @@
+package com.aszender.inventory.ledger;
+
+import com.aszender.inventory.model.ReservationStatus;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.model.StockReservation;
+import com.aszender.inventory.repository.StockItemRepository;
+import com.aszender.inventory.repository.StockReservationRepository;
+import com.aszender.inventory.service.InventoryReservationOrchestrator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A hold that falls due before the write-behind has written its row still expires, at the deadline
+ * fixed when it was reserved.
+ */
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:ledger-expiry-test", // no holds left by other tests' contexts
+        "app.inventory.ledger.enabled=true",
+        "app.inventory.ledger.journal-path=target/ledger-test/${random.uuid}.journal",
+        "app.inventory.ledger.flush-interval-ms=600000", // the test flushes itself
+        "app.inventory.reservation-ttl=300ms",
+        "app.inventory.expiry.tick-ms=50"
+})
+class StockLedgerExpiryTest {
+
+    @Autowired
+    private InventoryReservationOrchestrator reservationOrchestrator;
+
+    @Autowired
+    private StockLedgerWriteBehind writeBehind;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Test
+    void holdDueDuringWriteBehindLag_expiresOnceWritten() throws Exception {
+        long productId = 40_101L;
+        long orderId = 4_010_001L;
+        stockItemRepository.save(new StockItem(productId, 10));
+
+        Instant before = Instant.now();
+        assertThat(reservationOrchestrator.reserve(orderId, List.of(
+                new InventoryReservationOrchestrator.ReserveLine(productId, 4))).reserved()).isTrue();
+        Instant after = Instant.now();
+
+        // Several expiry ticks pass while the row is not in the database yet.
+        Thread.sleep(600);
+        assertThat(stockLedger.isUnpersistedHold(orderId)).isTrue();
+
+        writeBehind.flush();
+        StockReservation row = stockReservationRepository.findByOrderId(orderId).orElseThrow();
+        assertThat(row.getExpiresAt()).isBetween(before.plusMillis(300), after.plusMillis(300));
+
+        ReservationStatus status = row.getStatus();
+        for (int i = 0; i < 100 && status != ReservationStatus.EXPIRED; i++) {
+            Thread.sleep(50);
+            writeBehind.flush();
+            status = stockReservationRepository.findByOrderId(orderId).orElseThrow().getStatus();
+        }
+        assertThat(status).isEqualTo(ReservationStatus.EXPIRED);
+        assertThat(stockItemRepository.findByProductId(productId).orElseThrow().getAvailable()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,97 @@
+package com.aszender.inventory.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockLedgerJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsSurviveReopen_andTornTailIsCutOff() throws IOException {
+        Path file = dir.resolve("ledger.journal");
+        StockLedgerJournal journal = new StockLedgerJournal(file.toString(), true, 1 << 20);
+        journal.startAfter(41);
+        Instant expiresAt = Instant.ofEpochMilli(1_700_000_000_123L);
+        journal.append(LedgerRecord.Type.RESERVE, 7L, List.of(new LedgerRecord.Line(1L, 2), new LedgerRecord.Line(3L, 4)), expiresAt);
+        LedgerRecord release = journal.append(LedgerRecord.Type.RELEASE, 7L, List.of(new LedgerRecord.Line(1L, 2)), null);
+        journal.sync(release.seq());
+        long intactSize = journal.size();
+        journal.close();
+
+        // Simulate a crash in the middle of the next append.
+        Files.write(segments().get(0), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        StockLedgerJournal reopened = new StockLedgerJournal(file.toString(), true, 1 << 20);
+        List<LedgerRecord> records = readAll(reopened);
+
+        assertThat(records).extracting(LedgerRecord::seq).containsExactly(42L, 43L);
+        assertThat(records.get(0).lines()).containsExactly(new LedgerRecord.Line(1L, 2), new LedgerRecord.Line(3L, 4));
+        assertThat(records.get(0).expiresAt()).isEqualTo(expiresAt);
+        assertThat(records.get(1).type()).isEqualTo(LedgerRecord.Type.RELEASE);
+        assertThat(records.get(1).expiresAt()).isNull();
+        assertThat(reopened.size()).isEqualTo(intactSize);
+
+        reopened.checkpoint(42L);
+        assertThat(reopened.size()).isEqualTo(intactSize);
+        reopened.checkpoint(43L);
+        assertThat(reopened.size()).isZero();
+        assertThat(readAll(reopened)).isEmpty();
+        reopened.close();
+    }
+
+    @Test
+    void persistedSegmentsAreDeleted_whileAppendsNeverStop() throws IOException {
+        Path file = dir.resolve("ledger.journal");
+        StockLedgerJournal journal = new StockLedgerJournal(file.toString(), false, 1_000);
+        List<LedgerRecord.Line> lines = List.of(new LedgerRecord.Line(1L, 1));
+
+        // The write-behind always lags a few records behind: the journal is never fully persisted.
+        long persisted = 0;
+        for (int i = 0; i < 2_000; i++) {
+            LedgerRecord record = journal.append(LedgerRecord.Type.RESERVE, i, lines, null);
+            if (record.seq() % 50 == 0) {
+                persisted = record.seq() - 10;
+                journal.checkpoint(persisted);
+            }
+        }
+        assertThat(journal.segmentCount()).isLessThanOrEqualTo(3);
+        assertThat(journal.size()).isLessThan(3_000);
+        journal.close();
+
+        // Replay still yields every unpersisted record, in order, across the remaining segments.
+        StockLedgerJournal reopened = new StockLedgerJournal(file.toString(), false, 1_000);
+        List<Long> seqs = readAll(reopened).stream().map(LedgerRecord::seq).toList();
+        assertThat(seqs.get(0)).isLessThanOrEqualTo(persisted + 1);
+        assertThat(seqs).endsWith(2_000L);
+        for (int i = 1; i < seqs.size(); i++) {
+            assertThat(seqs.get(i)).isEqualTo(seqs.get(i - 1) + 1);
+        }
+        assertThat(reopened.append(LedgerRecord.Type.RELEASE, 1L, lines, null).seq()).isEqualTo(2_001L);
+        reopened.close();
+    }
+
+    private static List<LedgerRecord> readAll(StockLedgerJournal journal) {
+        List<LedgerRecord> records = new ArrayList<>();
+        journal.replay(records::add);
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.aszender.inventory.ledger;
+
+import com.aszender.inventory.model.ReservationStatus;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import com.aszender.inventory.repository.StockReservationRepository;
+import com.aszender.inventory.service.InventoryReservationOrchestrator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "app.inventory.ledger.enabled=true",
+        "app.inventory.ledger.journal-path=target/ledger-test/${random.uuid}.journal",
+        "app.inventory.ledger.flush-interval-ms=600000" // the tests flush themselves
+})
+class StockLedgerTest {
+
+    @Autowired
+    private InventoryReservationOrchestrator reservationOrchestrator;
+
+    @Autowired
+    private StockLedgerWriteBehind writeBehind;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Test
+    void concurrentReservations_decidedInMemory_flushedToDatabase() throws Exception {
+        long productId = 40_001L;
+        stockItemRepository.save(new StockItem(productId, 300));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<InventoryReservationOrchestrator.ReserveResult>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (long orderId = 4_000_001L; orderId <= 4_000_200L; orderId++) {
+            long id = orderId;
+            results.add(executor.submit(() -> reservationOrchestrator.reserve(
+                    id, List.of(new InventoryReservationOrchestrator.ReserveLine(productId, 2)))));
+        }
+
+        int reserved = 0;
+        for (Future<InventoryReservationOrchestrator.ReserveResult> result : results) {
+            if (result.get().reserved()) {
+                reserved++;
+            }
+        }
+        long elapsedMicros = Math.max(1, (System.nanoTime() - start) / 1_000);
+        executor.shutdown();
+        System.out.printf("Ledger: %d reservations in %dus%n", reserved, elapsedMicros);
+        assertThat(reserved).isEqualTo(150);
+
+        writeBehind.flush();
+
+        StockItem item = stockItemRepository.findByProductId(productId).orElseThrow();
+        assertThat(item.getAvailable()).isZero();
+        assertThat(item.getReserved()).isEqualTo(300);
+        assertThat(stockReservationRepository.findByOrderId(4_000_001L)).isPresent();
+    }
+
+    @Test
+    void releaseAndIdempotency_matchDatabaseBackedBehaviour() {
+        long productId = 40_002L;
+        long orderId = 4_100_001L;
+        stockItemRepository.save(new StockItem(productId, 10));
+        List<InventoryReservationOrchestrator.ReserveLine> lines =
+                List.of(new InventoryReservationOrchestrator.ReserveLine(productId, 4));
+
+        assertThat(reservationOrchestrator.reserve(orderId, lines).reserved()).isTrue();
+        assertThat(reservationOrchestrator.reserve(orderId, lines).reserved()).isTrue();
+        assertThat(reservationOrchestrator.release(orderId)).isTrue();
+        assertThat(reservationOrchestrator.reserve(orderId, lines).reserved()).isFalse();
+        assertThat(reservationOrchestrator.release(4_100_002L)).isFalse();
+
+        int tracked = stockLedger.trackedOrders();
+        writeBehind.flush();
+        assertThat(stockLedger.trackedOrders()).isEqualTo(tracked - 1);
+
+        StockItem item = stockItemRepository.findByProductId(productId).orElseThrow();
+        assertThat(item.getAvailable()).isEqualTo(10);
+        assertThat(item.getReserved()).isZero();
+        assertThat(stockReservationRepository.findByOrderId(orderId).orElseThrow().getStatus())
+                .isEqualTo(ReservationStatus.RELEASED);
+
+        // The ended hold left memory once persisted; the reservation row keeps the order idempotent.
+        assertThat(reservationOrchestrator.reserve(orderId, lines).reserved()).isFalse();
+        assertThat(reservationOrchestrator.release(orderId)).isTrue();
+        assertThat(stockLedger.trackedOrders()).isEqualTo(tracked - 1);
+        assertThat(stockLedger.balance(productId).orElseThrow().available()).isEqualTo(10);
+    }
+
+    @Test
+    void expireAll_releasesOnlyOpenHolds() {
+        long productId = 40_003L;
+        stockItemRepository.save(new StockItem(productId, 10));
+        List<InventoryReservationOrchestrator.ReserveLine> lines =
+                List.of(new InventoryReservationOrchestrator.ReserveLine(productId, 3));
+
+        assertThat(reservationOrchestrator.reserve(4_200_001L, lines).reserved()).isTrue();
+        assertThat(reservationOrchestrator.reserve(4_200_002L, lines).reserved()).isTrue();
+        assertThat(reservationOrchestrator.release(4_200_002L)).isTrue();
+
+        assertThat(stockLedger.expireAll(List.of(4_200_001L, 4_200_002L, 4_200_003L))).containsExactly(4_200_001L);
+        assertThat(stockLedger.expireAll(List.of(4_200_001L))).isEmpty();
+        assertThat(stockLedger.balance(productId).orElseThrow().available()).isEqualTo(10);
+        writeBehind.flush();
+    }
+}
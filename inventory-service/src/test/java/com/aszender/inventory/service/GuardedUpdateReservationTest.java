@@ -0,0 +1,80 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "app.inventory.reservation-mode=GUARDED_UPDATE"
+})
+class GuardedUpdateReservationTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Test
+    void concurrentReservationsOnHotSku_neverOversell() throws Exception {
+        long hotProductId = 20_001L;
+        stockItemRepository.save(new StockItem(hotProductId, 100));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<InventoryService.ReservationOutcome>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (long orderId = 2_000_001L; orderId <= 2_000_150L; orderId++) {
+            long id = orderId;
+            results.add(executor.submit(() -> inventoryService.reserveStock(
+                    id, List.of(new InventoryService.ReservationLine(hotProductId, 1)))));
+        }
+
+        int reserved = 0;
+        int lowStockCrossings = 0;
+        for (Future<InventoryService.ReservationOutcome> result : results) {
+            if (result.get().reserved()) {
+                reserved++;
+            }
+            lowStockCrossings += result.get().lowStockCrossings().size();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        executor.shutdown();
+        System.out.printf("GUARDED_UPDATE hot SKU: %d reservations in %dms (%d/s)%n",
+                reserved, elapsedMillis, reserved * 1000L / elapsedMillis);
+
+        StockItem stockItem = stockItemRepository.findByProductId(hotProductId).orElseThrow();
+        assertThat(reserved).isEqualTo(100);
+        assertThat(stockItem.getAvailable()).isZero();
+        assertThat(stockItem.getReserved()).isEqualTo(100);
+        // Crossing the default threshold (5) is reported by exactly one of the concurrent reservations.
+        assertThat(lowStockCrossings).isEqualTo(1);
+    }
+
+    @Test
+    void reserveStock_whenOneLineIsShort_rollsBackEarlierLines() {
+        long plentyProductId = 20_002L;
+        long shortProductId = 20_003L;
+        stockItemRepository.save(new StockItem(plentyProductId, 10));
+        stockItemRepository.save(new StockItem(shortProductId, 1));
+
+        boolean reserved = inventoryService.reserveStock(2_100_001L, List.of(
+                new InventoryService.ReservationLine(plentyProductId, 5),
+                new InventoryService.ReservationLine(shortProductId, 2)
+        )).reserved();
+
+        assertThat(reserved).isFalse();
+        assertThat(stockItemRepository.findByProductId(plentyProductId).orElseThrow().getAvailable()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,94 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements-per-order and latency of the set-based reservation path for 1, 10 and 100-line orders.
+ * The previous per-line loop issued 1 + 2N selects plus N updates; the set-based path must keep
+ * the number of selects constant regardless of the number of lines.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class InventoryServiceReservationBenchmarkTest {
+
+    private static final long FIRST_PRODUCT_ID = 10_000L;
+    private static final int ITERATIONS = 50;
+    private static final AtomicLong ORDER_IDS = new AtomicLong(1_000_000L);
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        LongStream.range(FIRST_PRODUCT_ID, FIRST_PRODUCT_ID + 100)
+                .filter(productId -> stockItemRepository.findByProductId(productId).isEmpty())
+                .forEach(productId -> stockItemRepository.save(new StockItem(productId, 1_000_000)));
+    }
+
+    @Test
+    void reserveStock_selectCountDoesNotGrowWithLines() {
+        long selectsForOneLine = measure(1);
+        long selectsForTenLines = measure(10);
+        long selectsForHundredLines = measure(100);
+
+        assertThat(selectsForTenLines).isEqualTo(selectsForOneLine);
+        assertThat(selectsForHundredLines).isEqualTo(selectsForOneLine);
+    }
+
+    private long measure(int lineCount) {
+        List<InventoryService.ReservationLine> lines = new ArrayList<>();
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(new InventoryService.ReservationLine(FIRST_PRODUCT_ID + i, 1));
+        }
+
+        long[] latenciesNanos = new long[ITERATIONS];
+        long statements = 0;
+        long selects = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            statistics.clear();
+            long start = System.nanoTime();
+            boolean reserved = inventoryService.reserveStock(ORDER_IDS.incrementAndGet(), lines).reserved();
+            latenciesNanos[i] = System.nanoTime() - start;
+
+            assertThat(reserved).isTrue();
+            statements = statistics.getPrepareStatementCount();
+            selects = statistics.getQueryExecutionCount();
+        }
+
+        Arrays.sort(latenciesNanos);
+        long p99Micros = latenciesNanos[(int) Math.ceil(ITERATIONS * 0.99) - 1] / 1_000;
+        System.out.printf("reserveStock lines=%d statements/order=%d selects/order=%d p99=%dus%n",
+                lineCount, statements, selects, p99Micros);
+        return selects;
+    }
+}
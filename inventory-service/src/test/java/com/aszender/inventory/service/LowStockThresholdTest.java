@@ -0,0 +1,46 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+class LowStockThresholdTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryReservationOrchestrator reservationOrchestrator;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Test
+    void perProductThreshold_isCrossedOnce_withBeforeAndAfterFromTheLockedRow() {
+        long productId = 70_001L;
+        stockItemRepository.save(new StockItem(productId, 10));
+        assertThat(reservationOrchestrator.changeLowStockThreshold(productId, 3)).isTrue();
+
+        InventoryService.ReservationOutcome first = inventoryService.reserveStock(7_000_001L,
+                List.of(new InventoryService.ReservationLine(productId, 6)));
+        InventoryService.ReservationOutcome second = inventoryService.reserveStock(7_000_002L,
+                List.of(new InventoryService.ReservationLine(productId, 1)));
+        InventoryService.ReservationOutcome third = inventoryService.reserveStock(7_000_003L,
+                List.of(new InventoryService.ReservationLine(productId, 1)));
+
+        assertThat(first.lowStockCrossings()).isEmpty(); // 10 -> 4, still above 3
+        assertThat(second.lowStockCrossings())
+                .containsExactly(new LowStockDetector.LowStockCrossing(productId, 4, 3, 3));
+        assertThat(third.lowStockCrossings()).isEmpty(); // already low
+    }
+}
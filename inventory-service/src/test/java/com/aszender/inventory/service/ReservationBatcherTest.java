@@ -0,0 +1,151 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import com.aszender.inventory.repository.StockReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "app.inventory.batching.enabled=true",
+        "app.inventory.batching.window-micros=2000"
+})
+class ReservationBatcherTest {
+
+    @Autowired
+    private InventoryReservationOrchestrator reservationOrchestrator;
+
+    @Autowired
+    private ReservationBatcher reservationBatcher;
+
+    @Autowired
+    private ReservationBatchMetrics batchMetrics;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Test
+    void concurrentReservations_committedInBatches_withoutOverselling() throws Exception {
+        long productId = 50_001L;
+        long otherProductId = 50_002L;
+        stockItemRepository.save(new StockItem(productId, 100));
+        stockItemRepository.save(new StockItem(otherProductId, 1_000));
+
+        ReservationBatchMetrics.Snapshot before = batchMetrics.snapshot();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<InventoryReservationOrchestrator.ReserveResult>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (long orderId = 5_000_001L; orderId <= 5_000_080L; orderId++) {
+            long id = orderId;
+            results.add(executor.submit(() -> reservationOrchestrator.reserve(id, List.of(
+                    new InventoryReservationOrchestrator.ReserveLine(productId, 2),
+                    new InventoryReservationOrchestrator.ReserveLine(otherProductId, 1)))));
+        }
+
+        int reserved = 0;
+        for (Future<InventoryReservationOrchestrator.ReserveResult> result : results) {
+            if (result.get().reserved()) {
+                reserved++;
+            }
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        executor.shutdown();
+
+        ReservationBatchMetrics.Snapshot metrics = batchMetrics.snapshot();
+        long batches = metrics.batches() - before.batches();
+        System.out.printf("Batched: %d reservations in %dms, %d batches, avg queue %dus%n",
+                reserved, elapsedMillis, batches, metrics.averageQueueMicros());
+
+        // 100 / 2: the rest are rejected individually while their batch-mates still commit.
+        assertThat(reserved).isEqualTo(50);
+        assertThat(metrics.requests() - before.requests()).isEqualTo(80);
+        assertThat(batches).isLessThan(80);
+
+        StockItem item = stockItemRepository.findByProductId(productId).orElseThrow();
+        StockItem other = stockItemRepository.findByProductId(otherProductId).orElseThrow();
+        assertThat(item.getAvailable()).isZero();
+        assertThat(other.getReserved()).isEqualTo(50);
+        assertThat(stockReservationRepository.findByOrderId(5_000_001L)).isPresent();
+    }
+
+    @Test
+    void duplicateOrderInFlight_isReservedOnce() throws Exception {
+        long productId = 50_003L;
+        stockItemRepository.save(new StockItem(productId, 10));
+        List<InventoryReservationOrchestrator.ReserveLine> lines =
+                List.of(new InventoryReservationOrchestrator.ReserveLine(productId, 3));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<InventoryReservationOrchestrator.ReserveResult>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> reservationOrchestrator.reserve(5_100_001L, lines)));
+        }
+        for (Future<InventoryReservationOrchestrator.ReserveResult> result : results) {
+            assertThat(result.get().reserved()).isTrue();
+        }
+        executor.shutdown();
+
+        assertThat(stockItemRepository.findByProductId(productId).orElseThrow().getReserved()).isEqualTo(3);
+    }
+
+    @Test
+    void failingOrderInBatch_failsAlone() throws Exception {
+        long productId = 50_004L;
+        stockItemRepository.save(new StockItem(productId, 100));
+        List<InventoryService.ReservationLine> lines = List.of(new InventoryService.ReservationLine(productId, 1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<InventoryService.ReservationOutcome>> results = new ArrayList<>();
+        for (long orderId = 5_200_001L; orderId <= 5_200_008L; orderId++) {
+            long id = orderId;
+            results.add(executor.submit(() -> reservationBatcher.reserve(id, lines, outcome -> {
+                if (id == 5_200_004L) {
+                    throw new IllegalStateException("event write failed");
+                }
+            })));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            Future<InventoryService.ReservationOutcome> result = results.get(i);
+            if (i == 3) {
+                assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS)).hasRootCauseMessage("event write failed");
+            } else {
+                assertThat(result.get(10, TimeUnit.SECONDS).reserved()).isTrue();
+            }
+        }
+        executor.shutdown();
+
+        assertThat(stockItemRepository.findByProductId(productId).orElseThrow().getReserved()).isEqualTo(7);
+        assertThat(stockReservationRepository.findByOrderId(5_200_004L)).isEmpty();
+    }
+
+    @Test
+    void submissionAfterStop_isLeftToTheCaller() {
+        long productId = 50_005L;
+        stockItemRepository.save(new StockItem(productId, 10));
+        reservationBatcher.stop();
+        try {
+            assertThat(reservationBatcher.reserve(5_300_001L, List.of(new InventoryService.ReservationLine(productId, 1)), outcome -> {
+            })).isNull();
+            assertThat(reservationOrchestrator.reserve(5_300_002L, List.of(
+                    new InventoryReservationOrchestrator.ReserveLine(productId, 1))).reserved()).isTrue();
+        } finally {
+            reservationBatcher.start();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.model.ReservationStatus;
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockItemRepository;
+import com.aszender.inventory.repository.StockReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "app.inventory.reservation-ttl=200ms",
+        "app.inventory.expiry.tick-ms=600000"
+})
+class ReservationExpirySchedulerTest {
+
+    @Autowired
+    private InventoryReservationOrchestrator reservationOrchestrator;
+
+    @Autowired
+    private ReservationExpiryScheduler expiryScheduler;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Test
+    void abandonedHoldsExpire_confirmedAndReleasedOnesAreSkipped() throws Exception {
+        long productId = 60_001L;
+        stockItemRepository.save(new StockItem(productId, 10));
+        List<InventoryReservationOrchestrator.ReserveLine> lines =
+                List.of(new InventoryReservationOrchestrator.ReserveLine(productId, 2));
+
+        long abandoned = 6_000_001L;
+        long confirmed = 6_000_002L;
+        long cancelled = 6_000_003L;
+        assertThat(reservationOrchestrator.reserve(abandoned, lines).reserved()).isTrue();
+        assertThat(reservationOrchestrator.reserve(confirmed, lines).reserved()).isTrue();
+        assertThat(reservationOrchestrator.reserve(cancelled, lines).reserved()).isTrue();
+        assertThat(reservationOrchestrator.confirm(confirmed)).isTrue();
+        assertThat(reservationOrchestrator.release(cancelled)).isTrue();
+
+        assertThat(expiryScheduler.expireDue()).isZero(); // not due yet
+        Thread.sleep(300);
+        assertThat(expiryScheduler.expireDue()).isEqualTo(1);
+
+        assertThat(stockReservationRepository.findByOrderId(abandoned).orElseThrow().getStatus())
+                .isEqualTo(ReservationStatus.EXPIRED);
+        assertThat(stockReservationRepository.findByOrderId(confirmed).orElseThrow().getStatus())
+                .isEqualTo(ReservationStatus.RESERVED);
+        StockItem item = stockItemRepository.findByProductId(productId).orElseThrow();
+        assertThat(item.getAvailable()).isEqualTo(8);
+        assertThat(item.getReserved()).isEqualTo(2);
+
+        // An expired hold is not re-reserved by a late retry of the same order, and releasing it is a no-op.
+        assertThat(reservationOrchestrator.reserve(abandoned, lines).reserved()).isFalse();
+        assertThat(reservationOrchestrator.release(abandoned)).isTrue();
+        assertThat(stockItemRepository.findByProductId(productId).orElseThrow().getAvailable()).isEqualTo(8);
+    }
+}
@@ -0,0 +1,59 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.repository.StockItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReservationRetryExecutorTest {
+
+    private InventoryContentionMetrics metrics;
+    private ReservationRetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new InventoryContentionMetrics();
+        executor = new ReservationRetryExecutor(Mockito.mock(StockItemRepository.class), metrics, 3, 1, 2);
+    }
+
+    @Test
+    void execute_whenConflictThenSuccess_retriesAndRecordsPerProduct() {
+        AtomicInteger calls = new AtomicInteger();
+
+        boolean result = executor.execute(List.of(7L), () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new OptimisticLockingFailureException("stale stock item");
+            }
+            return true;
+        });
+
+        assertThat(result).isTrue();
+        assertThat(calls.get()).isEqualTo(2);
+        InventoryContentionMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.conflicts()).isEqualTo(1);
+        assertThat(snapshot.retries()).isEqualTo(1);
+        assertThat(snapshot.giveUps()).isZero();
+        assertThat(snapshot.products()).containsExactly(new InventoryContentionMetrics.ProductContention(7L, 1, 1, 0));
+    }
+
+    @Test
+    void execute_whenAlwaysConflicting_givesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute(List.of(7L), () -> {
+            calls.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale stock item");
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(metrics.snapshot().giveUps()).isEqualTo(1);
+        assertThat(metrics.snapshot().retries()).isEqualTo(2);
+    }
+}
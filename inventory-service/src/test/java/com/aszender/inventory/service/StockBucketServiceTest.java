@@ -0,0 +1,124 @@
+package com.aszender.inventory.service;
+
+import com.aszender.inventory.model.StockItem;
+import com.aszender.inventory.repository.StockBucketRepository;
+import com.aszender.inventory.repository.StockItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false"
+})
+class StockBucketServiceTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryReservationOrchestrator reservationOrchestrator;
+
+    @Autowired
+    private StockBucketService stockBucketService;
+
+    @Autowired
+    private StockItemRepository stockItemRepository;
+
+    @Autowired
+    private StockBucketRepository stockBucketRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentReservationsOnBucketedSku_neverOversellAndAggregate() throws Exception {
+        long hotProductId = 30_001L;
+        stockItemRepository.save(new StockItem(hotProductId, 200));
+        stockBucketService.changeBucketCount(hotProductId, 8);
+        assertThat(stockBucketService.isHot(hotProductId)).isTrue();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        // Through the orchestrator so lock conflicts between the round-robin and rebalance paths are retried.
+        List<Future<InventoryReservationOrchestrator.ReserveResult>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (long orderId = 3_000_001L; orderId <= 3_000_150L; orderId++) {
+            long id = orderId;
+            results.add(executor.submit(() -> reservationOrchestrator.reserve(
+                    id, List.of(new InventoryReservationOrchestrator.ReserveLine(hotProductId, 2)))));
+        }
+
+        int reserved = 0;
+        for (Future<InventoryReservationOrchestrator.ReserveResult> result : results) {
+            if (result.get().reserved()) {
+                reserved++;
+            }
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        executor.shutdown();
+        System.out.printf("8 buckets, hot SKU: %d reservations in %dms (%d/s)%n",
+                reserved, elapsedMillis, reserved * 1000L / elapsedMillis);
+
+        StockBucketService.StockLevel level = stockBucketService.findStockLevel(hotProductId).orElseThrow();
+        assertThat(reserved).isEqualTo(100);
+        assertThat(level.available()).isZero();
+        assertThat(level.reserved()).isEqualTo(200);
+    }
+
+    @Test
+    void releaseAndMergeBack_restoreStockOnItemRow() {
+        long hotProductId = 30_002L;
+        stockItemRepository.save(new StockItem(hotProductId, 10));
+        stockBucketService.changeBucketCount(hotProductId, 4);
+
+        // 7 > any single bucket (10 / 4), so this goes through the lock-all-and-rebalance path.
+        assertThat(inventoryService.reserveStock(3_100_001L,
+                List.of(new InventoryService.ReservationLine(hotProductId, 7))).reserved()).isTrue();
+        assertThat(stockBucketService.findStockLevel(hotProductId).orElseThrow().available()).isEqualTo(3);
+
+        stockBucketService.changeBucketCount(hotProductId, 1);
+        assertThat(inventoryService.releaseReservation(3_100_001L)).isTrue();
+
+        StockItem stockItem = stockItemRepository.findByProductId(hotProductId).orElseThrow();
+        assertThat(stockItem.getBucketCount()).isEqualTo(1);
+        assertThat(stockItem.getAvailable()).isEqualTo(10);
+        assertThat(stockItem.getReserved()).isZero();
+    }
+
+    @Test
+    void bucketModeSwitchedByAnotherReplica_isTakenFromTheStockRow() {
+        long productId = 30_003L;
+        stockItemRepository.save(new StockItem(productId, 10));
+        // A second replica: its own bucket-count cache, the same database.
+        StockBucketService otherReplica = new StockBucketService(stockItemRepository, stockBucketRepository);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> otherReplica.changeBucketCount(productId, 4));
+        assertThat(stockBucketService.isHot(productId)).isFalse();
+        assertThat(reservationOrchestrator.reserve(3_200_001L,
+                List.of(new InventoryReservationOrchestrator.ReserveLine(productId, 3))).reserved()).isTrue();
+        assertThat(stockBucketService.isHot(productId)).isTrue();
+
+        transaction.executeWithoutResult(status -> otherReplica.changeBucketCount(productId, 1));
+        assertThat(reservationOrchestrator.reserve(3_200_002L,
+                List.of(new InventoryReservationOrchestrator.ReserveLine(productId, 3))).reserved()).isTrue();
+        assertThat(stockBucketService.isHot(productId)).isFalse();
+
+        StockBucketService.StockLevel level = stockBucketService.findStockLevel(productId).orElseThrow();
+        assertThat(level.available()).isEqualTo(4);
+        assertThat(level.reserved()).isEqualTo(6);
+        assertThat(reservationOrchestrator.release(3_200_001L)).isTrue();
+        assertThat(reservationOrchestrator.release(3_200_002L)).isTrue();
+        assertThat(stockBucketService.findStockLevel(productId).orElseThrow().available()).isEqualTo(10);
+    }
+}
@@ -1,13 +1,44 @@
 package com.aszender.orders.controller;
 
+import com.aszender.contracts.grpc.GrpcMetrics;
+import com.aszender.orders.datasource.ConnectionPoolMetrics;
+import com.aszender.orders.inventory.GrpcInventoryClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 public class HealthController {
 
+    private final GrpcInventoryClient inventoryClient;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+
+    public HealthController(GrpcInventoryClient inventoryClient, ConnectionPoolMetrics connectionPoolMetrics) {
+        this.inventoryClient = inventoryClient;
+        this.connectionPoolMetrics = connectionPoolMetrics;
+    }
+
     @GetMapping("/health")
     public String healthCheck() {
         return "OK";
     }
+
+    // Per-replica view of the inventory load balancer (state, health, load, latency).
+    @GetMapping("/health/inventory")
+    public List<GrpcInventoryClient.EndpointStats> inventoryEndpoints() {
+        return inventoryClient.endpointStats();
+    }
+
+    // Per-method inventory gRPC calls: status codes, in-flight calls, message sizes and latency percentiles.
+    @GetMapping("/health/inventory/calls")
+    public List<GrpcMetrics.MethodSnapshot> inventoryCalls() {
+        return inventoryClient.callMetrics();
+    }
+
+    // Database connection pool: connections in use, waiting threads, and borrow and hold times.
+    @GetMapping("/health/db/pool")
+    public List<ConnectionPoolMetrics.PoolSnapshot> connectionPool() {
+        return connectionPoolMetrics.snapshot();
+    }
 }
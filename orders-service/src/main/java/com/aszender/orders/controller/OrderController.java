@@ -5,22 +5,50 @@ import com.aszender.orders.dto.OrderItemResponse;
 import com.aszender.orders.dto.OrderResponse;
 import com.aszender.orders.model.Order;
 import com.aszender.orders.model.OrderStatus;
+import com.aszender.orders.service.OrderCursor;
+import com.aszender.orders.service.OrderExportService;
+import com.aszender.orders.service.OrderPage;
+import com.aszender.orders.service.OrderPlacementQueue;
 import com.aszender.orders.service.OrderService;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final Optional<OrderPlacementQueue> placementQueue;
+    private final int maxPageSize;
+    private final long outcomeWaitMillis;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(
+            OrderService orderService,
+            OrderExportService orderExportService,
+            Optional<OrderPlacementQueue> placementQueue,
+            @Value("${app.orders.page.max-size:500}") int maxPageSize,
+            @Value("${app.orders.placement.outcome-wait-ms:10000}") long outcomeWaitMillis
+    ) {
         this.orderService = orderService;
+        this.orderExportService = orderExportService;
+        this.placementQueue = placementQueue;
+        this.maxPageSize = maxPageSize;
+        this.outcomeWaitMillis = outcomeWaitMillis;
     }
 
     private static OrderResponse toDto(Order order) {
@@ -38,27 +66,81 @@ public class OrderController {
         );
     }
 
+    /**
+     * Newest orders first, a page at a time. The body stays a plain array; the cursor of the next
+     * page comes in the X-Next-Cursor header (and a Link rel="next"), absent on the last page.
+     */
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> listOrders() {
-        List<OrderResponse> orders = orderService.findAll().stream()
+    public ResponseEntity<List<OrderResponse>> listOrders(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String customer,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        OrderPage page = orderService.findPage(after == null ? null : OrderCursor.decode(after), status, customer, limit);
+        List<OrderResponse> orders = page.orders().stream()
                 .map(OrderController::toDto)
                 .toList();
 
-        return ResponseEntity.ok(orders);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.next() != null) {
+            String cursor = page.next().encode();
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", cursor)
+                    .build().toUriString();
+            response.header(NEXT_CURSOR_HEADER, cursor)
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(orders);
+    }
+
+    /**
+     * Every order as NDJSON, streamed while it is read (see {@link OrderExportService}).
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        StreamingResponseBody body = out -> orderExportService.exportTo(out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrder(@PathVariable Long id) {
-        return ResponseEntity.ok(toDto(orderService.findById(id)));
+        return ResponseEntity.ok(toDto(orderService.findByIdWithItems(id)));
     }
 
+    /**
+     * 201 with the stored order; with async placement, 202 with the order still CREATED while its
+     * stock reservation waits in {@link OrderPlacementQueue} (Location: the order to poll, or GET
+     * .../outcome to wait for it).
+     */
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
+        if (placementQueue.isPresent()) {
+            Order accepted = placementQueue.get().place(() -> orderService.create(request));
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/" + accepted.getId()))
+                    .body(toDto(accepted));
+        }
         Order saved = orderService.create(request);
         URI location = URI.create("/api/orders/" + saved.getId());
         return ResponseEntity.created(location).body(toDto(saved));
     }
 
+    /**
+     * Waits up to app.orders.placement.outcome-wait-ms for the queued reservation of an order and
+     * returns the order; returns it at once when nothing is queued for it (or when the wait ends).
+     */
+    @GetMapping("/{id}/outcome")
+    public CompletableFuture<ResponseEntity<OrderResponse>> placementOutcome(@PathVariable Long id) {
+        CompletableFuture<Order> outcome = placementQueue.flatMap(queue -> queue.outcome(id))
+                .map(pending -> pending.completeOnTimeout(null, outcomeWaitMillis, TimeUnit.MILLISECONDS))
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+        return outcome.thenApply(order -> ResponseEntity.ok(toDto(order != null ? order : orderService.findByIdWithItems(id))));
+    }
+
     @PatchMapping("/{id}/status")
     public ResponseEntity<OrderResponse> updateStatus(
             @PathVariable Long id,
@@ -68,9 +150,10 @@ public class OrderController {
         return ResponseEntity.ok(toDto(updated));
     }
 
+    // Async: the request thread is released while inventory answers.
     @PostMapping("/{id}/reserve")
-    public ResponseEntity<OrderResponse> reserveStock(@PathVariable Long id) {
-        Order updated = orderService.reserveStock(id);
-        return ResponseEntity.ok(toDto(updated));
+    public CompletableFuture<ResponseEntity<OrderResponse>> reserveStock(@PathVariable Long id) {
+        return orderService.reserveStock(id)
+                .thenApply(updated -> ResponseEntity.ok(toDto(updated)));
     }
 }
@@ -0,0 +1,121 @@
+package com.aszender.orders.datasource;
+
+import com.aszender.contracts.grpc.LatencyHistogram;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool usage per Hikari pool: connections (active/idle/waiting threads, as sampled by
+ * Hikari about once a second), how long borrowing a connection took and how long it was held until
+ * returned. The hold time shows whether a transaction spans slow work such as a remote call.
+ */
+@Component
+public class ConnectionPoolMetrics implements MetricsTrackerFactory, BeanPostProcessor {
+
+    private final ConcurrentMap<String, Tracker> pools = new ConcurrentHashMap<>();
+
+    // Hikari only accepts a tracker factory before the pool starts, i.e. before the first connection.
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource && dataSource.getMetricsTrackerFactory() == null) {
+            dataSource.setMetricsTrackerFactory(this);
+        }
+        return bean;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Tracker tracker = new Tracker(poolStats);
+        pools.put(poolName, tracker);
+        return tracker;
+    }
+
+    public List<PoolSnapshot> snapshot() {
+        return pools.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> e.getValue().snapshot(e.getKey()))
+                .toList();
+    }
+
+    private static final class Tracker implements IMetricsTracker {
+
+        private final PoolStats poolStats;
+        private final LatencyHistogram acquireMicros = new LatencyHistogram();
+        // Hikari reports usage in whole milliseconds.
+        private final LatencyHistogram usageMillis = new LatencyHistogram();
+        private final LongAdder timeouts = new LongAdder();
+
+        private Tracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireMicros.record(elapsedAcquiredNanos / 1_000);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.record(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        private PoolSnapshot snapshot(String poolName) {
+            return new PoolSnapshot(
+                    poolName,
+                    poolStats.getMaxConnections(),
+                    poolStats.getTotalConnections(),
+                    poolStats.getActiveConnections(),
+                    poolStats.getIdleConnections(),
+                    poolStats.getPendingThreads(),
+                    timeouts.sum(),
+                    latency(acquireMicros, 1_000.0),
+                    latency(usageMillis, 1.0)
+            );
+        }
+
+        private static Latency latency(LatencyHistogram histogram, double perMilli) {
+            return new Latency(
+                    histogram.count(),
+                    histogram.valueAt(0.5) / perMilli,
+                    histogram.valueAt(0.99) / perMilli,
+                    histogram.valueAt(0.999) / perMilli,
+                    histogram.max() / perMilli
+            );
+        }
+    }
+
+    public record Latency(long count, double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+    }
+
+    /**
+     * @param acquire time to borrow a connection from the pool
+     * @param usage   time from borrowing a connection to returning it
+     */
+    public record PoolSnapshot(
+            String pool,
+            int maxConnections,
+            int totalConnections,
+            int activeConnections,
+            int idleConnections,
+            int threadsAwaitingConnection,
+            long connectionTimeouts,
+            Latency acquire,
+            Latency usage
+    ) {
+    }
+}
@@ -1,6 +1,8 @@
 package com.aszender.orders.exception;
 
+import io.grpc.StatusRuntimeException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -53,6 +55,30 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.BAD_REQUEST, "Malformed JSON request", request.getRequestURI(), null);
     }
 
+    // Async placement is backed up: nothing was stored, the client retries.
+    @ExceptionHandler(PlacementQueueFullException.class)
+    public ResponseEntity<ApiErrorResponse> handlePlacementQueueFull(
+            PlacementQueueFullException ex,
+            HttpServletRequest request
+    ) {
+        ResponseEntity<ApiErrorResponse> response = build(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), request.getRequestURI(), null);
+        return ResponseEntity.status(response.getStatusCode()).header(HttpHeaders.RETRY_AFTER, "1").body(response.getBody());
+    }
+
+    // Inventory is slow or down: the reservation can be retried later.
+    @ExceptionHandler(StatusRuntimeException.class)
+    public ResponseEntity<ApiErrorResponse> handleInventoryFailure(
+            StatusRuntimeException ex,
+            HttpServletRequest request
+    ) {
+        HttpStatus status = switch (ex.getStatus().getCode()) {
+            case DEADLINE_EXCEEDED -> HttpStatus.GATEWAY_TIMEOUT;
+            case UNAVAILABLE, RESOURCE_EXHAUSTED -> HttpStatus.SERVICE_UNAVAILABLE;
+            default -> HttpStatus.BAD_GATEWAY;
+        };
+        return build(status, "Inventory call failed: " + ex.getStatus().getCode(), request.getRequestURI(), null);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorResponse> handleUnexpected(
             Exception ex,
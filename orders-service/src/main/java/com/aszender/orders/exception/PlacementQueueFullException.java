@@ -0,0 +1,7 @@
+package com.aszender.orders.exception;
+
+public class PlacementQueueFullException extends RuntimeException {
+    public PlacementQueueFullException() {
+        super("Too many orders waiting for a stock reservation, try again shortly");
+    }
+}
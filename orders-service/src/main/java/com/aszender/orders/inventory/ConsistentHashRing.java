@@ -0,0 +1,63 @@
+package com.aszender.orders.inventory;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring of named nodes. Each node sits at virtualNodes positions (hashes
+ * of "name#i"), and a key belongs to the first node at or after its hash. Adding or removing a
+ * node only moves the keys of the ring segments that node gains or loses (about 1/N of them).
+ */
+final class ConsistentHashRing<T> {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final Map<String, T> nodes;
+    private final int virtualNodes;
+    private final NavigableMap<Long, String> positions = new TreeMap<>();
+
+    ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("a hash ring needs at least one node");
+        }
+        this.nodes = Map.copyOf(nodes);
+        this.virtualNodes = Math.max(1, virtualNodes);
+        // Names are placed in sorted order, so a (rare) hash collision is resolved the same way everywhere.
+        new TreeMap<>(nodes).keySet().forEach(name -> {
+            for (int i = 0; i < this.virtualNodes; i++) {
+                positions.putIfAbsent(HASH.hashString(name + "#" + i, StandardCharsets.UTF_8).asLong(), name);
+            }
+        });
+    }
+
+    T nodeFor(long key) {
+        return nodes.get(nodeNameFor(key));
+    }
+
+    String nodeNameFor(long key) {
+        Map.Entry<Long, String> owner = positions.ceilingEntry(HASH.hashLong(key).asLong());
+        return owner != null ? owner.getValue() : positions.firstEntry().getValue();
+    }
+
+    Map<String, T> nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the share of the keys 0..sampleSize-1 owned by a different node name in {@code other}
+     */
+    double movedFraction(ConsistentHashRing<?> other, int sampleSize) {
+        int moved = 0;
+        for (long key = 0; key < sampleSize; key++) {
+            if (!nodeNameFor(key).equals(other.nodeNameFor(key))) {
+                moved++;
+            }
+        }
+        return (double) moved / sampleSize;
+    }
+}
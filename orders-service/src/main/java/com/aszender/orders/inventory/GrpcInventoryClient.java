@@ -1,37 +1,377 @@
 package com.aszender.orders.inventory;
 
-import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.grpc.GrpcMetrics;
+import com.aszender.contracts.inventory.v1.BatchReserveStockRequest;
 import com.aszender.contracts.inventory.v1.ReserveItem;
 import com.aszender.contracts.inventory.v1.ReserveStockRequest;
-import com.aszender.contracts.inventory.v1.ReserveStockResponse;
+import com.aszender.contracts.inventory.v1.ReserveStockStreamResponse;
 import com.aszender.orders.model.OrderItem;
-import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * gRPC client of the inventory service. Every call carries a deadline, so a slow inventory cannot
+ * hold an orders thread indefinitely. Unary calls are retried or hedged by the channel's service
+ * config (app.grpc.inventory.resilience); both are safe because reservations are idempotent per order.
+ *
+ * Inventory may be split into shards (app.grpc.inventory.shards), each owning the productIds that a
+ * consistent-hash ring assigns to it, and each balanced over its own replicas by
+ * {@link InventoryLoadBalancer}. An order spanning several shards is reserved on all of them in
+ * parallel; if one shard rejects it, the parts reserved elsewhere are released again.
+ */
 @Component
 public class GrpcInventoryClient {
 
-    private final ManagedChannel channel;
-    private final InventoryServiceGrpc.InventoryServiceBlockingStub stub;
+    private static final Logger log = LoggerFactory.getLogger(GrpcInventoryClient.class);
 
+    public enum Resilience {
+        NONE,
+        RETRY, // retry UNAVAILABLE / ABORTED with exponential backoff
+        HEDGING // send another attempt if the first has not answered after hedging-delay-ms
+    }
+
+    public enum Balancing {
+        ROUND_ROBIN,
+        LEAST_REQUEST // the less loaded of two random replicas (outstanding calls)
+    }
+
+    static {
+        NameResolverRegistry.getDefaultRegistry().register(new StaticNameResolverProvider());
+        LoadBalancerRegistry.getDefaultRegistry().register(InventoryLoadBalancerProvider.INSTANCE);
+    }
+
+    private final InventoryShard.Settings settings;
+    private final int virtualNodes;
+    private final GrpcMetrics metrics = new GrpcMetrics();
+
+    private volatile ConsistentHashRing<InventoryShard> ring;
+
+    /**
+     * @param target empty for host:port, a comma-separated host:port list of replicas, or a gRPC
+     *               target URI such as {@code dns:///inventory:9090}
+     * @param shards empty for the single inventory above, or a comma-separated list of shards, each
+     *               {@code [name=]target} with its replicas separated by '|' (see {@link #updateShards})
+     */
     public GrpcInventoryClient(
             @Value("${app.grpc.inventory.host:localhost}") String host,
-            @Value("${app.grpc.inventory.port:9090}") int port
+            @Value("${app.grpc.inventory.port:9090}") int port,
+            @Value("${app.grpc.inventory.target:}") String target,
+            @Value("${app.grpc.inventory.shards:}") String shards,
+            @Value("${app.grpc.inventory.shard-virtual-nodes:128}") int virtualNodes,
+            @Value("${app.grpc.inventory.balancing:ROUND_ROBIN}") Balancing balancing,
+            @Value("${app.grpc.inventory.health-check-interval-ms:1000}") long healthCheckIntervalMillis,
+            @Value("${app.grpc.inventory.deadline-ms:2000}") long deadlineMillis,
+            @Value("${app.grpc.inventory.batch-deadline-ms:30000}") long batchDeadlineMillis,
+            @Value("${app.grpc.inventory.resilience:RETRY}") Resilience resilience,
+            @Value("${app.grpc.inventory.max-attempts:3}") int maxAttempts,
+            @Value("${app.grpc.inventory.hedging-delay-ms:100}") long hedgingDelayMillis,
+            @Value("${app.grpc.inventory.stream.enabled:true}") boolean streamEnabled,
+            @Value("${app.grpc.inventory.stream.lanes:4}") int streamLanes,
+            @Value("${app.grpc.inventory.stream.max-in-flight:256}") int streamMaxInFlight
     ) {
-        this.channel = ManagedChannelBuilder.forAddress(host, port)
-                // Learning repo: plaintext local gRPC. In real prod, you’d use TLS + auth.
-                .usePlaintext()
-                .build();
-        this.stub = InventoryServiceGrpc.newBlockingStub(channel);
+        this.settings = new InventoryShard.Settings(balancing, healthCheckIntervalMillis, deadlineMillis, batchDeadlineMillis,
+                resilience, maxAttempts, hedgingDelayMillis, streamEnabled, streamLanes, streamMaxInFlight);
+        this.virtualNodes = virtualNodes;
+
+        if (!shards.isBlank()) {
+            updateShards(Arrays.asList(shards.split(",")));
+        } else {
+            updateShards(List.of("inventory=" + (target.isBlank() ? "dns:///" + host + ":" + port : target.replace(',', '|'))));
+        }
+    }
+
+    /**
+     * Replaces the shard map, e.g. when an inventory node is added or removed. Shards whose name and
+     * target are unchanged keep their connections; only the productIds of the ring segments that
+     * changed owner move (about 1/N of them per node). Moving the stock rows of those products
+     * between the shard databases is an operational step outside this client.
+     *
+     * @param shardSpecs {@code [name=]target} each, replicas of one shard separated by '|'; the name
+     *                   places the shard on the ring and defaults to the target
+     */
+    public synchronized void updateShards(List<String> shardSpecs) {
+        Map<String, String> targetsByName = new LinkedHashMap<>();
+        for (String spec : shardSpecs) {
+            String trimmed = spec.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            String target = (eq > 0 ? trimmed.substring(eq + 1) : trimmed).replace('|', ',');
+            if (targetsByName.put(eq > 0 ? trimmed.substring(0, eq) : trimmed, target) != null) {
+                throw new IllegalArgumentException("duplicate inventory shard " + trimmed);
+            }
+        }
+        if (targetsByName.isEmpty()) {
+            throw new IllegalArgumentException("at least one inventory shard is required");
+        }
+
+        ConsistentHashRing<InventoryShard> previous = ring;
+        Map<String, InventoryShard> current = previous == null ? Map.of() : previous.nodes();
+        Map<String, InventoryShard> next = new LinkedHashMap<>();
+        targetsByName.forEach((name, target) -> {
+            InventoryShard existing = current.get(name);
+            next.put(name, existing != null && existing.target().equals(target) ? existing : new InventoryShard(name, target, settings, metrics));
+        });
+        ring = new ConsistentHashRing<>(next, virtualNodes);
+
+        current.forEach((name, shard) -> {
+            if (next.get(name) != shard) {
+                shard.shutdown();
+            }
+        });
+        if (previous != null) {
+            log.info("Inventory shard map changed to {}: {}% of productIds moved",
+                    next.keySet(), Math.round(ring.movedFraction(previous, 10_000) * 100));
+        }
     }
 
+    /**
+     * @throws StatusRuntimeException e.g. DEADLINE_EXCEEDED after deadline-ms
+     */
     public ReserveResponse reserve(Long orderId, List<OrderItem> items) {
-        ReserveStockRequest req = ReserveStockRequest.newBuilder()
+        Map<InventoryShard, List<OrderItem>> parts = split(ring, orderId, items);
+        if (parts.size() == 1) {
+            return parts.keySet().iterator().next().reserve(toRequest(orderId, items));
+        }
+        try {
+            return reserveAcrossShards(orderId, parts).join();
+        } catch (CompletionException e) {
+            throw toStatusException(e);
+        }
+    }
+
+    /**
+     * Like {@link #reserve} without blocking the caller. The future fails with a
+     * {@link StatusRuntimeException}; it completes on a gRPC thread.
+     */
+    public CompletableFuture<ReserveResponse> reserveAsync(Long orderId, List<OrderItem> items) {
+        Map<InventoryShard, List<OrderItem>> parts = split(ring, orderId, items);
+        if (parts.size() == 1) {
+            return parts.keySet().iterator().next().reserveAsync(toRequest(orderId, items));
+        }
+        return reserveAcrossShards(orderId, parts);
+    }
+
+    /**
+     * Scatter-gather: every shard reserves its part of the order. All reserved: the order is
+     * reserved. A shard rejected: the other parts are released and the rejection is returned.
+     * Only errors: the error is returned and the reserved parts are kept, so retrying the order
+     * completes it (each shard answers a repeated reservation with its earlier decision).
+     */
+    private CompletableFuture<ReserveResponse> reserveAcrossShards(Long orderId, Map<InventoryShard, List<OrderItem>> parts) {
+        Map<InventoryShard, CompletableFuture<ReserveResponse>> calls = new LinkedHashMap<>();
+        parts.forEach((shard, items) -> calls.put(shard, shard.reserveAsync(toRequest(orderId, items))));
+
+        return allSettled(calls.values()).thenCompose(ignored -> {
+            ReserveResponse rejection = null;
+            StatusRuntimeException failure = null;
+            List<InventoryShard> holding = new ArrayList<>();
+            for (Map.Entry<InventoryShard, CompletableFuture<ReserveResponse>> call : calls.entrySet()) {
+                if (call.getValue().isCompletedExceptionally()) {
+                    if (failure == null) {
+                        failure = toStatusException(call.getValue().handle((value, error) -> error).join());
+                    }
+                    holding.add(call.getKey()); // the outcome is unknown
+                } else if (call.getValue().join().reserved()) {
+                    holding.add(call.getKey());
+                } else if (rejection == null) {
+                    rejection = call.getValue().join();
+                }
+            }
+
+            if (rejection == null) {
+                return failure == null
+                        ? CompletableFuture.completedFuture(new ReserveResponse(true, null))
+                        : CompletableFuture.failedFuture(failure);
+            }
+            ReserveResponse rejected = rejection;
+            return allSettled(holding.stream().map(shard -> compensate(shard, List.of(orderId))).toList())
+                    .thenApply(released -> rejected);
+        });
+    }
+
+    /**
+     * Reserves many orders with one BatchReserveStock call per shard. An order the inventory could
+     * not process comes back not reserved, with its gRPC status code as the reason; an order
+     * rejected by one shard is released on the others.
+     *
+     * @return the response per orderId, in request order
+     */
+    public Map<Long, ReserveResponse> reserveBatch(Map<Long, List<OrderItem>> itemsByOrderId) {
+        ConsistentHashRing<InventoryShard> current = ring;
+        Map<InventoryShard, BatchReserveStockRequest.Builder> requests = new LinkedHashMap<>();
+        itemsByOrderId.forEach((orderId, items) -> split(current, orderId, items).forEach((shard, part) ->
+                requests.computeIfAbsent(shard, s -> BatchReserveStockRequest.newBuilder()).addOrders(toRequest(orderId, part))));
+
+        Map<InventoryShard, CompletableFuture<List<ReserveStockStreamResponse>>> calls = new LinkedHashMap<>();
+        requests.forEach((shard, request) -> calls.put(shard, shard.reserveBatchAsync(request.build())));
+        allSettled(calls.values()).join();
+
+        Map<Long, ReserveResponse> rejections = new HashMap<>();
+        Map<Long, ReserveResponse> failures = new HashMap<>();
+        Map<Long, List<InventoryShard>> holding = new HashMap<>();
+        calls.forEach((shard, call) -> {
+            if (call.isCompletedExceptionally()) {
+                Status.Code code = toStatusException(call.handle((value, error) -> error).join()).getStatus().getCode();
+                for (ReserveStockRequest order : requests.get(shard).getOrdersList()) {
+                    failures.putIfAbsent(order.getOrderId(), new ReserveResponse(false, code.name()));
+                    holding.computeIfAbsent(order.getOrderId(), id -> new ArrayList<>()).add(shard);
+                }
+                return;
+            }
+            for (ReserveStockStreamResponse res : call.join()) {
+                if (res.getErrorCode() != 0) {
+                    failures.putIfAbsent(res.getOrderId(), new ReserveResponse(false, Status.fromCodeValue(res.getErrorCode()).getCode().name()));
+                } else if (res.getReserved()) {
+                    holding.computeIfAbsent(res.getOrderId(), id -> new ArrayList<>()).add(shard);
+                } else {
+                    rejections.putIfAbsent(res.getOrderId(), InventoryShard.toReserveResponse(false, res.getReason()));
+                }
+            }
+        });
+
+        // Rejected orders give back what other shards reserved for them (one release call per shard).
+        Map<InventoryShard, Set<Long>> releases = new LinkedHashMap<>();
+        rejections.keySet().forEach(orderId -> holding.getOrDefault(orderId, List.of())
+                .forEach(shard -> releases.computeIfAbsent(shard, s -> new LinkedHashSet<>()).add(orderId)));
+        allSettled(releases.entrySet().stream().map(e -> compensate(e.getKey(), e.getValue())).toList()).join();
+
+        Map<Long, ReserveResponse> responses = new LinkedHashMap<>();
+        for (Long orderId : itemsByOrderId.keySet()) {
+            ReserveResponse response = rejections.get(orderId);
+            if (response == null) {
+                response = failures.getOrDefault(orderId, new ReserveResponse(true, null));
+            }
+            responses.put(orderId, response);
+        }
+        return responses;
+    }
+
+    /**
+     * Gives back the stock an order holds, on every shard owning one of its items. A failed release
+     * is only logged (see {@link #compensate}); the future never fails.
+     */
+    public CompletableFuture<Void> releaseAsync(Long orderId, List<OrderItem> items) {
+        return allSettled(split(ring, orderId, items).keySet().stream()
+                .map(shard -> compensate(shard, List.of(orderId)))
+                .toList());
+    }
+
+    /**
+     * Available stock of the products, read with one GetStockBatch call per owning shard, e.g. to
+     * pre-check a cart in one round trip. Products without a stock row are left out.
+     *
+     * @return available per productId, in the order given
+     * @throws StatusRuntimeException if a shard could not be read
+     */
+    public Map<Long, Integer> availability(Collection<Long> productIds) {
+        ConsistentHashRing<InventoryShard> current = ring;
+        Map<InventoryShard, Set<Long>> byShard = new LinkedHashMap<>();
+        productIds.forEach(productId -> byShard.computeIfAbsent(current.nodeFor(productId), shard -> new LinkedHashSet<>()).add(productId));
+
+        Map<Long, Integer> found = new ConcurrentHashMap<>(); // filled on the gRPC threads of the shards
+        try {
+            CompletableFuture.allOf(byShard.entrySet().stream()
+                            .map(e -> e.getKey().getStockBatchAsync(e.getValue())
+                                    .thenAccept(levels -> levels.forEach(level -> found.put(level.getProductId(), level.getAvailable()))))
+                            .toArray(CompletableFuture[]::new))
+                    .join();
+        } catch (CompletionException e) {
+            throw toStatusException(e);
+        }
+
+        Map<Long, Integer> available = new LinkedHashMap<>();
+        productIds.forEach(productId -> {
+            Integer level = found.get(productId);
+            if (level != null) {
+                available.put(productId, level);
+            }
+        });
+        return available;
+    }
+
+    // A failed release is logged only: the hold expires on its own, and the cancelled order's event releases it too.
+    private CompletableFuture<?> compensate(InventoryShard shard, Collection<Long> orderIds) {
+        return shard.releaseAsync(orderIds).whenComplete((released, error) -> {
+            if (error != null) {
+                log.warn("Releasing orders {} on inventory shard {} failed: {}", orderIds, shard.name(), toStatusException(error).getStatus());
+            }
+        });
+    }
+
+    /**
+     * @return per-replica state, load and latency as seen by the load balancer of each shard
+     */
+    public List<EndpointStats> endpointStats() {
+        return ring.nodes().values().stream()
+                .flatMap(shard -> shard.endpointStats().stream())
+                .toList();
+    }
+
+    /**
+     * @return calls, status codes, in-flight calls, message sizes and latency percentiles per
+     * inventory method, over all shards
+     */
+    public List<GrpcMetrics.MethodSnapshot> callMetrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * @return the name of the shard owning the product
+     */
+    public String shardOf(long productId) {
+        return ring.nodeNameFor(productId);
+    }
+
+    // Lines grouped by owning shard; an order without lines still goes to one shard (which rejects it).
+    private static Map<InventoryShard, List<OrderItem>> split(ConsistentHashRing<InventoryShard> ring, Long orderId, List<OrderItem> items) {
+        Map<InventoryShard, List<OrderItem>> parts = new LinkedHashMap<>();
+        for (OrderItem item : items) {
+            parts.computeIfAbsent(ring.nodeFor(item.getProductId()), shard -> new ArrayList<>()).add(item);
+        }
+        if (parts.isEmpty()) {
+            parts.put(ring.nodeFor(orderId == null ? 0 : orderId), items);
+        }
+        return parts;
+    }
+
+    // Completes when every future has, whatever their outcome.
+    private static CompletableFuture<Void> allSettled(Collection<? extends CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf(futures.stream()
+                        .map(future -> future.handle((value, error) -> null))
+                        .toArray(CompletableFuture[]::new));
+    }
+
+    private static StatusRuntimeException toStatusException(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof StatusRuntimeException statusException
+                ? statusException
+                : Status.fromThrowable(cause).asRuntimeException();
+    }
+
+    private static ReserveStockRequest toRequest(Long orderId, List<OrderItem> items) {
+        return ReserveStockRequest.newBuilder()
                 .setOrderId(orderId == null ? 0 : orderId)
                 .addAllItems(items.stream()
                         .map(i -> ReserveItem.newBuilder()
@@ -40,17 +380,10 @@ public class GrpcInventoryClient {
                                 .build())
                         .toList())
                 .build();
-
-        ReserveStockResponse res = stub.reserveStock(req);
-        String reason = res.getReason();
-        if (reason != null && reason.isBlank()) {
-            reason = null;
-        }
-        return new ReserveResponse(res.getReserved(), reason);
     }
 
-    public void shutdown() {
-        channel.shutdown();
+    public synchronized void shutdown() {
+        ring.nodes().values().forEach(InventoryShard::shutdown);
     }
 
     @PreDestroy
@@ -60,4 +393,19 @@ public class GrpcInventoryClient {
 
     public record ReserveResponse(boolean reserved, String reason) {
     }
+
+    /**
+     * @param calls             finished attempts (retries and hedges included)
+     * @param latencyEwmaMillis moving average of unary attempt latency
+     */
+    public record EndpointStats(
+            String address,
+            String state,
+            boolean healthy,
+            int inFlight,
+            long calls,
+            long failures,
+            double latencyEwmaMillis
+    ) {
+    }
 }
@@ -0,0 +1,335 @@
+package com.aszender.orders.inventory;
+
+import com.aszender.contracts.health.v1.HealthCheckRequest;
+import com.aszender.contracts.health.v1.HealthCheckResponse;
+import com.aszender.contracts.health.v1.HealthGrpc;
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.SynchronizationContext;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-side balancing over the resolved inventory replicas: one subchannel per endpoint, calls
+ * spread round-robin or to the less loaded of two random endpoints (least outstanding requests).
+ *
+ * A READY endpoint is only picked while its grpc.health.v1 Check answers SERVING (polled every
+ * healthCheckIntervalMs; servers without the Health service count as healthy). If every READY
+ * endpoint is unhealthy, they are all used anyway rather than failing every call.
+ *
+ * All state changes run in the channel's synchronization context.
+ */
+class InventoryLoadBalancer extends LoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryLoadBalancer.class);
+
+    /**
+     * Marks long-lived calls (the reservation stream): they count as outstanding but are kept out of the latency stats.
+     */
+    static final CallOptions.Key<Boolean> LONG_LIVED = CallOptions.Key.createWithDefault("inventory-long-lived", false);
+
+    record Config(GrpcInventoryClient.Balancing policy, long healthCheckIntervalMillis, String statsKey) {
+    }
+
+    private static final Config DEFAULT_CONFIG = new Config(GrpcInventoryClient.Balancing.ROUND_ROBIN, 0, null);
+
+    private final Helper helper;
+    private final InventoryLoadBalancerProvider provider;
+    private final SynchronizationContext syncContext;
+    private final Map<EquivalentAddressGroup, Endpoint> endpoints = new LinkedHashMap<>();
+
+    private volatile List<Endpoint> snapshot = List.of(); // for stats readers outside the sync context
+    private Config config = DEFAULT_CONFIG;
+    private boolean shutdown;
+
+    InventoryLoadBalancer(Helper helper, InventoryLoadBalancerProvider provider) {
+        this.helper = helper;
+        this.provider = provider;
+        this.syncContext = helper.getSynchronizationContext();
+    }
+
+    @Override
+    public Status acceptResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+        List<EquivalentAddressGroup> groups = resolvedAddresses.getAddresses();
+        if (groups.isEmpty()) {
+            Status error = Status.UNAVAILABLE.withDescription("no inventory endpoints resolved");
+            handleNameResolutionError(error);
+            return error;
+        }
+        Config newConfig = resolvedAddresses.getLoadBalancingPolicyConfig() instanceof Config c ? c : DEFAULT_CONFIG;
+        if (config.statsKey() != null && !config.statsKey().equals(newConfig.statsKey())) {
+            provider.untrack(config.statsKey(), this);
+        }
+        if (newConfig.statsKey() != null) {
+            provider.track(newConfig.statsKey(), this);
+        }
+        config = newConfig;
+
+        // Attributes differ between resolutions; an endpoint is identified by its addresses only.
+        Set<EquivalentAddressGroup> wanted = new LinkedHashSet<>();
+        groups.forEach(group -> wanted.add(new EquivalentAddressGroup(group.getAddresses())));
+        for (EquivalentAddressGroup addresses : wanted) {
+            if (!endpoints.containsKey(addresses)) {
+                Endpoint endpoint = new Endpoint(addresses);
+                endpoints.put(addresses, endpoint);
+                endpoint.start();
+            }
+        }
+        endpoints.entrySet().removeIf(entry -> {
+            if (wanted.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().shutdown();
+            return true;
+        });
+        snapshot = List.copyOf(endpoints.values());
+
+        updateBalancingState();
+        return Status.OK;
+    }
+
+    @Override
+    public void handleNameResolutionError(Status error) {
+        if (endpoints.isEmpty()) {
+            helper.updateBalancingState(ConnectivityState.TRANSIENT_FAILURE, new FixedResultPicker(PickResult.withError(error)));
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (config.statsKey() != null) {
+            provider.untrack(config.statsKey(), this);
+        }
+        endpoints.values().forEach(Endpoint::shutdown);
+        endpoints.clear();
+        snapshot = List.of();
+    }
+
+    List<GrpcInventoryClient.EndpointStats> stats() {
+        return snapshot.stream().map(Endpoint::stats).toList();
+    }
+
+    private void updateBalancingState() {
+        List<Endpoint> ready = new ArrayList<>();
+        List<Endpoint> healthy = new ArrayList<>();
+        boolean connecting = false;
+        for (Endpoint endpoint : endpoints.values()) {
+            if (endpoint.state == ConnectivityState.READY) {
+                ready.add(endpoint);
+                if (endpoint.healthy) {
+                    healthy.add(endpoint);
+                }
+            } else if (endpoint.state == ConnectivityState.CONNECTING || endpoint.state == ConnectivityState.IDLE) {
+                connecting = true;
+            }
+        }
+
+        if (!healthy.isEmpty() || !ready.isEmpty()) {
+            helper.updateBalancingState(ConnectivityState.READY, new Picker(healthy.isEmpty() ? ready : healthy, config.policy()));
+        } else if (connecting) {
+            helper.updateBalancingState(ConnectivityState.CONNECTING, new FixedResultPicker(PickResult.withNoResult()));
+        } else {
+            helper.updateBalancingState(ConnectivityState.TRANSIENT_FAILURE, new FixedResultPicker(PickResult.withError(
+                    Status.UNAVAILABLE.withDescription("no inventory endpoint is reachable"))));
+        }
+    }
+
+    private final class Endpoint {
+
+        final EquivalentAddressGroup addresses;
+        final String address;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final ClientStreamTracer.Factory tracerFactory = new ClientStreamTracer.Factory() {
+            @Override
+            public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                return new CallTracer(info.getCallOptions().getOption(LONG_LIVED));
+            }
+        };
+
+        Subchannel subchannel;
+        volatile ConnectivityState state = ConnectivityState.IDLE;
+        volatile boolean healthy = true;
+        SynchronizationContext.ScheduledHandle healthCheck;
+        boolean ended;
+
+        private double latencyEwmaMillis; // guarded by this
+
+        Endpoint(EquivalentAddressGroup addresses) {
+            this.addresses = addresses;
+            this.address = addresses.getAddresses().get(0).toString();
+        }
+
+        void start() {
+            subchannel = helper.createSubchannel(CreateSubchannelArgs.newBuilder().setAddresses(addresses).build());
+            subchannel.start(this::onStateChange);
+            subchannel.requestConnection();
+        }
+
+        void shutdown() {
+            ended = true;
+            cancelHealthCheck();
+            subchannel.shutdown();
+        }
+
+        private void onStateChange(ConnectivityStateInfo stateInfo) {
+            if (ended || shutdown || stateInfo.getState() == ConnectivityState.SHUTDOWN) {
+                return;
+            }
+            state = stateInfo.getState();
+            switch (state) {
+                case READY -> {
+                    cancelHealthCheck();
+                    checkHealth();
+                }
+                case IDLE -> subchannel.requestConnection();
+                case TRANSIENT_FAILURE -> helper.refreshNameResolution();
+                default -> {
+                }
+            }
+            updateBalancingState();
+        }
+
+        private void checkHealth() {
+            healthCheck = null;
+            long intervalMillis = config.healthCheckIntervalMillis();
+            if (ended || intervalMillis <= 0 || state != ConnectivityState.READY) {
+                return; // restarted by the next READY
+            }
+            HealthGrpc.newStub(subchannel.asChannel())
+                    .withDeadlineAfter(intervalMillis, TimeUnit.MILLISECONDS)
+                    .check(HealthCheckRequest.newBuilder().setService(InventoryServiceGrpc.SERVICE_NAME).build(),
+                            new StreamObserver<>() {
+                                @Override
+                                public void onNext(HealthCheckResponse response) {
+                                    syncContext.execute(() -> onHealth(response.getStatus() == HealthCheckResponse.ServingStatus.SERVING, intervalMillis));
+                                }
+
+                                @Override
+                                public void onError(Throwable t) {
+                                    boolean unimplemented = Status.fromThrowable(t).getCode() == Status.Code.UNIMPLEMENTED;
+                                    syncContext.execute(() -> onHealth(unimplemented, intervalMillis));
+                                }
+
+                                @Override
+                                public void onCompleted() {
+                                }
+                            });
+        }
+
+        private void onHealth(boolean serving, long intervalMillis) {
+            if (ended || shutdown) {
+                return;
+            }
+            if (healthy != serving) {
+                log.warn("Inventory endpoint {} is {}", address, serving ? "healthy again" : "unhealthy, ejecting it");
+                healthy = serving;
+                updateBalancingState();
+            }
+            healthCheck = syncContext.schedule(this::checkHealth, intervalMillis, TimeUnit.MILLISECONDS, helper.getScheduledExecutorService());
+        }
+
+        private void cancelHealthCheck() {
+            if (healthCheck != null) {
+                healthCheck.cancel();
+                healthCheck = null;
+            }
+        }
+
+        GrpcInventoryClient.EndpointStats stats() {
+            double latency;
+            synchronized (this) {
+                latency = latencyEwmaMillis;
+            }
+            return new GrpcInventoryClient.EndpointStats(address, state.name(), healthy, inFlight.get(),
+                    calls.sum(), failures.sum(), latency);
+        }
+
+        private synchronized void recordLatency(long nanos) {
+            double millis = nanos / 1_000_000.0;
+            latencyEwmaMillis = latencyEwmaMillis == 0 ? millis : 0.8 * latencyEwmaMillis + 0.2 * millis;
+        }
+
+        // One per attempt on this endpoint (retries and hedges included).
+        private final class CallTracer extends ClientStreamTracer {
+
+            private final boolean longLived;
+            private final long startedNanos = System.nanoTime();
+
+            CallTracer(boolean longLived) {
+                this.longLived = longLived;
+                inFlight.incrementAndGet();
+            }
+
+            @Override
+            public void streamClosed(Status status) {
+                inFlight.decrementAndGet();
+                calls.increment();
+                if (!status.isOk()) {
+                    failures.increment();
+                }
+                if (!longLived) {
+                    recordLatency(System.nanoTime() - startedNanos);
+                }
+            }
+        }
+    }
+
+    private static final class Picker extends SubchannelPicker {
+
+        private final List<Endpoint> endpoints;
+        private final GrpcInventoryClient.Balancing policy;
+        private final AtomicInteger next;
+
+        Picker(List<Endpoint> endpoints, GrpcInventoryClient.Balancing policy) {
+            this.endpoints = List.copyOf(endpoints);
+            this.policy = policy;
+            this.next = new AtomicInteger(ThreadLocalRandom.current().nextInt(endpoints.size()));
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            Endpoint endpoint = endpoints.get(pick());
+            return PickResult.withSubchannel(endpoint.subchannel, endpoint.tracerFactory);
+        }
+
+        private int pick() {
+            int size = endpoints.size();
+            if (size == 1) {
+                return 0;
+            }
+            if (policy == GrpcInventoryClient.Balancing.ROUND_ROBIN) {
+                return Math.floorMod(next.getAndIncrement(), size);
+            }
+            // Power of two choices: the less loaded of two distinct random endpoints.
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            return endpoints.get(first).inFlight.get() <= endpoints.get(second).inFlight.get() ? first : second;
+        }
+    }
+}
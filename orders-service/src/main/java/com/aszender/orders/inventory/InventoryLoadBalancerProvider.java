@@ -0,0 +1,83 @@
+package com.aszender.orders.inventory;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.NameResolver.ConfigOrError;
+import io.grpc.Status;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registers {@link InventoryLoadBalancer} as the "inventory_balancer" policy. Its service config:
+ * <pre>{"policy": "ROUND_ROBIN" | "LEAST_REQUEST", "healthCheckIntervalMs": 1000, "statsKey": "..."}</pre>
+ * The statsKey lets the owning client read the per-endpoint stats of its channel's balancer.
+ */
+class InventoryLoadBalancerProvider extends LoadBalancerProvider {
+
+    static final String POLICY_NAME = "inventory_balancer";
+    static final InventoryLoadBalancerProvider INSTANCE = new InventoryLoadBalancerProvider();
+
+    private final ConcurrentHashMap<String, InventoryLoadBalancer> balancersByStatsKey = new ConcurrentHashMap<>();
+
+    private InventoryLoadBalancerProvider() {
+    }
+
+    static Map<String, Object> serviceConfig(GrpcInventoryClient.Balancing policy, long healthCheckIntervalMillis, String statsKey) {
+        return Map.of(POLICY_NAME, Map.of(
+                "policy", policy.name(),
+                "healthCheckIntervalMs", (double) healthCheckIntervalMillis,
+                "statsKey", statsKey));
+    }
+
+    List<GrpcInventoryClient.EndpointStats> stats(String statsKey) {
+        InventoryLoadBalancer balancer = balancersByStatsKey.get(statsKey);
+        return balancer == null ? List.of() : balancer.stats();
+    }
+
+    void track(String statsKey, InventoryLoadBalancer balancer) {
+        balancersByStatsKey.put(statsKey, balancer);
+    }
+
+    void untrack(String statsKey, InventoryLoadBalancer balancer) {
+        balancersByStatsKey.remove(statsKey, balancer);
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+        return new InventoryLoadBalancer(helper, this);
+    }
+
+    @Override
+    public ConfigOrError parseLoadBalancingPolicyConfig(Map<String, ?> rawConfig) {
+        try {
+            Object policy = rawConfig.get("policy");
+            Object interval = rawConfig.get("healthCheckIntervalMs");
+            Object statsKey = rawConfig.get("statsKey");
+            return ConfigOrError.fromConfig(new InventoryLoadBalancer.Config(
+                    policy == null ? GrpcInventoryClient.Balancing.ROUND_ROBIN : GrpcInventoryClient.Balancing.valueOf((String) policy),
+                    interval == null ? 0 : ((Number) interval).longValue(),
+                    (String) statsKey));
+        } catch (RuntimeException e) {
+            return ConfigOrError.fromError(Status.INVALID_ARGUMENT
+                    .withDescription("invalid " + POLICY_NAME + " config " + rawConfig)
+                    .withCause(e));
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public String getPolicyName() {
+        return POLICY_NAME;
+    }
+}
@@ -0,0 +1,232 @@
+package com.aszender.orders.inventory;
+
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.contracts.inventory.v1.ReserveStockStreamResponse;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Long-lived ReserveStockStream calls ("lanes") shared by all callers. Requests are pipelined on
+ * the lane of their orderId and matched to their response by orderId; at most maxInFlight are
+ * outstanding, further callers wait for a slot. Each lane is balanced separately, so several lanes
+ * spread the load over the inventory replicas. If a lane's stream fails, its pending callers get
+ * the error and the next call opens a new stream. Each request is bounded by the timeout.
+ *
+ * The channel's service config does not apply to streams, so the unary retry policy is repeated
+ * here: a request that fails with UNAVAILABLE (typically its lane broke) is sent again, on a fresh
+ * stream, up to maxAttempts times within its timeout. Reservations are idempotent per order, so a
+ * request the broken stream had delivered is safe to send twice. Streams are not hedged.
+ */
+class InventoryReservationStream {
+
+    private static final long INITIAL_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 500;
+
+    private final InventoryServiceGrpc.InventoryServiceStub stub;
+    private final Semaphore slots;
+    private final long timeoutMillis;
+    private final int maxAttempts;
+
+    private final Stream[] lanes; // guarded by this
+
+    /**
+     * @param maxAttempts 1 disables retries
+     */
+    InventoryReservationStream(InventoryServiceGrpc.InventoryServiceStub stub, int lanes, int maxInFlight, long timeoutMillis, int maxAttempts) {
+        this.stub = stub.withOption(InventoryLoadBalancer.LONG_LIVED, true);
+        this.lanes = new Stream[Math.max(1, lanes)];
+        this.slots = new Semaphore(maxInFlight);
+        this.timeoutMillis = timeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * @throws StatusRuntimeException like the unary call: the request failed, the stream broke or the timeout passed
+     */
+    ReserveStockStreamResponse reserve(ReserveStockRequest request) {
+        try {
+            if (!slots.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw tooManyInFlight();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withDescription("interrupted").asRuntimeException();
+        }
+
+        try {
+            return track(request).join();
+        } catch (CompletionException e) {
+            throw (StatusRuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #reserve}: fails fast with RESOURCE_EXHAUSTED instead of
+     * waiting for a slot. The future always fails with a {@link StatusRuntimeException}.
+     */
+    CompletableFuture<ReserveStockStreamResponse> reserveAsync(ReserveStockRequest request) {
+        if (!slots.tryAcquire()) {
+            return CompletableFuture.failedFuture(tooManyInFlight());
+        }
+        return track(request);
+    }
+
+    // The caller holds a slot; it is given back when the response, the last error or the timeout arrives.
+    private CompletableFuture<ReserveStockStreamResponse> track(ReserveStockRequest request) {
+        CompletableFuture<ReserveStockStreamResponse> result = new CompletableFuture<>();
+        attempt(request, 1, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), result);
+        return result.whenComplete((value, error) -> slots.release());
+    }
+
+    // One attempt, bounded by what is left of the request's timeout.
+    private void attempt(
+            ReserveStockRequest request,
+            int attempt,
+            long deadlineNanos,
+            CompletableFuture<ReserveStockStreamResponse> result
+    ) {
+        CompletableFuture<ReserveStockStreamResponse> response;
+        try {
+            response = send(request);
+        } catch (RuntimeException e) {
+            retryOrFail(request, attempt, deadlineNanos, result, Status.fromThrowable(e).asRuntimeException());
+            return;
+        }
+
+        long remainingNanos = Math.max(0, deadlineNanos - System.nanoTime());
+        response.orTimeout(remainingNanos, TimeUnit.NANOSECONDS).whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof TimeoutException) {
+                forget(request.getOrderId(), response);
+                result.completeExceptionally(Status.DEADLINE_EXCEEDED
+                        .withDescription("no response within " + timeoutMillis + "ms")
+                        .asRuntimeException());
+            } else {
+                retryOrFail(request, attempt, deadlineNanos, result, cause instanceof StatusRuntimeException statusException
+                        ? statusException
+                        : Status.INTERNAL.withCause(cause).asRuntimeException());
+            }
+        });
+    }
+
+    // Exponential backoff like the unary retry policy; the lane that failed has been reset, so the
+    // next attempt opens a new stream.
+    private void retryOrFail(
+            ReserveStockRequest request,
+            int attempt,
+            long deadlineNanos,
+            CompletableFuture<ReserveStockStreamResponse> result,
+            StatusRuntimeException error
+    ) {
+        long backoffMillis = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << (attempt - 1));
+        boolean retry = error.getStatus().getCode() == Status.Code.UNAVAILABLE
+                && attempt < maxAttempts
+                && deadlineNanos - System.nanoTime() > TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+        if (!retry) {
+            result.completeExceptionally(error);
+            return;
+        }
+        CompletableFuture.runAsync(() -> attempt(request, attempt + 1, deadlineNanos, result),
+                CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private static StatusRuntimeException tooManyInFlight() {
+        return Status.RESOURCE_EXHAUSTED.withDescription("too many reservations in flight").asRuntimeException();
+    }
+
+    synchronized void close() {
+        for (int i = 0; i < lanes.length; i++) {
+            if (lanes[i] != null) {
+                lanes[i].requests.onCompleted();
+                lanes[i] = null;
+            }
+        }
+    }
+
+    private int laneOf(long orderId) {
+        return Math.floorMod(Long.hashCode(orderId), lanes.length);
+    }
+
+    private synchronized CompletableFuture<ReserveStockStreamResponse> send(ReserveStockRequest request) {
+        int lane = laneOf(request.getOrderId());
+        Stream current = lanes[lane];
+        if (current == null) {
+            current = new Stream(lane);
+            current.requests = stub.reserveStockStream(current);
+            lanes[lane] = current;
+        }
+        CompletableFuture<ReserveStockStreamResponse> response = new CompletableFuture<>();
+        CompletableFuture<ReserveStockStreamResponse> inFlight = current.pending.putIfAbsent(request.getOrderId(), response);
+        if (inFlight != null) {
+            // Reservations are idempotent per order: share the answer of the request already on the wire.
+            return inFlight;
+        }
+        current.requests.onNext(request);
+        return response;
+    }
+
+    // A late response for a timed-out request is dropped by Stream.onNext.
+    private synchronized void forget(long orderId, CompletableFuture<ReserveStockStreamResponse> response) {
+        Stream current = lanes[laneOf(orderId)];
+        if (current != null) {
+            current.pending.remove(orderId, response);
+        }
+    }
+
+    private synchronized void onStreamClosed(Stream stream, StatusRuntimeException error) {
+        if (lanes[stream.lane] == stream) {
+            lanes[stream.lane] = null;
+        }
+        stream.pending.values().forEach(response -> response.completeExceptionally(error));
+        stream.pending.clear();
+    }
+
+    private final class Stream implements StreamObserver<ReserveStockStreamResponse> {
+
+        final int lane;
+        final ConcurrentHashMap<Long, CompletableFuture<ReserveStockStreamResponse>> pending = new ConcurrentHashMap<>();
+        StreamObserver<ReserveStockRequest> requests;
+
+        Stream(int lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public void onNext(ReserveStockStreamResponse value) {
+            CompletableFuture<ReserveStockStreamResponse> response = pending.remove(value.getOrderId());
+            if (response == null) {
+                return; // its caller timed out
+            }
+            if (value.getErrorCode() != 0) {
+                response.completeExceptionally(Status.fromCodeValue(value.getErrorCode())
+                        .withDescription(value.getErrorMessage())
+                        .asRuntimeException());
+            } else {
+                response.complete(value);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            onStreamClosed(this, Status.fromThrowable(t).asRuntimeException());
+        }
+
+        @Override
+        public void onCompleted() {
+            onStreamClosed(this, Status.UNAVAILABLE.withDescription("reservation stream closed by inventory").asRuntimeException());
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.aszender.orders.inventory;
+
+import com.aszender.contracts.grpc.GrpcMetrics;
+import com.aszender.contracts.grpc.GrpcMetricsClientInterceptor;
+import com.aszender.contracts.inventory.v1.BatchReserveStockRequest;
+import com.aszender.contracts.inventory.v1.BatchReserveStockResponse;
+import com.aszender.contracts.inventory.v1.GetStockBatchRequest;
+import com.aszender.contracts.inventory.v1.GetStockBatchResponse;
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReleaseStockRequest;
+import com.aszender.contracts.inventory.v1.ReleaseStockResponse;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.contracts.inventory.v1.ReserveStockResponse;
+import com.aszender.contracts.inventory.v1.ReserveStockStreamResponse;
+import com.aszender.contracts.inventory.v1.StockLevel;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One inventory shard: a channel to its replicas (balanced by {@link InventoryLoadBalancer}), the
+ * deadlines and retry/hedging service config of its calls, and its optional reservation stream.
+ */
+class InventoryShard {
+
+    record Settings(
+            GrpcInventoryClient.Balancing balancing,
+            long healthCheckIntervalMillis,
+            long deadlineMillis,
+            long batchDeadlineMillis,
+            GrpcInventoryClient.Resilience resilience,
+            int maxAttempts,
+            long hedgingDelayMillis,
+            boolean streamEnabled,
+            int streamLanes,
+            int streamMaxInFlight
+    ) {
+    }
+
+    private final String name;
+    private final String target;
+    private final Settings settings;
+    private final ManagedChannel channel;
+    private final InventoryServiceGrpc.InventoryServiceBlockingStub stub;
+    private final InventoryServiceGrpc.InventoryServiceFutureStub futureStub;
+    private final InventoryReservationStream reservationStream;
+    private final String statsKey = "inventory-" + UUID.randomUUID();
+
+    /**
+     * @param target a comma-separated host:port list of replicas, or a gRPC target URI such as
+     *               {@code dns:///inventory:9090}
+     */
+    InventoryShard(String name, String target, Settings settings, GrpcMetrics metrics) {
+        this.name = name;
+        this.target = target;
+        this.settings = settings;
+
+        ManagedChannelBuilder<?> builder = ManagedChannelBuilder.forTarget(target.contains("://")
+                ? target
+                : StaticNameResolverProvider.target(List.of(target.split(","))));
+        // Learning repo: plaintext local gRPC. In real prod, you’d use TLS + auth.
+        builder.usePlaintext()
+                .intercept(new GrpcMetricsClientInterceptor(metrics))
+                .defaultServiceConfig(serviceConfig(settings.resilience(), settings.maxAttempts(), settings.hedgingDelayMillis(),
+                        InventoryLoadBalancerProvider.serviceConfig(settings.balancing(), settings.healthCheckIntervalMillis(), statsKey)));
+        if (settings.resilience() == GrpcInventoryClient.Resilience.NONE) {
+            builder.disableRetry();
+        } else {
+            builder.maxRetryAttempts(settings.maxAttempts())
+                    .maxHedgedAttempts(settings.maxAttempts())
+                    .enableRetry();
+        }
+        this.channel = builder.build();
+        channel.getState(true); // connect to the replicas now rather than on the first reservation
+        this.stub = InventoryServiceGrpc.newBlockingStub(channel);
+        this.futureStub = InventoryServiceGrpc.newFutureStub(channel);
+        // Long-lived streams pipeline the reservations of all order threads; several lanes spread them over the replicas.
+        this.reservationStream = settings.streamEnabled()
+                ? new InventoryReservationStream(InventoryServiceGrpc.newStub(channel),
+                settings.streamLanes(), settings.streamMaxInFlight(), settings.deadlineMillis(),
+                settings.resilience() == GrpcInventoryClient.Resilience.NONE ? 1 : settings.maxAttempts())
+                : null;
+    }
+
+    String name() {
+        return name;
+    }
+
+    String target() {
+        return target;
+    }
+
+    GrpcInventoryClient.ReserveResponse reserve(ReserveStockRequest request) {
+        if (reservationStream != null) {
+            ReserveStockStreamResponse res = reservationStream.reserve(request);
+            return toReserveResponse(res.getReserved(), res.getReason());
+        }
+        ReserveStockResponse res = stub.withDeadlineAfter(settings.deadlineMillis(), TimeUnit.MILLISECONDS).reserveStock(request);
+        return toReserveResponse(res.getReserved(), res.getReason());
+    }
+
+    CompletableFuture<GrpcInventoryClient.ReserveResponse> reserveAsync(ReserveStockRequest request) {
+        if (reservationStream != null) {
+            return reservationStream.reserveAsync(request)
+                    .thenApply(res -> toReserveResponse(res.getReserved(), res.getReason()));
+        }
+        return toCompletable(futureStub.withDeadlineAfter(settings.deadlineMillis(), TimeUnit.MILLISECONDS).reserveStock(request))
+                .thenApply(res -> toReserveResponse(res.getReserved(), res.getReason()));
+    }
+
+    /**
+     * @return the result per order, in request order
+     */
+    CompletableFuture<List<ReserveStockStreamResponse>> reserveBatchAsync(BatchReserveStockRequest request) {
+        return toCompletable(futureStub.withDeadlineAfter(settings.batchDeadlineMillis(), TimeUnit.MILLISECONDS).batchReserveStock(request))
+                .thenApply(BatchReserveStockResponse::getResultsList);
+    }
+
+    /**
+     * @return the orderIds whose hold was released
+     */
+    CompletableFuture<List<Long>> releaseAsync(Collection<Long> orderIds) {
+        ReleaseStockRequest request = ReleaseStockRequest.newBuilder().addAllOrderIds(orderIds).build();
+        return toCompletable(futureStub.withDeadlineAfter(settings.deadlineMillis(), TimeUnit.MILLISECONDS).releaseStock(request))
+                .thenApply(ReleaseStockResponse::getReleasedOrderIdsList);
+    }
+
+    /**
+     * @return the stock of the products that have any, in request order
+     */
+    CompletableFuture<List<StockLevel>> getStockBatchAsync(Collection<Long> productIds) {
+        GetStockBatchRequest request = GetStockBatchRequest.newBuilder().addAllProductIds(productIds).build();
+        return toCompletable(futureStub.withDeadlineAfter(settings.deadlineMillis(), TimeUnit.MILLISECONDS).getStockBatch(request))
+                .thenApply(GetStockBatchResponse::getLevelsList);
+    }
+
+    List<GrpcInventoryClient.EndpointStats> endpointStats() {
+        return InventoryLoadBalancerProvider.INSTANCE.stats(statsKey);
+    }
+
+    // In-flight calls finish; new ones fail.
+    void shutdown() {
+        if (reservationStream != null) {
+            reservationStream.close();
+        }
+        channel.shutdown();
+    }
+
+    // Durations are protobuf JSON strings, numbers must be doubles (the map is parsed like JSON).
+    static Map<String, Object> serviceConfig(
+            GrpcInventoryClient.Resilience resilience,
+            int maxAttempts,
+            long hedgingDelayMillis,
+            Map<String, Object> loadBalancingConfig
+    ) {
+        if (resilience == GrpcInventoryClient.Resilience.NONE) {
+            return Map.of("loadBalancingConfig", List.of(loadBalancingConfig));
+        }
+        Map<String, Object> methodConfig = new LinkedHashMap<>();
+        methodConfig.put("name", List.of(
+                Map.of("service", InventoryServiceGrpc.SERVICE_NAME, "method", "ReserveStock"),
+                Map.of("service", InventoryServiceGrpc.SERVICE_NAME, "method", "BatchReserveStock"),
+                Map.of("service", InventoryServiceGrpc.SERVICE_NAME, "method", "ReleaseStock"),
+                Map.of("service", InventoryServiceGrpc.SERVICE_NAME, "method", "GetStock"),
+                Map.of("service", InventoryServiceGrpc.SERVICE_NAME, "method", "GetStockBatch")));
+        if (resilience == GrpcInventoryClient.Resilience.HEDGING) {
+            methodConfig.put("hedgingPolicy", Map.of(
+                    "maxAttempts", (double) maxAttempts,
+                    "hedgingDelay", hedgingDelayMillis / 1000.0 + "s",
+                    "nonFatalStatusCodes", List.of("UNAVAILABLE")));
+        } else {
+            methodConfig.put("retryPolicy", Map.of(
+                    "maxAttempts", (double) maxAttempts,
+                    "initialBackoff", "0.05s",
+                    "maxBackoff", "0.5s",
+                    "backoffMultiplier", 2.0,
+                    "retryableStatusCodes", List.of("UNAVAILABLE", "ABORTED")));
+        }
+        return Map.of(
+                "loadBalancingConfig", List.of(loadBalancingConfig),
+                "methodConfig", List.of(methodConfig));
+    }
+
+    static GrpcInventoryClient.ReserveResponse toReserveResponse(boolean reserved, String reason) {
+        if (reason != null && reason.isBlank()) {
+            reason = null;
+        }
+        return new GrpcInventoryClient.ReserveResponse(reserved, reason);
+    }
+
+    // Fails with a StatusRuntimeException; completes on a gRPC thread.
+    private static <T> CompletableFuture<T> toCompletable(ListenableFuture<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Futures.addCallback(call, new FutureCallback<>() {
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(Status.fromThrowable(t).asRuntimeException());
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+}
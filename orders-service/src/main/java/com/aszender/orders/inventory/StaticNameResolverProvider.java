@@ -0,0 +1,87 @@
+package com.aszender.orders.inventory;
+
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resolves {@code static:///host1:9090,host2:9090} to a fixed list of endpoints, one address group
+ * each, so the load balancer sees every inventory replica. DNS names are resolved once per host
+ * when the channel starts; use a {@code dns:///} target for replicas that come and go.
+ */
+class StaticNameResolverProvider extends NameResolverProvider {
+
+    static final String SCHEME = "static";
+
+    static String target(List<String> endpoints) {
+        return SCHEME + ":///" + String.join(",", endpoints);
+    }
+
+    @Override
+    public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+        if (!SCHEME.equals(targetUri.getScheme())) {
+            return null;
+        }
+        String path = targetUri.getPath();
+        List<EquivalentAddressGroup> groups = Arrays.stream(path.substring(path.startsWith("/") ? 1 : 0).split(","))
+                .map(String::trim)
+                .filter(endpoint -> !endpoint.isEmpty())
+                .map(StaticNameResolverProvider::toAddressGroup)
+                .toList();
+        if (groups.isEmpty()) {
+            throw new IllegalArgumentException("no endpoints in " + targetUri);
+        }
+
+        return new NameResolver() {
+            @Override
+            public String getServiceAuthority() {
+                return "inventory";
+            }
+
+            @Override
+            public void start(Listener2 listener) {
+                listener.onResult(ResolutionResult.newBuilder().setAddresses(groups).build());
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+    }
+
+    private static EquivalentAddressGroup toAddressGroup(String endpoint) {
+        int colon = endpoint.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("expected host:port, got " + endpoint);
+        }
+        SocketAddress address = new InetSocketAddress(endpoint.substring(0, colon), Integer.parseInt(endpoint.substring(colon + 1)));
+        return new EquivalentAddressGroup(address);
+    }
+
+    @Override
+    public String getDefaultScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    protected boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    protected int priority() {
+        return 5;
+    }
+
+    @Override
+    public Collection<Class<? extends SocketAddress>> getProducedSocketAddressTypes() {
+        return List.of(InetSocketAddress.class);
+    }
+}
@@ -0,0 +1,48 @@
+package com.aszender.orders.kafka;
+
+import com.aszender.contracts.events.v1.ProductCreated;
+import com.aszender.contracts.events.v1.StockReservationFailed;
+import com.aszender.contracts.events.v1.StockReserved;
+import com.aszender.contracts.kafka.KafkaEventFormats;
+import com.aszender.contracts.kafka.ProtobufDeserializer;
+import com.aszender.orders.kafka.serde.OrderEventMessages;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.kafka.autoconfigure.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.kafka.autoconfigure.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.kafka.autoconfigure.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This service's events and consumed topics for the shared {@link KafkaEventFormats}.
+ */
+@Configuration
+@Profile("kafka")
+public class KafkaEventFormatConfig {
+
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer protobufEventSerializer(
+            KafkaProperties kafkaProperties,
+            @Value("${app.kafka.protobuf-topics:}") Set<String> protobufTopics
+    ) {
+        return KafkaEventFormats.protobufSerializer(kafkaProperties, protobufTopics, OrderEventMessages::toMessage);
+    }
+
+    @Bean
+    public DefaultKafkaConsumerFactoryCustomizer protobufEventDeserializer(
+            KafkaProperties kafkaProperties,
+            @Value("${app.kafka.topics.stock-reserved}") String stockReservedTopic,
+            @Value("${app.kafka.topics.stock-reservation-failed}") String stockReservationFailedTopic,
+            @Value("${app.kafka.topics.product-created:products.product-created.v1}") String productCreatedTopic
+    ) {
+        return KafkaEventFormats.contentTypeDeserializer(kafkaProperties, () -> Map.of(
+                stockReservedTopic, new ProtobufDeserializer<>(StockReserved.parser(), OrderEventMessages::fromMessage),
+                stockReservationFailedTopic, new ProtobufDeserializer<>(StockReservationFailed.parser(), OrderEventMessages::fromMessage),
+                productCreatedTopic, new ProtobufDeserializer<>(ProductCreated.parser(), OrderEventMessages::fromMessage)
+        ));
+    }
+}
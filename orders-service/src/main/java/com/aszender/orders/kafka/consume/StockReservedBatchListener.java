@@ -0,0 +1,42 @@
+package com.aszender.orders.kafka.consume;
+
+import com.aszender.contracts.kafka.KafkaBatchListenerAutoConfiguration;
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
+import com.aszender.orders.kafka.events.StockReservedEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Profile("kafka")
+@ConditionalOnProperty(name = "app.kafka.batch-listeners.enabled", havingValue = "true")
+public class StockReservedBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservedBatchListener.class);
+
+    private final KafkaInboxService inboxService;
+
+    public StockReservedBatchListener(KafkaInboxService inboxService) {
+        this.inboxService = inboxService;
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topics.stock-reserved}",
+            groupId = "orders-service",
+            containerFactory = KafkaBatchListenerAutoConfiguration.CONTAINER_FACTORY,
+            properties = {
+                    "spring.json.value.default.type=com.aszender.orders.kafka.events.StockReservedEvent",
+                    "max.poll.records=${app.kafka.batch-listeners.max-poll-records:500}"
+            }
+    )
+    public void onStockReserved(List<ConsumerRecord<String, StockReservedEvent>> records) {
+        List<ConsumerRecord<String, StockReservedEvent>> fresh = inboxService.tryConsumeAll(records);
+        log.info("Received {} StockReservedEvents ({} new)", records.size(), fresh.size());
+    }
+}
@@ -1,16 +1,18 @@
 package com.aszender.orders.kafka.consume;
 
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
 import com.aszender.orders.kafka.events.StockReservedEvent;
-import com.aszender.orders.kafka.inbox.KafkaInboxService;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
 @Component
 @Profile("kafka")
+@ConditionalOnProperty(name = "app.kafka.batch-listeners.enabled", havingValue = "false", matchIfMissing = true)
 public class StockReservedListener {
 
     private static final Logger log = LoggerFactory.getLogger(StockReservedListener.class);
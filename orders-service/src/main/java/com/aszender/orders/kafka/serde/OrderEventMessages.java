@@ -0,0 +1,75 @@
+package com.aszender.orders.kafka.serde;
+
+import com.aszender.contracts.events.v1.OrderCancelled;
+import com.aszender.contracts.events.v1.OrderCreated;
+import com.aszender.contracts.events.v1.OrderItem;
+import com.aszender.contracts.events.v1.ProductCreated;
+import com.aszender.contracts.events.v1.StockReservationFailed;
+import com.aszender.contracts.events.v1.StockReserved;
+import com.aszender.contracts.kafka.ProtoTimestamps;
+import com.aszender.orders.kafka.events.OrderCancelledEvent;
+import com.aszender.orders.kafka.events.OrderCreatedEvent;
+import com.aszender.orders.kafka.events.OrderItemEvent;
+import com.aszender.orders.kafka.events.ProductCreatedEvent;
+import com.aszender.orders.kafka.events.StockReservationFailedEvent;
+import com.aszender.orders.kafka.events.StockReservedEvent;
+import com.google.protobuf.MessageLite;
+
+import java.util.List;
+
+/**
+ * The event records of this service &lt;-&gt; their protobuf messages (contracts events.proto).
+ * Null timestamps stay unset on the wire and come back as null.
+ */
+public final class OrderEventMessages {
+
+    private OrderEventMessages() {
+    }
+
+    /**
+     * @param event one of the events this service publishes
+     */
+    public static MessageLite toMessage(Object event) {
+        if (event instanceof OrderCreatedEvent e) {
+            OrderCreated.Builder message = OrderCreated.newBuilder().setOrderId(e.orderId());
+            if (e.createdAt() != null) {
+                message.setCreatedAt(ProtoTimestamps.parse(e.createdAt()));
+            }
+            if (e.items() != null) {
+                e.items().forEach(item -> message.addItems(OrderItem.newBuilder()
+                        .setProductId(item.productId())
+                        .setQuantity(item.quantity() == null ? 0 : item.quantity())));
+            }
+            return message.build();
+        }
+        if (event instanceof OrderCancelledEvent e) {
+            OrderCancelled.Builder message = OrderCancelled.newBuilder().setOrderId(e.orderId());
+            if (e.cancelledAt() != null) {
+                message.setCancelledAt(ProtoTimestamps.parse(e.cancelledAt()));
+            }
+            return message.build();
+        }
+        throw new IllegalArgumentException("No protobuf message for " + event.getClass().getName());
+    }
+
+    public static StockReservedEvent fromMessage(StockReserved message) {
+        List<OrderItemEvent> items = message.getItemsList().stream()
+                .map(item -> new OrderItemEvent(item.getProductId(), item.getQuantity()))
+                .toList();
+        return new StockReservedEvent(message.getOrderId(),
+                message.hasReservedAt() ? ProtoTimestamps.toInstant(message.getReservedAt()) : null, items);
+    }
+
+    public static StockReservationFailedEvent fromMessage(StockReservationFailed message) {
+        return new StockReservationFailedEvent(message.getOrderId(),
+                message.hasFailedAt() ? ProtoTimestamps.toInstant(message.getFailedAt()) : null,
+                message.getReason());
+    }
+
+    public static ProductCreatedEvent fromMessage(ProductCreated message) {
+        return new ProductCreatedEvent(message.getProductId(),
+                message.hasName() ? message.getName() : null,
+                message.hasPrice() ? message.getPrice() : null,
+                message.hasCreatedAt() ? ProtoTimestamps.toInstant(message.getCreatedAt()) : null);
+    }
+}
@@ -7,11 +7,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_orders_status_created_at_id", columnList = "status, created_at, id"),
+        @Index(name = "idx_orders_customer_name_created_at_id", columnList = "customer_name, created_at, id")
+})
 public class Order {
 
+    // Pooled sequence: ids are handed out in blocks, so inserts can be batched (IDENTITY cannot).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -27,6 +33,11 @@ public class Order {
     @Column(nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
 
+    // Bumped by every update; the stock reservation only writes its outcome if nothing changed since it read the order.
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> items = new ArrayList<>();
 
@@ -70,6 +81,10 @@ public class Order {
         this.total = total;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
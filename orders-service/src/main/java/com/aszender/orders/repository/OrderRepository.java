@@ -1,7 +1,61 @@
 package com.aszender.orders.repository;
 
 import com.aszender.orders.model.Order;
+import com.aszender.orders.model.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // Keyset pages, newest first, over idx_orders_created_at_id (or the status / customer variants
+    // when filtered). Null filters match every order.
+    @Query("""
+            select o.id from Order o
+             where (:status is null or o.status = :status)
+               and (:customerName is null or o.customerName = :customerName)
+             order by o.createdAt desc, o.id desc
+            """)
+    List<Long> findPageIds(
+            @Param("status") OrderStatus status,
+            @Param("customerName") String customerName,
+            Pageable page
+    );
+
+    @Query("""
+            select o.id from Order o
+             where (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id))
+               and (:status is null or o.status = :status)
+               and (:customerName is null or o.customerName = :customerName)
+             order by o.createdAt desc, o.id desc
+            """)
+    List<Long> findPageIdsBefore(
+            @Param("createdAt") Instant createdAt,
+            @Param("id") long id,
+            @Param("status") OrderStatus status,
+            @Param("customerName") String customerName,
+            Pageable page
+    );
+
+    // Keyset pages in id order, e.g. to pick up CREATED orders left over from a restart.
+    @Query("select o.id from Order o where o.status = :status and o.id > :afterId order by o.id")
+    List<Long> findIdsByStatusAfter(@Param("status") OrderStatus status, @Param("afterId") long afterId, Pageable page);
+
+    @Query("select distinct o from Order o left join fetch o.items where o.id in :ids")
+    List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Sets the status only if the order is still at {@code version}.
+     *
+     * @return 1 when updated, 0 when the order changed (or was deleted) meanwhile
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.status = :status, o.version = o.version + 1 where o.id = :id and o.version = :version")
+    int updateStatusIfVersion(@Param("id") long id, @Param("version") long version, @Param("status") OrderStatus status);
 }
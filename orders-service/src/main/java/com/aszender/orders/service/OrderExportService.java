@@ -0,0 +1,120 @@
+package com.aszender.orders.service;
+
+import com.aszender.orders.dto.OrderItemResponse;
+import com.aszender.orders.dto.OrderResponse;
+import com.aszender.orders.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full order export as NDJSON: one {@link OrderResponse} per line, in id order. Rows come from a
+ * single forward-only query read fetch-size rows at a time in a read-only transaction, and each
+ * order is written as soon as its last item row has been read, so memory stays constant however
+ * many orders there are. No entities are loaded.
+ */
+@Service
+public class OrderExportService {
+
+    private static final String EXPORT_SQL = """
+            select o.id, o.customer_name, o.status, o.total, o.created_at,
+                   i.id, i.product_id, i.quantity, i.unit_price
+              from orders o left join order_items i on i.order_id = o.id
+             order by o.id, i.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter writer;
+
+    public OrderExportService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            JsonMapper jsonMapper,
+            @Value("${app.orders.export.fetch-size:1000}") int fetchSize
+    ) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // A cursor needs a transaction on PostgreSQL (with autocommit the driver reads everything).
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writer = jsonMapper.writerFor(OrderResponse.class);
+    }
+
+    /**
+     * @return number of orders written
+     */
+    public long exportTo(OutputStream out) {
+        OrderLineWriter lines = new OrderLineWriter(out);
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_SQL, lines));
+        lines.flush();
+        return lines.written;
+    }
+
+    // Rows of one order are adjacent (ordered by o.id); the order is written when the next one starts.
+    private final class OrderLineWriter implements RowCallbackHandler {
+
+        private final OutputStream out;
+        private long written;
+
+        private long orderId;
+        private String customerName;
+        private OrderStatus status;
+        private Double total;
+        private OffsetDateTime createdAt;
+        private List<OrderItemResponse> items;
+
+        private OrderLineWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (items == null || id != orderId) {
+                flush();
+                orderId = id;
+                customerName = rs.getString(2);
+                status = OrderStatus.valueOf(rs.getString(3));
+                total = rs.getDouble(4);
+                createdAt = rs.getObject(5, OffsetDateTime.class);
+                items = new ArrayList<>();
+            }
+            long itemId = rs.getLong(6);
+            if (!rs.wasNull()) {
+                items.add(new OrderItemResponse(itemId, rs.getLong(7), rs.getInt(8), rs.getDouble(9)));
+            }
+        }
+
+        private void flush() {
+            if (items == null) {
+                return;
+            }
+            OrderResponse order = new OrderResponse(orderId, customerName, status, total,
+                    createdAt == null ? null : createdAt.toInstant(), items);
+            try {
+                out.write(writer.writeValueAsBytes(order));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException("Order export aborted (client gone?)", e);
+            }
+            written++;
+            items = null;
+        }
+    }
+}
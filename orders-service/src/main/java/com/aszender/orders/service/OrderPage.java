@@ -0,0 +1,13 @@
+package com.aszender.orders.service;
+
+import com.aszender.orders.model.Order;
+
+import java.util.List;
+
+/**
+ * One page of the order listing, items loaded.
+ *
+ * @param next cursor of the following page, null on the last one
+ */
+public record OrderPage(List<Order> orders, OrderCursor next) {
+}
@@ -0,0 +1,285 @@
+package com.aszender.orders.service;
+
+import com.aszender.orders.exception.PlacementQueueFullException;
+import com.aszender.orders.model.Order;
+import com.aszender.orders.model.OrderStatus;
+import com.aszender.orders.repository.OrderRepository;
+import io.grpc.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Async order placement (app.orders.placement.async=true): POST /api/orders stores the order and
+ * returns 202, and the stock reservation runs from this bounded queue. Accepting orders thus no
+ * longer waits for inventory; when inventory falls behind, the queue fills up and new orders are
+ * rejected (503) instead of piling up.
+ *
+ * A few dispatcher threads start the reservations, which are themselves asynchronous, with at most
+ * max-in-flight outstanding. A reservation that fails transiently (inventory overloaded, unavailable
+ * or past its deadline) is queued again after a backoff, up to max-attempts times; an order whose
+ * reservation still failed stays CREATED and can be reserved again with POST /api/orders/{id}/reserve.
+ *
+ * The queue itself is not persisted: on start, the CREATED orders in the database (accepted before a
+ * restart, or whose reservation failed) are queued again, page by page as room frees up. With
+ * several replicas an order may thus be reserved twice; the reservation is idempotent per order.
+ */
+@Component
+@ConditionalOnProperty(name = "app.orders.placement.async", havingValue = "true")
+public class OrderPlacementQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderPlacementQueue.class);
+
+    private static final int RECOVERY_PAGE_SIZE = 500;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 10_000;
+    private static final Set<Status.Code> RETRYABLE = EnumSet.of(
+            Status.Code.RESOURCE_EXHAUSTED, Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED);
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final int workers;
+    private final BlockingQueue<Long> queue;
+    // Queue space is taken before the order is stored, so an accepted order always finds room.
+    private final Semaphore slots;
+    private final Semaphore inFlight;
+    private final Map<Long, CompletableFuture<Order>> outcomes = new ConcurrentHashMap<>();
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    // Failed attempts of the orders being retried.
+    private final Map<Long, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile ScheduledExecutorService retries;
+    private volatile boolean running;
+
+    public OrderPlacementQueue(
+            OrderService orderService,
+            OrderRepository orderRepository,
+            @Value("${app.orders.placement.capacity:10000}") int capacity,
+            @Value("${app.orders.placement.workers:2}") int workers,
+            @Value("${app.orders.placement.max-in-flight:256}") int maxInFlight,
+            @Value("${app.orders.placement.max-attempts:5}") int maxAttempts,
+            @Value("${app.orders.placement.retry-backoff-ms:200}") long retryBackoffMillis
+    ) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.workers = workers;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.slots = new Semaphore(capacity);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    /**
+     * Stores the order (committed when {@code create} returns) and queues its reservation.
+     *
+     * @throws PlacementQueueFullException before anything is stored, when the queue is full
+     */
+    public Order place(Supplier<Order> create) {
+        if (!slots.tryAcquire()) {
+            throw new PlacementQueueFullException();
+        }
+        Order order;
+        try {
+            order = create.get();
+        } catch (RuntimeException ex) {
+            slots.release();
+            throw ex;
+        }
+        if (outcomes.putIfAbsent(order.getId(), new CompletableFuture<>()) == null) {
+            queue.add(order.getId());
+        } else {
+            slots.release(); // already queued by the recovery on start
+        }
+        return order;
+    }
+
+    /**
+     * @return the order once its queued reservation has finished (exceptionally if the reservation
+     * failed), or empty when none is queued or running for it
+     */
+    public Optional<CompletableFuture<Order>> outcome(Long orderId) {
+        return Optional.ofNullable(outcomes.get(orderId)).map(CompletableFuture::copy);
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    private void run() {
+        while (running) {
+            Long orderId;
+            try {
+                orderId = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (orderId == null) {
+                    continue;
+                }
+                slots.release();
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            reserve(orderId);
+        }
+    }
+
+    // Queues the CREATED orders already stored, waiting for room rather than rejecting them.
+    private void recover() {
+        int recovered = 0;
+        long afterId = 0;
+        try {
+            List<Long> ids;
+            do {
+                ids = orderRepository.findIdsByStatusAfter(OrderStatus.CREATED, afterId, PageRequest.of(0, RECOVERY_PAGE_SIZE));
+                for (Long orderId : ids) {
+                    while (!slots.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                        if (!running) {
+                            return;
+                        }
+                    }
+                    if (outcomes.putIfAbsent(orderId, new CompletableFuture<>()) == null) {
+                        queue.add(orderId);
+                        recovered++;
+                    } else {
+                        slots.release(); // placed meanwhile
+                    }
+                    afterId = orderId;
+                }
+            } while (running && ids.size() == RECOVERY_PAGE_SIZE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.error("Re-queueing CREATED orders stopped after orderId {}", afterId, ex);
+        } finally {
+            if (recovered > 0) {
+                log.info("Re-queued {} CREATED orders for reservation", recovered);
+            }
+        }
+    }
+
+    private void reserve(Long orderId) {
+        CompletableFuture<Order> reservation;
+        try {
+            reservation = orderService.reserveStock(orderId);
+        } catch (RuntimeException ex) {
+            reservation = CompletableFuture.failedFuture(ex);
+        }
+        reservation.whenComplete((order, ex) -> {
+            inFlight.release();
+            if (ex != null && retryLater(orderId, ex)) {
+                return;
+            }
+            failedAttempts.remove(orderId);
+            CompletableFuture<Order> outcome = outcomes.remove(orderId);
+            if (ex != null) {
+                log.warn("Queued reservation of order {} failed, order stays CREATED: {}", orderId, ex.toString());
+                outcome.completeExceptionally(ex);
+            } else {
+                outcome.complete(order);
+            }
+        });
+    }
+
+    // The order's outcome stays pending while it waits for its next attempt.
+    private boolean retryLater(Long orderId, Throwable ex) {
+        int attempt = failedAttempts.merge(orderId, 1, Integer::sum);
+        ScheduledExecutorService current = retries;
+        if (!RETRYABLE.contains(Status.fromThrowable(ex).getCode()) || attempt >= maxAttempts || current == null) {
+            return false;
+        }
+        long backoffMillis = Math.min(MAX_RETRY_BACKOFF_MILLIS, retryBackoffMillis << (attempt - 1));
+        try {
+            current.schedule(() -> requeue(orderId, backoffMillis), backoffMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException stopped) {
+            return false;
+        }
+        log.info("Queued reservation of order {} failed (attempt {}), retrying in {}ms: {}", orderId, attempt, backoffMillis, ex.toString());
+        return true;
+    }
+
+    // Runs on the retry thread: waits another backoff rather than blocking it when the queue is full.
+    private void requeue(Long orderId, long backoffMillis) {
+        if (slots.tryAcquire()) {
+            queue.add(orderId);
+            return;
+        }
+        ScheduledExecutorService current = retries;
+        if (current != null) {
+            try {
+                current.schedule(() -> requeue(orderId, backoffMillis), backoffMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException stopped) {
+                // stays CREATED, queued again on the next start
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        retries = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-placement-retry");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::run, "order-placement-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        Thread recovery = new Thread(this::recover, "order-placement-recovery");
+        recovery.setDaemon(true);
+        threads.add(recovery);
+        recovery.start();
+    }
+
+    // Queued orders not yet started, or waiting for a retry, stay CREATED.
+    @Override
+    public void stop() {
+        running = false;
+        ScheduledExecutorService current = retries;
+        retries = null;
+        if (current != null) {
+            current.shutdownNow();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        threads.clear();
+        if (!queue.isEmpty()) {
+            log.warn("{} queued orders were not reserved before shutdown", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
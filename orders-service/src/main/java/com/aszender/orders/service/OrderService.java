@@ -8,12 +8,22 @@ import com.aszender.orders.model.Order;
 import com.aszender.orders.model.OrderItem;
 import com.aszender.orders.model.OrderStatus;
 import com.aszender.orders.repository.OrderRepository;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class OrderService {
@@ -21,25 +31,64 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final OrderEventsPublisher orderEventsPublisher;
     private final GrpcInventoryClient inventoryClient;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
 
     public OrderService(
             OrderRepository orderRepository,
             OrderEventsPublisher orderEventsPublisher,
-            GrpcInventoryClient inventoryClient
+            GrpcInventoryClient inventoryClient,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("applicationTaskExecutor") Executor taskExecutor
     ) {
         this.orderRepository = orderRepository;
         this.orderEventsPublisher = orderEventsPublisher;
         this.inventoryClient = inventoryClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
     }
 
-    public List<Order> findAll() {
-        return orderRepository.findAll();
+    /**
+     * A page of orders, newest first, in two queries: the ids by keyset, then those orders with
+     * their items.
+     *
+     * @param after  cursor returned with the previous page, null for the first
+     * @param status null for any
+     * @param customerName null for any
+     */
+    @Transactional(readOnly = true)
+    public OrderPage findPage(OrderCursor after, OrderStatus status, String customerName, int limit) {
+        PageRequest page = PageRequest.of(0, limit + 1); // one more tells whether a next page exists
+        List<Long> ids = after == null
+                ? orderRepository.findPageIds(status, customerName, page)
+                : orderRepository.findPageIdsBefore(after.createdAt(), after.id(), status, customerName, page);
+        boolean more = ids.size() > limit;
+        if (more) {
+            ids = ids.subList(0, limit);
+        }
+        if (ids.isEmpty()) {
+            return new OrderPage(List.of(), null);
+        }
+
+        Map<Long, Order> byId = new HashMap<>();
+        orderRepository.findAllWithItemsByIdIn(ids).forEach(order -> byId.put(order.getId(), order));
+        List<Order> orders = ids.stream().map(byId::get).filter(Objects::nonNull).toList(); // deleted meanwhile
+        if (orders.isEmpty()) {
+            return new OrderPage(List.of(), null);
+        }
+        Order last = orders.get(orders.size() - 1);
+        return new OrderPage(orders, more ? new OrderCursor(last.getCreatedAt(), last.getId()) : null);
     }
 
     public Order findById(Long id) {
         return orderRepository.findById(id).orElseThrow(() -> new OrderNotFoundException(id));
     }
 
+    // For use outside a request or transaction (e.g. in async completions).
+    public Order findByIdWithItems(Long id) {
+        return transactionTemplate.execute(status -> withItems(findById(id)));
+    }
+
     @Transactional
     public Order create(CreateOrderRequest request) {
         Order order = new Order(request.customerName());
@@ -79,29 +128,49 @@ public class OrderService {
         return saved;
     }
 
-    @Transactional
-    public Order reserveStock(Long id) {
-        Order order = findById(id);
-
-        if (order.getStatus() == OrderStatus.RESERVED) {
-            return order;
-        }
-        if (order.getStatus() == OrderStatus.CANCELLED) {
-            return order;
+    /**
+     * Reserves the order's stock without holding a request thread, a database transaction or a
+     * pooled connection while inventory answers: the order is read in one short transaction, and the
+     * outcome is written in another on the application task executor, only if the order's version is
+     * still the one that was read.
+     *
+     * @throws OrderNotFoundException immediately; inventory failures (e.g. DEADLINE_EXCEEDED) fail the future
+     */
+    public CompletableFuture<Order> reserveStock(Long id) {
+        Order order = findByIdWithItems(id);
+        if (order.getStatus() == OrderStatus.RESERVED || order.getStatus() == OrderStatus.CANCELLED) {
+            return CompletableFuture.completedFuture(order);
         }
 
-        GrpcInventoryClient.ReserveResponse reserveResponse = inventoryClient.reserve(order.getId(), order.getItems());
+        long readVersion = order.getVersion();
         OrderStatus previous = order.getStatus();
+        return inventoryClient.reserveAsync(order.getId(), order.getItems())
+                .thenApplyAsync(response -> transactionTemplate.execute(
+                        status -> applyReservation(id, readVersion, previous, response)), taskExecutor);
+    }
 
-        if (reserveResponse.reserved()) {
-            order.setStatus(OrderStatus.RESERVED);
-        } else {
-            order.setStatus(OrderStatus.CANCELLED);
+    // A concurrent reserve, cancel or status change wins: its state is returned unchanged. If it
+    // cancelled the order, the stock inventory just reserved is given back: the cancellation event
+    // may have reached inventory before the hold existed.
+    private Order applyReservation(
+            Long id, long readVersion, OrderStatus previous, GrpcInventoryClient.ReserveResponse reserveResponse
+    ) {
+        OrderStatus next = reserveResponse.reserved() ? OrderStatus.RESERVED : OrderStatus.CANCELLED;
+        boolean applied = orderRepository.updateStatusIfVersion(id, readVersion, next) == 1;
+
+        Order order = withItems(findById(id));
+        if (applied) {
+            publishCancelledIfNeeded(previous, next, order);
+        } else if (reserveResponse.reserved() && order.getStatus() == OrderStatus.CANCELLED) {
+            inventoryClient.releaseAsync(id, order.getItems());
         }
+        return order;
+    }
 
-        Order saved = orderRepository.save(order);
-        publishCancelledIfNeeded(previous, saved.getStatus(), saved);
-        return saved;
+    // The result is used outside the transaction.
+    private static Order withItems(Order order) {
+        Hibernate.initialize(order.getItems());
+        return order;
     }
 
     @Transactional
@@ -113,7 +182,7 @@ public class OrderService {
 
         publishCancelledIfNeeded(previous, status, saved);
 
-        return saved;
+        return withItems(saved);
     }
 
     private void publishCancelledIfNeeded(OrderStatus previous, OrderStatus next, Order saved) {
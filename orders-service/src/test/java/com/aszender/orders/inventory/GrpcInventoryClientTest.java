@@ -0,0 +1,162 @@
+package com.aszender.orders.inventory;
+
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.contracts.inventory.v1.ReserveStockResponse;
+import com.aszender.contracts.inventory.v1.ReserveStockStreamResponse;
+import com.aszender.orders.model.OrderItem;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GrpcInventoryClientTest {
+
+    private static final List<OrderItem> ITEMS = List.of(new OrderItem(1L, 1, 1.0));
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    // Behaviour per attempt number (1-based); attempts without an entry are answered "reserved".
+    private final ConcurrentHashMap<Integer, String> behaviour = new ConcurrentHashMap<>();
+
+    private Server server;
+    private GrpcInventoryClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    void deadlineBoundsASlowInventory() throws IOException {
+        behaviour.put(1, "hang");
+        behaviour.put(2, "hang");
+        client = start(GrpcInventoryClient.Resilience.NONE, 200);
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> client.reserveAsync(1L, ITEMS).join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.DEADLINE_EXCEEDED));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(2_000);
+        assertThatThrownBy(() -> client.reserve(2L, ITEMS))
+                .isInstanceOf(StatusRuntimeException.class);
+    }
+
+    @Test
+    void retryRecoversFromUnavailable() throws IOException {
+        behaviour.put(1, "unavailable");
+        client = start(GrpcInventoryClient.Resilience.RETRY, 2_000);
+
+        assertThat(client.reserveAsync(1L, ITEMS).join().reserved()).isTrue();
+        assertThat(attempts.get()).isEqualTo(2);
+
+        // The metrics see the caller's one call, not the two attempts.
+        assertThat(client.callMetrics()).singleElement().satisfies(reserve -> {
+            assertThat(reserve.method()).isEqualTo(InventoryServiceGrpc.getReserveStockMethod().getFullMethodName());
+            assertThat(reserve.calls()).isEqualTo(1);
+            assertThat(reserve.inFlight()).isZero();
+            assertThat(reserve.statusCodes()).containsExactly(Map.entry("OK", 1L));
+            assertThat(reserve.messagesSent()).isEqualTo(1);
+            assertThat(reserve.messagesReceived()).isEqualTo(1);
+            assertThat(reserve.latency().count()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void streamRetriesABrokenLaneOnAFreshStream() throws IOException {
+        behaviour.put(1, "unavailable");
+        client = start(GrpcInventoryClient.Resilience.RETRY, 2_000, true);
+
+        assertThat(client.reserveAsync(1L, ITEMS).join().reserved()).isTrue();
+        assertThat(client.reserve(2L, ITEMS).reserved()).isTrue();
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test
+    void hedgingAnswersBeforeTheSlowAttempt() throws IOException {
+        behaviour.put(1, "hang");
+        client = start(GrpcInventoryClient.Resilience.HEDGING, 2_000);
+
+        long started = System.nanoTime();
+        assertThat(client.reserveAsync(1L, ITEMS).join().reserved()).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(1_000);
+        assertThat(attempts.get()).isGreaterThanOrEqualTo(2);
+    }
+
+    private GrpcInventoryClient start(GrpcInventoryClient.Resilience resilience, long deadlineMillis) throws IOException {
+        return start(resilience, deadlineMillis, false);
+    }
+
+    private GrpcInventoryClient start(GrpcInventoryClient.Resilience resilience, long deadlineMillis, boolean stream) throws IOException {
+        server = ServerBuilder.forPort(0)
+                .addService(new InventoryServiceGrpc.InventoryServiceImplBase() {
+                    @Override
+                    public void reserveStock(ReserveStockRequest request, StreamObserver<ReserveStockResponse> responseObserver) {
+                        String action = behaviour.getOrDefault(attempts.incrementAndGet(), "reserve");
+                        switch (action) {
+                            case "hang" -> {
+                                // never answered; the client's deadline or a hedged attempt takes over
+                            }
+                            case "unavailable" -> responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+                            default -> {
+                                responseObserver.onNext(ReserveStockResponse.newBuilder().setReserved(true).build());
+                                responseObserver.onCompleted();
+                            }
+                        }
+                    }
+
+                    // Same behaviours per request; "unavailable" breaks the whole stream.
+                    @Override
+                    public StreamObserver<ReserveStockRequest> reserveStockStream(StreamObserver<ReserveStockStreamResponse> responseObserver) {
+                        return new StreamObserver<>() {
+                            @Override
+                            public void onNext(ReserveStockRequest request) {
+                                String action = behaviour.getOrDefault(attempts.incrementAndGet(), "reserve");
+                                switch (action) {
+                                    case "hang" -> {
+                                    }
+                                    case "unavailable" -> responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+                                    default -> responseObserver.onNext(ReserveStockStreamResponse.newBuilder()
+                                            .setOrderId(request.getOrderId())
+                                            .setReserved(true)
+                                            .build());
+                                }
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                            }
+
+                            @Override
+                            public void onCompleted() {
+                                responseObserver.onCompleted();
+                            }
+                        };
+                    }
+                })
+                .build()
+                .start();
+        return new GrpcInventoryClient("localhost", server.getPort(), "", "", 128, GrpcInventoryClient.Balancing.ROUND_ROBIN, 0,
+                deadlineMillis, 30_000, resilience, 3, 100, stream, 1, 16);
+    }
+}
@@ -0,0 +1,181 @@
+package com.aszender.orders.inventory;
+
+import com.aszender.contracts.health.v1.HealthCheckRequest;
+import com.aszender.contracts.health.v1.HealthCheckResponse;
+import com.aszender.contracts.health.v1.HealthGrpc;
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.contracts.inventory.v1.ReserveStockResponse;
+import com.aszender.orders.model.OrderItem;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three local inventory replicas behind one client: round-robin spreads the calls, an unhealthy
+ * replica is ejected, and least-request keeps calls away from a replica that does not answer.
+ */
+class InventoryLoadBalancingTest {
+
+    private static final List<OrderItem> ITEMS = List.of(new OrderItem(1L, 1, 1.0));
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private GrpcInventoryClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        replicas.forEach(replica -> replica.server.shutdownNow());
+    }
+
+    @Test
+    void roundRobinSpreadsCallsAndEjectsUnhealthyReplica() throws Exception {
+        Replica first = startReplica(false);
+        Replica second = startReplica(false);
+        Replica unhealthy = startReplica(false);
+        unhealthy.serving = false;
+        client = connect(GrpcInventoryClient.Balancing.ROUND_ROBIN);
+
+        awaitEjected(unhealthy);
+        replicas.forEach(replica -> replica.calls.set(0));
+        for (long orderId = 1; orderId <= 60; orderId++) {
+            assertThat(client.reserve(orderId, ITEMS).reserved()).isTrue();
+        }
+
+        assertThat(unhealthy.calls.get()).isZero();
+        assertThat(first.calls.get()).isEqualTo(30);
+        assertThat(second.calls.get()).isEqualTo(30);
+        assertThat(client.endpointStats())
+                .hasSize(3)
+                .allSatisfy(stats -> assertThat(stats.state()).isEqualTo("READY"));
+
+        unhealthy.serving = true;
+        awaitHealthy(unhealthy);
+        client.reserve(61L, ITEMS);
+        client.reserve(62L, ITEMS);
+        client.reserve(63L, ITEMS);
+        assertThat(unhealthy.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void leastRequestAvoidsReplicaWithOutstandingCalls() throws Exception {
+        Replica fast1 = startReplica(false);
+        Replica fast2 = startReplica(false);
+        Replica stuck = startReplica(true);
+        client = connect(GrpcInventoryClient.Balancing.LEAST_REQUEST);
+        awaitHealthy(stuck);
+
+        // One call at a time: calls on the fast replicas finish, those on the stuck one pile up.
+        List<CompletableFuture<GrpcInventoryClient.ReserveResponse>> responses = new ArrayList<>();
+        for (long orderId = 1; orderId <= 30; orderId++) {
+            CompletableFuture<GrpcInventoryClient.ReserveResponse> response = client.reserveAsync(orderId, ITEMS);
+            responses.add(response);
+            try {
+                response.get(200, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException stuckCall) {
+                // routed to the stuck replica
+            }
+        }
+
+        // Round-robin would have sent it 10; least-request only while it had no call outstanding.
+        assertThat(stuck.calls.get()).isLessThanOrEqualTo(1);
+        assertThat(fast1.calls.get() + fast2.calls.get()).isGreaterThanOrEqualTo(29);
+
+        stuck.release();
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(client.endpointStats())
+                .extracting(GrpcInventoryClient.EndpointStats::inFlight)
+                .containsOnly(0);
+        assertThat(client.endpointStats().stream().mapToLong(GrpcInventoryClient.EndpointStats::calls).sum())
+                .isGreaterThanOrEqualTo(30);
+    }
+
+    private GrpcInventoryClient connect(GrpcInventoryClient.Balancing balancing) {
+        String target = String.join(",", replicas.stream().map(replica -> "localhost:" + replica.server.getPort()).toList());
+        return new GrpcInventoryClient("localhost", 0, target, "", 128, balancing, 100,
+                5_000, 30_000, GrpcInventoryClient.Resilience.RETRY, 3, 100, false, 1, 256);
+    }
+
+    private void awaitEjected(Replica replica) throws InterruptedException {
+        awaitHealth(replica, false);
+    }
+
+    private void awaitHealthy(Replica replica) throws InterruptedException {
+        awaitHealth(replica, true);
+    }
+
+    private void awaitHealth(Replica replica, boolean healthy) throws InterruptedException {
+        String suffix = ":" + replica.server.getPort();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            boolean matches = client.endpointStats().stream()
+                    .anyMatch(stats -> stats.address().endsWith(suffix) && stats.state().equals("READY") && stats.healthy() == healthy);
+            if (matches) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("replica " + suffix + " did not become healthy=" + healthy + ": " + client.endpointStats());
+    }
+
+    private Replica startReplica(boolean stuck) throws IOException {
+        Replica replica = new Replica();
+        replica.server = ServerBuilder.forPort(0)
+                .addService(new InventoryServiceGrpc.InventoryServiceImplBase() {
+                    @Override
+                    public void reserveStock(ReserveStockRequest request, StreamObserver<ReserveStockResponse> responseObserver) {
+                        replica.calls.incrementAndGet();
+                        Runnable answer = () -> {
+                            responseObserver.onNext(ReserveStockResponse.newBuilder().setReserved(true).build());
+                            responseObserver.onCompleted();
+                        };
+                        if (stuck) {
+                            replica.held.add(answer);
+                        } else {
+                            answer.run();
+                        }
+                    }
+                })
+                .addService(new HealthGrpc.HealthImplBase() {
+                    @Override
+                    public void check(HealthCheckRequest request, StreamObserver<HealthCheckResponse> responseObserver) {
+                        responseObserver.onNext(HealthCheckResponse.newBuilder()
+                                .setStatus(replica.serving
+                                        ? HealthCheckResponse.ServingStatus.SERVING
+                                        : HealthCheckResponse.ServingStatus.NOT_SERVING)
+                                .build());
+                        responseObserver.onCompleted();
+                    }
+                })
+                .build()
+                .start();
+        replicas.add(replica);
+        return replica;
+    }
+
+    private static final class Replica {
+        Server server;
+        final AtomicInteger calls = new AtomicInteger();
+        final List<Runnable> held = new CopyOnWriteArrayList<>();
+        volatile boolean serving = true;
+
+        void release() {
+            held.forEach(Runnable::run);
+        }
+    }
+}
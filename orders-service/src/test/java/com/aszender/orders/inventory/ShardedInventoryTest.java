@@ -0,0 +1,256 @@
+package com.aszender.orders.inventory;
+
+import com.aszender.contracts.inventory.v1.BatchReserveStockRequest;
+import com.aszender.contracts.inventory.v1.BatchReserveStockResponse;
+import com.aszender.contracts.inventory.v1.GetStockBatchRequest;
+import com.aszender.contracts.inventory.v1.GetStockBatchResponse;
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReleaseStockRequest;
+import com.aszender.contracts.inventory.v1.ReleaseStockResponse;
+import com.aszender.contracts.inventory.v1.ReserveItem;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.contracts.inventory.v1.ReserveStockResponse;
+import com.aszender.contracts.inventory.v1.ReserveStockStreamResponse;
+import com.aszender.contracts.inventory.v1.StockLevel;
+import com.aszender.orders.model.OrderItem;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three in-process inventory shards, each keeping stock for whatever products it is asked about:
+ * the client must route every line to the ring owner, reserve multi-shard orders on all their
+ * shards and release the reserved parts when one shard rejects.
+ */
+class ShardedInventoryTest {
+
+    private static final int STOCK = 10;
+
+    private final Map<String, Shard> shards = new LinkedHashMap<>();
+    private GrpcInventoryClient client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        shards.values().forEach(shard -> shard.server.shutdownNow());
+    }
+
+    @Test
+    void linesAreReservedOnTheShardOwningTheirProduct() throws IOException {
+        client = connect("a", "b", "c");
+
+        List<OrderItem> items = LongStream.rangeClosed(1, 30).mapToObj(productId -> new OrderItem(productId, 1, 1.0)).toList();
+        assertThat(client.reserve(1L, items).reserved()).isTrue();
+
+        shards.forEach((name, shard) -> {
+            assertThat(shard.productsSeen).isNotEmpty();
+            assertThat(shard.productsSeen).allSatisfy(productId -> assertThat(client.shardOf(productId)).isEqualTo(name));
+            assertThat(shard.holds).containsOnlyKeys(1L);
+        });
+        assertThat(shards.values().stream().mapToInt(shard -> shard.productsSeen.size()).sum()).isEqualTo(30);
+    }
+
+    @Test
+    void rejectionOnOneShardReleasesTheOtherParts() throws IOException {
+        client = connect("a", "b", "c");
+        long scarce = productOn("a");
+        long plenty1 = productOn("b");
+        long plenty2 = productOn("c");
+
+        List<OrderItem> items = List.of(new OrderItem(scarce, STOCK + 1, 1.0), new OrderItem(plenty1, 2, 1.0), new OrderItem(plenty2, 3, 1.0));
+        GrpcInventoryClient.ReserveResponse response = client.reserveAsync(2L, items).join();
+
+        assertThat(response.reserved()).isFalse();
+        assertThat(response.reason()).isEqualTo("INSUFFICIENT_STOCK");
+        assertThat(shards.get("b").released).containsExactly(2L);
+        assertThat(shards.get("c").released).containsExactly(2L);
+        assertThat(shards.get("b").available(plenty1)).isEqualTo(STOCK);
+        assertThat(shards.get("c").available(plenty2)).isEqualTo(STOCK);
+        assertThat(shards.get("a").available(scarce)).isEqualTo(STOCK);
+    }
+
+    @Test
+    void batchCompensatesOnlyTheRejectedOrders() throws IOException {
+        client = connect("a", "b", "c");
+        long onA = productOn("a");
+        long onB = productOn("b");
+
+        Map<Long, List<OrderItem>> orders = new LinkedHashMap<>();
+        orders.put(10L, List.of(new OrderItem(onA, 4, 1.0), new OrderItem(onB, 4, 1.0)));
+        orders.put(11L, List.of(new OrderItem(onA, 4, 1.0), new OrderItem(onB, 7, 1.0))); // b has 6 left
+        orders.put(12L, List.of(new OrderItem(onA, 1, 1.0)));
+
+        Map<Long, GrpcInventoryClient.ReserveResponse> responses = client.reserveBatch(orders);
+
+        assertThat(responses).containsOnlyKeys(10L, 11L, 12L);
+        assertThat(responses.get(10L).reserved()).isTrue();
+        assertThat(responses.get(11L).reserved()).isFalse();
+        assertThat(responses.get(12L).reserved()).isTrue();
+        assertThat(shards.get("a").released).containsExactly(11L);
+        assertThat(shards.get("a").available(onA)).isEqualTo(STOCK - 4 - 1);
+        assertThat(shards.get("b").available(onB)).isEqualTo(STOCK - 4);
+    }
+
+    @Test
+    void availabilityIsReadFromTheOwningShards() throws IOException {
+        client = connect("a", "b", "c");
+        long onA = productOn("a");
+        long onB = productOn("b");
+        long unknown = 999_999L;
+        shards.get(client.shardOf(unknown)).unknown.add(unknown);
+        assertThat(client.reserve(30L, List.of(new OrderItem(onA, 4, 1.0), new OrderItem(onB, 1, 1.0))).reserved()).isTrue();
+
+        assertThat(client.availability(List.of(onB, unknown, onA)))
+                .containsExactly(Map.entry(onB, STOCK - 1), Map.entry(onA, STOCK - 4));
+        assertThat(shards.get("a").productsSeen).contains(onA).doesNotContain(onB);
+    }
+
+    @Test
+    void addingAShardMovesAboutAQuarterOfTheProductsToIt() throws IOException {
+        client = connect("a", "b", "c");
+        Map<Long, String> before = new HashMap<>();
+        LongStream.range(0, 10_000).forEach(productId -> before.put(productId, client.shardOf(productId)));
+
+        startShard("d");
+        client.updateShards(specs());
+
+        int moved = 0;
+        for (long productId = 0; productId < 10_000; productId++) {
+            String owner = client.shardOf(productId);
+            if (!owner.equals(before.get(productId))) {
+                assertThat(owner).isEqualTo("d");
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(1_500, 3_500);
+
+        long onD = productOn("d");
+        assertThat(client.reserve(20L, List.of(new OrderItem(onD, 1, 1.0))).reserved()).isTrue();
+        assertThat(shards.get("d").holds).containsOnlyKeys(20L);
+
+        shards.remove("d").server.shutdownNow();
+        client.updateShards(specs());
+        assertThat(client.shardOf(onD)).isNotEqualTo("d");
+        assertThat(client.reserve(21L, List.of(new OrderItem(onD, 1, 1.0))).reserved()).isTrue();
+    }
+
+    private long productOn(String shard) {
+        return LongStream.iterate(1_000, productId -> productId + 1)
+                .filter(productId -> client.shardOf(productId).equals(shard))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private GrpcInventoryClient connect(String... names) throws IOException {
+        for (String name : names) {
+            startShard(name);
+        }
+        return new GrpcInventoryClient("localhost", 0, "", String.join(",", specs()), 128,
+                GrpcInventoryClient.Balancing.ROUND_ROBIN, 0, 5_000, 30_000, GrpcInventoryClient.Resilience.RETRY,
+                3, 100, false, 1, 256);
+    }
+
+    private List<String> specs() {
+        return shards.entrySet().stream()
+                .map(e -> e.getKey() + "=localhost:" + e.getValue().server.getPort())
+                .toList();
+    }
+
+    private void startShard(String name) throws IOException {
+        Shard shard = new Shard();
+        shard.server = ServerBuilder.forPort(0).addService(shard).build().start();
+        shards.put(name, shard);
+    }
+
+    // All-or-nothing and idempotent per order, like the inventory service.
+    private static final class Shard extends InventoryServiceGrpc.InventoryServiceImplBase {
+
+        Server server;
+        final Set<Long> productsSeen = new HashSet<>();
+        final Map<Long, List<ReserveItem>> holds = new HashMap<>();
+        final List<Long> released = new ArrayList<>();
+        final Set<Long> unknown = new HashSet<>();
+        private final Map<Long, Integer> available = new HashMap<>();
+
+        synchronized int available(long productId) {
+            return available.getOrDefault(productId, STOCK);
+        }
+
+        private synchronized ReserveStockStreamResponse reserve(ReserveStockRequest request) {
+            ReserveStockStreamResponse.Builder response = ReserveStockStreamResponse.newBuilder().setOrderId(request.getOrderId());
+            request.getItemsList().forEach(item -> productsSeen.add(item.getProductId()));
+            if (holds.containsKey(request.getOrderId())) {
+                return response.setReserved(true).build();
+            }
+            boolean sufficient = request.getItemsList().stream()
+                    .allMatch(item -> available(item.getProductId()) >= item.getQuantity());
+            if (!sufficient || released.contains(request.getOrderId())) {
+                return response.setReserved(false).setReason("INSUFFICIENT_STOCK").build();
+            }
+            request.getItemsList().forEach(item -> available.put(item.getProductId(), available(item.getProductId()) - item.getQuantity()));
+            holds.put(request.getOrderId(), request.getItemsList());
+            return response.setReserved(true).build();
+        }
+
+        @Override
+        public void reserveStock(ReserveStockRequest request, StreamObserver<ReserveStockResponse> responseObserver) {
+            ReserveStockStreamResponse result = reserve(request);
+            responseObserver.onNext(ReserveStockResponse.newBuilder().setReserved(result.getReserved()).setReason(result.getReason()).build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void batchReserveStock(BatchReserveStockRequest request, StreamObserver<BatchReserveStockResponse> responseObserver) {
+            BatchReserveStockResponse.Builder response = BatchReserveStockResponse.newBuilder();
+            request.getOrdersList().forEach(order -> response.addResults(reserve(order)));
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public synchronized void getStockBatch(GetStockBatchRequest request, StreamObserver<GetStockBatchResponse> responseObserver) {
+            GetStockBatchResponse.Builder response = GetStockBatchResponse.newBuilder();
+            for (long productId : request.getProductIdsList()) {
+                productsSeen.add(productId);
+                if (unknown.contains(productId)) {
+                    response.addUnknownProductIds(productId);
+                } else {
+                    response.addLevels(StockLevel.newBuilder().setProductId(productId).setAvailable(available(productId)));
+                }
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public synchronized void releaseStock(ReleaseStockRequest request, StreamObserver<ReleaseStockResponse> responseObserver) {
+            ReleaseStockResponse.Builder response = ReleaseStockResponse.newBuilder();
+            for (long orderId : request.getOrderIdsList()) {
+                List<ReserveItem> items = holds.remove(orderId);
+                released.add(orderId);
+                if (items != null) {
+                    items.forEach(item -> available.put(item.getProductId(), available(item.getProductId()) + item.getQuantity()));
+                    response.addReleasedOrderIds(orderId);
+                }
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+    }
+}
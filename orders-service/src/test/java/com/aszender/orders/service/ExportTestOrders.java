@@ -0,0 +1,48 @@
+package com.aszender.orders.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Path;
+
+/**
+ * Synthetic orders in a file-backed H2 database (so the rows are not on the heap themselves), shared by the
+ * export tests. Every fifth order has two items, the others none.
+ */
+final class ExportTestOrders {
+
+    final JdbcTemplate jdbcTemplate;
+    final OrderExportService exportService;
+
+    ExportTestOrders(Path dir, int orders) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:file:" + dir.resolve("orders") + ";CACHE_SIZE=8192", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                create table orders (id bigint primary key, customer_name varchar(255) not null,
+                  status varchar(32) not null, total double precision not null,
+                  created_at timestamp(6) with time zone not null)
+                """);
+        jdbcTemplate.execute("""
+                create table order_items (id bigint primary key, order_id bigint not null, product_id bigint not null,
+                  quantity int not null, unit_price double precision not null)
+                """);
+        jdbcTemplate.execute("create index idx_order_items_order_id on order_items (order_id)");
+        jdbcTemplate.update("""
+                insert into orders select x, 'customer-' || mod(x, 1000), 'CREATED', 12.5,
+                  timestamp with time zone '2026-01-01 00:00:00Z' from system_range(1, ?)
+                """, orders);
+        jdbcTemplate.update("""
+                insert into order_items select x, (x + 1) / 2 * 5, 100 + mod(x, 50), 1, 6.25
+                  from system_range(1, ?)
+                """, orders / 5 * 2);
+        exportService = new OrderExportService(dataSource, new DataSourceTransactionManager(dataSource),
+                JsonMapper.builder().build(), 1000);
+    }
+
+    void shutdown() {
+        jdbcTemplate.execute("shutdown");
+    }
+}
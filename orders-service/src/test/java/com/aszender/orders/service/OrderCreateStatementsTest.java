@@ -0,0 +1,65 @@
+package com.aszender.orders.service;
+
+import com.aszender.orders.dto.CreateOrderRequest;
+import com.aszender.orders.dto.OrderItemRequest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements per order creation for 1, 10 and 50-item orders. Ids come from pooled sequences, so
+ * the order and its items are inserted in JDBC batches instead of one round trip per row.
+ */
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderCreateStatementsTest {
+
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void create_statementCountDoesNotGrowWithItems() {
+        long forOneItem = measure(1);
+        long forTenItems = measure(10);
+        long forFiftyItems = measure(50);
+
+        assertThat(forTenItems).isEqualTo(forOneItem);
+        // 50 items use up a whole block of item ids: one sequence call per order.
+        assertThat(forFiftyItems).isLessThanOrEqualTo(forOneItem + 1);
+    }
+
+    private long measure(int itemCount) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<OrderItemRequest> items = IntStream.range(0, itemCount)
+                .mapToObj(i -> new OrderItemRequest(1_000L + i, 1, 9.99))
+                .toList();
+
+        long statements = Long.MAX_VALUE;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            statistics.clear();
+            orderService.create(new CreateOrderRequest("statements-" + itemCount, items));
+            // The minimum leaves out the iterations that also fetched a new block of ids.
+            statements = Math.min(statements, statistics.getPrepareStatementCount());
+        }
+        long averageMicros = (System.nanoTime() - start) / ITERATIONS / 1_000;
+        System.out.printf("create items=%d statements/order=%d avg=%dus%n", itemCount, statements, averageMicros);
+        return statements;
+    }
+}
@@ -0,0 +1,51 @@
+package com.aszender.orders.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports a handful of synthetic orders and checks the NDJSON they are written as. The constant-memory export of
+ * millions of orders is {@link OrderExportSmallHeapTest}.
+ */
+class OrderExportServiceTest {
+
+    private static final int ORDERS = 25;
+
+    @TempDir
+    Path dir;
+
+    private ExportTestOrders orders;
+
+    @BeforeEach
+    void createOrders() {
+        orders = new ExportTestOrders(dir, ORDERS);
+    }
+
+    @AfterEach
+    void shutdown() {
+        orders.shutdown();
+    }
+
+    @Test
+    void exportWritesOneLinePerOrderWithItsItems() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = orders.exportService.exportTo(out);
+
+        assertThat(written).isEqualTo(ORDERS);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(ORDERS);
+        assertThat(lines[0]).startsWith("{\"id\":1,\"customerName\":\"customer-1\",\"status\":\"CREATED\",\"total\":12.5,")
+                .contains("\"createdAt\":\"2026-01-01T00:00:00Z\"", "\"items\":[]");
+        assertThat(lines[4]).startsWith("{\"id\":5,").contains(
+                "\"items\":[{\"id\":1,\"productId\":101,\"quantity\":1,\"unitPrice\":6.25},{\"id\":2,");
+        assertThat(lines[ORDERS - 1]).startsWith("{\"id\":25,").contains("{\"id\":10,");
+    }
+}
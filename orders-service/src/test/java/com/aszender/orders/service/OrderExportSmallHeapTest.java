@@ -0,0 +1,77 @@
+package com.aszender.orders.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Exports two million orders in a JVM whose heap could not hold them: materializing the orders would take several
+ * hundred MB, so finishing at all shows the export streams. Runs in its own small-heap surefire execution
+ * ({@code mvn test -Pbenchmarks}).
+ */
+@Tag("small-heap")
+class OrderExportSmallHeapTest {
+
+    private static final int ORDERS = 2_000_000;
+    private static final long MAX_HEAP = 256L << 20;
+
+    @TempDir
+    Path dir;
+
+    private ExportTestOrders orders;
+
+    @BeforeEach
+    void createOrders() {
+        assumeTrue(Runtime.getRuntime().maxMemory() <= MAX_HEAP, "needs a heap of at most 256 MB");
+        orders = new ExportTestOrders(dir, ORDERS);
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (orders != null) {
+            orders.shutdown();
+        }
+    }
+
+    @Test
+    void exportStreamsEveryOrderInASmallHeap() {
+        LineCountingStream out = new LineCountingStream();
+        long start = System.nanoTime();
+        long written = orders.exportService.exportTo(out);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("Order export: %d orders, %d MB of NDJSON in %dms with a %d MB heap%n",
+                written, out.bytes >> 20, elapsedMillis, Runtime.getRuntime().maxMemory() >> 20);
+        assertThat(written).isEqualTo(ORDERS);
+        assertThat(out.lines).isEqualTo(ORDERS);
+    }
+
+    private static final class LineCountingStream extends OutputStream {
+
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+            bytes += len;
+        }
+    }
+}
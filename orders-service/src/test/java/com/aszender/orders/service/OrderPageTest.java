@@ -0,0 +1,78 @@
+package com.aszender.orders.service;
+
+import com.aszender.orders.model.Order;
+import com.aszender.orders.model.OrderItem;
+import com.aszender.orders.model.OrderStatus;
+import com.aszender.orders.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderPageTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void pagesFollowTheCursor_newestFirst_inTwoQueriesEach() {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Order order = new Order("page-customer");
+            order.addItem(new OrderItem(1L + i, 1, 2.0));
+            order.addItem(new OrderItem(100L + i, 2, 3.0));
+            if (i % 2 == 0) {
+                order.setStatus(OrderStatus.RESERVED);
+            }
+            created.add(orderRepository.save(order).getId());
+        }
+        orderRepository.save(new Order("someone-else"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<Long> listed = new ArrayList<>();
+        OrderCursor cursor = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            OrderPage page = orderService.findPage(cursor, null, "page-customer", 3);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            page.orders().forEach(order -> assertThat(order.getItems()).hasSize(2));
+            page.orders().forEach(order -> listed.add(order.getId()));
+            cursor = page.next() == null ? null : OrderCursor.decode(page.next().encode());
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        Collections.reverse(created);
+        assertThat(listed).containsExactlyElementsOf(created);
+        assertThat(orderService.findPage(null, OrderStatus.RESERVED, "page-customer", 10).orders())
+                .extracting(Order::getId)
+                .containsExactly(created.get(0), created.get(2), created.get(4), created.get(6));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThatThrownBy(() -> OrderCursor.decode("not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,171 @@
+package com.aszender.orders.service;
+
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.contracts.inventory.v1.ReserveStockResponse;
+import com.aszender.orders.dto.CreateOrderRequest;
+import com.aszender.orders.dto.OrderItemRequest;
+import com.aszender.orders.exception.PlacementQueueFullException;
+import com.aszender.orders.model.Order;
+import com.aszender.orders.model.OrderStatus;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Orders are accepted while inventory has not answered yet, up to the queue capacity; the queued
+ * reservations finish once it does, also for orders accepted before a restart.
+ */
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        // A database of its own: on start the queue picks up every CREATED order.
+        "spring.datasource.url=jdbc:h2:mem:placement-queue-test",
+        "spring.jpa.show-sql=false",
+        "app.orders.placement.async=true",
+        "app.orders.placement.capacity=2",
+        "app.orders.placement.workers=1",
+        "app.orders.placement.max-in-flight=1",
+        "app.orders.placement.retry-backoff-ms=50",
+        "app.grpc.inventory.stream.enabled=false",
+        "app.grpc.inventory.health-check-interval-ms=0",
+        "app.grpc.inventory.deadline-ms=30000"
+})
+class OrderPlacementQueueTest {
+
+    // Inventory that answers only when the test says so.
+    private static final BlockingQueue<PendingReservation> RESERVATIONS = new LinkedBlockingQueue<>();
+    private static final Server INVENTORY = startInventory();
+
+    record PendingReservation(ReserveStockRequest request, StreamObserver<ReserveStockResponse> response) {
+        void answer(boolean reserved) {
+            response.onNext(ReserveStockResponse.newBuilder().setReserved(reserved).build());
+            response.onCompleted();
+        }
+
+        void fail(Status status) {
+            response.onError(status.asRuntimeException());
+        }
+    }
+
+    @DynamicPropertySource
+    static void inventoryTarget(DynamicPropertyRegistry registry) {
+        registry.add("app.grpc.inventory.target", () -> "localhost:" + INVENTORY.getPort());
+    }
+
+    @AfterAll
+    static void stopInventory() {
+        INVENTORY.shutdownNow();
+    }
+
+    @Autowired
+    private OrderPlacementQueue placementQueue;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void ordersAreAcceptedBeforeInventoryAnswers_upToTheQueueCapacity() throws Exception {
+        List<Order> accepted = new ArrayList<>();
+        accepted.add(place());
+        PendingReservation first = RESERVATIONS.poll(10, TimeUnit.SECONDS);
+        assertThat(first.request().getOrderId()).isEqualTo(accepted.get(0).getId());
+
+        // The worker takes the second order and waits for an in-flight slot; two more fill the queue.
+        accepted.add(place());
+        awaitQueued(0);
+        accepted.add(place());
+        accepted.add(place());
+        assertThat(placementQueue.queued()).isEqualTo(2);
+        assertThatThrownBy(this::place).isInstanceOf(PlacementQueueFullException.class);
+        assertThat(accepted).allMatch(order -> order.getStatus() == OrderStatus.CREATED);
+
+        CompletableFuture<Order> firstOutcome = placementQueue.outcome(accepted.get(0).getId()).orElseThrow();
+        first.answer(true);
+        assertThat(firstOutcome.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(OrderStatus.RESERVED);
+        for (int i = 1; i < accepted.size(); i++) {
+            PendingReservation next = RESERVATIONS.poll(10, TimeUnit.SECONDS);
+            assertThat(next.request().getOrderId()).isEqualTo(accepted.get(i).getId());
+            next.answer(i != 2);
+        }
+
+        awaitQueued(0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (placementQueue.outcome(accepted.get(3).getId()).isPresent() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(accepted).extracting(order -> orderService.findById(order.getId()).getStatus())
+                .containsExactly(OrderStatus.RESERVED, OrderStatus.RESERVED, OrderStatus.CANCELLED, OrderStatus.RESERVED);
+    }
+
+    @Test
+    void createdOrdersLeftByARestart_areQueuedOnStart() throws Exception {
+        placementQueue.stop();
+        Order accepted = orderService.create(new CreateOrderRequest("placement", List.of(new OrderItemRequest(7L, 1, 1.0))));
+        placementQueue.start();
+
+        PendingReservation pending = RESERVATIONS.poll(10, TimeUnit.SECONDS);
+        assertThat(pending.request().getOrderId()).isEqualTo(accepted.getId());
+        CompletableFuture<Order> outcome = placementQueue.outcome(accepted.getId()).orElseThrow();
+        pending.answer(true);
+        assertThat(outcome.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(OrderStatus.RESERVED);
+    }
+
+    @Test
+    void transientInventoryFailure_isRetriedAfterABackoff() throws Exception {
+        Order accepted = place();
+        PendingReservation first = RESERVATIONS.poll(10, TimeUnit.SECONDS);
+        assertThat(first.request().getOrderId()).isEqualTo(accepted.getId());
+        CompletableFuture<Order> outcome = placementQueue.outcome(accepted.getId()).orElseThrow();
+        first.fail(Status.RESOURCE_EXHAUSTED);
+
+        PendingReservation retry = RESERVATIONS.poll(10, TimeUnit.SECONDS);
+        assertThat(retry.request().getOrderId()).isEqualTo(accepted.getId());
+        assertThat(outcome).isNotDone();
+        retry.answer(true);
+        assertThat(outcome.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(OrderStatus.RESERVED);
+    }
+
+    private Order place() {
+        return placementQueue.place(() -> orderService.create(
+                new CreateOrderRequest("placement", List.of(new OrderItemRequest(7L, 1, 1.0)))));
+    }
+
+    private void awaitQueued(int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (placementQueue.queued() != queued && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(placementQueue.queued()).isEqualTo(queued);
+    }
+
+    private static Server startInventory() {
+        try {
+            return ServerBuilder.forPort(0).addService(new InventoryServiceGrpc.InventoryServiceImplBase() {
+                @Override
+                public void reserveStock(ReserveStockRequest request, StreamObserver<ReserveStockResponse> responseObserver) {
+                    RESERVATIONS.add(new PendingReservation(request, responseObserver));
+                }
+            }).build().start();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
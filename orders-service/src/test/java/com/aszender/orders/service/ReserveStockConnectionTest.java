@@ -0,0 +1,153 @@
+package com.aszender.orders.service;
+
+import com.aszender.contracts.inventory.v1.InventoryServiceGrpc;
+import com.aszender.contracts.inventory.v1.ReleaseStockRequest;
+import com.aszender.contracts.inventory.v1.ReleaseStockResponse;
+import com.aszender.contracts.inventory.v1.ReserveStockRequest;
+import com.aszender.contracts.inventory.v1.ReserveStockResponse;
+import com.aszender.orders.datasource.ConnectionPoolMetrics;
+import com.aszender.orders.dto.CreateOrderRequest;
+import com.aszender.orders.dto.OrderItemRequest;
+import com.aszender.orders.inventory.GrpcInventoryClient;
+import com.aszender.orders.model.Order;
+import com.aszender.orders.model.OrderStatus;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * No pooled connection is held while inventory answers a reservation, and a status change made
+ * meanwhile is not overwritten by the reservation outcome (nor leaves a hold behind).
+ */
+@SpringBootTest(properties = {
+        "app.grpc.server.enabled=false",
+        "spring.jpa.show-sql=false",
+        "app.grpc.inventory.stream.enabled=false",
+        "app.grpc.inventory.health-check-interval-ms=0",
+        "app.grpc.inventory.deadline-ms=30000"
+})
+class ReserveStockConnectionTest {
+
+    private static final long INVENTORY_DELAY_MILLIS = 1_000;
+
+    // Inventory that answers only when the test says so.
+    private static final BlockingQueue<StreamObserver<ReserveStockResponse>> RESERVATIONS = new LinkedBlockingQueue<>();
+    private static final BlockingQueue<Long> RELEASED = new LinkedBlockingQueue<>();
+    private static final Server INVENTORY = startInventory();
+
+    @DynamicPropertySource
+    static void inventoryTarget(DynamicPropertyRegistry registry) {
+        registry.add("app.grpc.inventory.target", () -> "localhost:" + INVENTORY.getPort());
+    }
+
+    @AfterAll
+    static void stopInventory() {
+        INVENTORY.shutdownNow();
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private GrpcInventoryClient inventoryClient;
+
+    @Autowired
+    private ConnectionPoolMetrics connectionPoolMetrics;
+
+    @Test
+    void connectionsAreNotHeldWhileInventoryAnswers() throws Exception {
+        Order order = create();
+        long usagesBefore = pool().usage().count();
+
+        CompletableFuture<Order> reserved = orderService.reserveStock(order.getId());
+        StreamObserver<ReserveStockResponse> pending = RESERVATIONS.poll(10, TimeUnit.SECONDS);
+        Thread.sleep(INVENTORY_DELAY_MILLIS);
+        answer(pending, true);
+
+        assertThat(reserved.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(OrderStatus.RESERVED);
+        assertThat(inventoryClient.callMetrics()).anySatisfy(call ->
+                assertThat(call.latency().maxMillis()).isGreaterThanOrEqualTo(INVENTORY_DELAY_MILLIS));
+        // Read and write transaction, each well below the inventory latency (including startup).
+        ConnectionPoolMetrics.PoolSnapshot pool = pool();
+        assertThat(pool.usage().count() - usagesBefore).isGreaterThanOrEqualTo(2);
+        assertThat(pool.usage().maxMillis()).isLessThan(INVENTORY_DELAY_MILLIS / 2.0);
+    }
+
+    @Test
+    void aStatusChangeWhileInventoryAnswersWins() throws Exception {
+        Order order = create();
+
+        CompletableFuture<Order> reserved = orderService.reserveStock(order.getId());
+        StreamObserver<ReserveStockResponse> pending = RESERVATIONS.poll(10, TimeUnit.SECONDS);
+        orderService.updateStatus(order.getId(), OrderStatus.PAID);
+        answer(pending, false);
+
+        Order outcome = reserved.get(10, TimeUnit.SECONDS);
+        assertThat(outcome.getStatus()).isEqualTo(OrderStatus.PAID);
+        assertThat(orderService.findById(order.getId()).getStatus()).isEqualTo(OrderStatus.PAID);
+    }
+
+    @Test
+    void cancelWhileInventoryReserves_releasesTheHold() throws Exception {
+        Order order = create();
+
+        CompletableFuture<Order> reserved = orderService.reserveStock(order.getId());
+        StreamObserver<ReserveStockResponse> pending = RESERVATIONS.poll(10, TimeUnit.SECONDS);
+        orderService.updateStatus(order.getId(), OrderStatus.CANCELLED);
+        answer(pending, true);
+
+        assertThat(reserved.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(RELEASED.poll(10, TimeUnit.SECONDS)).isEqualTo(order.getId());
+    }
+
+    private Order create() {
+        return orderService.create(new CreateOrderRequest("pool-test", List.of(new OrderItemRequest(1L, 1, 5.0))));
+    }
+
+    private ConnectionPoolMetrics.PoolSnapshot pool() {
+        List<ConnectionPoolMetrics.PoolSnapshot> pools = connectionPoolMetrics.snapshot();
+        assertThat(pools).hasSize(1);
+        return pools.get(0);
+    }
+
+    private static void answer(StreamObserver<ReserveStockResponse> pending, boolean reserved) {
+        pending.onNext(ReserveStockResponse.newBuilder().setReserved(reserved).build());
+        pending.onCompleted();
+    }
+
+    private static Server startInventory() {
+        InventoryServiceGrpc.InventoryServiceImplBase service = new InventoryServiceGrpc.InventoryServiceImplBase() {
+            @Override
+            public void reserveStock(ReserveStockRequest request, StreamObserver<ReserveStockResponse> responseObserver) {
+                RESERVATIONS.add(responseObserver);
+            }
+
+            @Override
+            public void releaseStock(ReleaseStockRequest request, StreamObserver<ReleaseStockResponse> responseObserver) {
+                RELEASED.addAll(request.getOrderIdsList());
+                responseObserver.onNext(ReleaseStockResponse.newBuilder().addAllReleasedOrderIds(request.getOrderIdsList()).build());
+                responseObserver.onCompleted();
+            }
+        };
+        try {
+            return ServerBuilder.forPort(0).addService(service).build().start();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.aszender.spring_backend.kafka;
+
+import com.aszender.contracts.events.v1.LowStock;
+import com.aszender.contracts.events.v1.OrderCreated;
+import com.aszender.contracts.kafka.KafkaEventFormats;
+import com.aszender.contracts.kafka.ProtobufDeserializer;
+import com.aszender.spring_backend.kafka.serde.ProductEventMessages;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.kafka.autoconfigure.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.kafka.autoconfigure.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.kafka.autoconfigure.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This service's events and consumed topics for the shared {@link KafkaEventFormats}.
+ */
+@Configuration
+@Profile("kafka")
+public class KafkaEventFormatConfig {
+
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer protobufEventSerializer(
+            KafkaProperties kafkaProperties,
+            @Value("${app.kafka.protobuf-topics:}") Set<String> protobufTopics
+    ) {
+        return KafkaEventFormats.protobufSerializer(kafkaProperties, protobufTopics, ProductEventMessages::toMessage);
+    }
+
+    @Bean
+    public DefaultKafkaConsumerFactoryCustomizer protobufEventDeserializer(
+            KafkaProperties kafkaProperties,
+            @Value("${app.kafka.topics.order-created:orders.order-created.v1}") String orderCreatedTopic,
+            @Value("${app.kafka.topics.low-stock}") String lowStockTopic
+    ) {
+        return KafkaEventFormats.contentTypeDeserializer(kafkaProperties, () -> Map.of(
+                orderCreatedTopic, new ProtobufDeserializer<>(OrderCreated.parser(), ProductEventMessages::fromMessage),
+                lowStockTopic, new ProtobufDeserializer<>(LowStock.parser(), ProductEventMessages::fromMessage)
+        ));
+    }
+}
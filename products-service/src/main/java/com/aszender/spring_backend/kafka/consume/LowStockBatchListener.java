@@ -0,0 +1,95 @@
+package com.aszender.spring_backend.kafka.consume;
+
+import com.aszender.contracts.kafka.KafkaBatchListenerAutoConfiguration;
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
+import com.aszender.spring_backend.kafka.events.LowStockEvent;
+import com.aszender.spring_backend.model.ProductStockStatus;
+import com.aszender.spring_backend.repository.ProductStockStatusRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@Profile("kafka")
+@ConditionalOnProperty(name = "app.kafka.batch-listeners.enabled", havingValue = "true")
+public class LowStockBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockBatchListener.class);
+
+    private final KafkaInboxService inboxService;
+    private final ProductStockStatusRepository stockStatusRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public LowStockBatchListener(
+            KafkaInboxService inboxService,
+            ProductStockStatusRepository stockStatusRepository,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.inboxService = inboxService;
+        this.stockStatusRepository = stockStatusRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.topics.low-stock}",
+            groupId = "products-service",
+            containerFactory = KafkaBatchListenerAutoConfiguration.CONTAINER_FACTORY,
+            properties = {
+                    "spring.json.value.default.type=com.aszender.spring_backend.kafka.events.LowStockEvent",
+                    "max.poll.records=${app.kafka.batch-listeners.max-poll-records:500}"
+            }
+    )
+    public void onLowStock(List<ConsumerRecord<String, LowStockEvent>> records) {
+        // The projection keeps only the latest state, so the last event per product wins.
+        List<ConsumerRecord<String, LowStockEvent>> fresh = inboxService.unconsumed(records);
+        Map<Long, LowStockEvent> latestByProductId = new LinkedHashMap<>();
+        for (ConsumerRecord<String, LowStockEvent> record : fresh) {
+            LowStockEvent event = record.value();
+            if (event != null && event.productId() != null) {
+                latestByProductId.put(event.productId(), event);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        // The offsets are recorded in the projection's transaction: a failed update leaves the poll unconsumed.
+        transactionTemplate.executeWithoutResult(status -> {
+            inboxService.tryConsumeAll(fresh);
+            Map<Long, ProductStockStatus> existing = stockStatusRepository.findAllById(latestByProductId.keySet()).stream()
+                    .collect(Collectors.toMap(ProductStockStatus::getProductId, Function.identity()));
+
+            List<ProductStockStatus> updated = latestByProductId.values().stream()
+                    .map(event -> apply(existing.get(event.productId()), event))
+                    .toList();
+            stockStatusRepository.saveAll(updated);
+        });
+
+        log.info("Low stock projection updated from {} records: {} products", records.size(), latestByProductId.size());
+    }
+
+    private static ProductStockStatus apply(ProductStockStatus status, LowStockEvent event) {
+        boolean lowStock = event.available() <= event.threshold();
+        if (status == null) {
+            status = new ProductStockStatus(event.productId(), event.available(), event.threshold(), lowStock, Instant.now());
+        }
+        status.setAvailable(event.available());
+        status.setThreshold(event.threshold());
+        status.setLowStock(lowStock);
+        status.setUpdatedAt(event.detectedAt() != null ? event.detectedAt() : Instant.now());
+        return status;
+    }
+}
@@ -1,20 +1,23 @@
 package com.aszender.spring_backend.kafka.consume;
 
+import com.aszender.contracts.kafka.inbox.KafkaInboxService;
 import com.aszender.spring_backend.kafka.events.LowStockEvent;
-import com.aszender.spring_backend.kafka.inbox.KafkaInboxService;
 import com.aszender.spring_backend.model.ProductStockStatus;
 import com.aszender.spring_backend.repository.ProductStockStatusRepository;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 
 @Component
 @Profile("kafka")
+@ConditionalOnProperty(name = "app.kafka.batch-listeners.enabled", havingValue = "false", matchIfMissing = true)
 public class LowStockListener {
 
     private static final Logger log = LoggerFactory.getLogger(LowStockListener.class);
@@ -27,6 +30,8 @@ public class LowStockListener {
         this.stockStatusRepository = stockStatusRepository;
     }
 
+    // The offset is recorded in the projection's transaction: a failed update leaves the record unconsumed.
+
     @KafkaListener(
             topics = "${app.kafka.topics.low-stock}",
             groupId = "products-service",
@@ -34,6 +39,7 @@ public class LowStockListener {
                     "spring.json.value.default.type=com.aszender.spring_backend.kafka.events.LowStockEvent"
             }
     )
+    @Transactional
     public void onLowStock(LowStockEvent event, ConsumerRecord<String, LowStockEvent> record) {
         if (!inboxService.tryConsume(record)) {
             return;
@@ -0,0 +1,51 @@
+package com.aszender.spring_backend.kafka.serde;
+
+import com.aszender.contracts.events.v1.LowStock;
+import com.aszender.contracts.events.v1.OrderCreated;
+import com.aszender.contracts.events.v1.ProductCreated;
+import com.aszender.contracts.kafka.ProtoTimestamps;
+import com.aszender.spring_backend.kafka.events.LowStockEvent;
+import com.aszender.spring_backend.kafka.events.OrderCreatedEvent;
+import com.aszender.spring_backend.kafka.events.ProductCreatedEvent;
+import com.google.protobuf.MessageLite;
+
+/**
+ * The event records of this service &lt;-&gt; their protobuf messages (contracts events.proto).
+ * Null timestamps stay unset on the wire and come back as null.
+ */
+public final class ProductEventMessages {
+
+    private ProductEventMessages() {
+    }
+
+    /**
+     * @param event one of the events this service publishes
+     */
+    public static MessageLite toMessage(Object event) {
+        if (event instanceof ProductCreatedEvent e) {
+            ProductCreated.Builder message = ProductCreated.newBuilder().setProductId(e.productId());
+            if (e.name() != null) {
+                message.setName(e.name());
+            }
+            if (e.price() != null) {
+                message.setPrice(e.price());
+            }
+            if (e.createdAt() != null) {
+                message.setCreatedAt(ProtoTimestamps.parse(e.createdAt()));
+            }
+            return message.build();
+        }
+        throw new IllegalArgumentException("No protobuf message for " + event.getClass().getName());
+    }
+
+    // The order events carry no customer or total; as with their JSON, those stay null.
+    public static OrderCreatedEvent fromMessage(OrderCreated message) {
+        return new OrderCreatedEvent(message.getOrderId(), null, null,
+                message.hasCreatedAt() ? ProtoTimestamps.toInstant(message.getCreatedAt()) : null);
+    }
+
+    public static LowStockEvent fromMessage(LowStock message) {
+        return new LowStockEvent(message.getProductId(), message.getAvailable(), message.getThreshold(),
+                message.hasDetectedAt() ? ProtoTimestamps.toInstant(message.getDetectedAt()) : null);
+    }
+}